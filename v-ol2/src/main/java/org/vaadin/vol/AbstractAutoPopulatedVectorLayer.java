@@ -3,11 +3,15 @@ package org.vaadin.vol;
 import com.vaadin.ui.Component;
 import com.vaadin.util.ReflectTools;
 
+import elemental.json.JsonObject;
+
 import java.lang.reflect.Method;
+import java.util.List;
 import java.util.Map;
 
 import org.vaadin.vol.client.AutoPopulatedVectorLayerState;
 import org.vaadin.vol.client.FeatureSelectionServerRpc;
+import org.vaadin.vol.client.Renderer;
 import org.vaadin.vol.client.StyleMap;
 import org.vaadin.vol.client.VectorLayerState;
 
@@ -49,6 +53,11 @@ public abstract class AbstractAutoPopulatedVectorLayer extends AbstractLayerBase
         return (AutoPopulatedVectorLayerState)super.getState();
     }
 
+    @Override
+    protected AutoPopulatedVectorLayerState getState(boolean markAsDirty) {
+        return (AutoPopulatedVectorLayerState)super.getState(markAsDirty);
+    }
+
     /**
      * @return the styleMap
      */
@@ -93,6 +102,32 @@ public abstract class AbstractAutoPopulatedVectorLayer extends AbstractLayerBase
         markAsDirty();
     }
 
+    /**
+     * @see VectorLayer#setRenderers(Renderer...)
+     */
+    public void setRenderers(Renderer... renderers) {
+        Renderers.checkNotAttached(this);
+        getState().renderers = Renderers.toClassNames(renderers);
+    }
+
+    public List<Renderer> getRenderers() {
+        return Renderers.fromClassNames(getState(false).renderers);
+    }
+
+    /**
+     * Sets the options passed to the OpenLayers renderer as such, see
+     * {@link VectorLayer#setRendererOptions(JsonObject)}. Unlike there, the
+     * hitDetection option of Canvas keeps its OpenLayers default.
+     */
+    public void setRendererOptions(JsonObject rendererOptions) {
+        Renderers.checkNotAttached(this);
+        getState().rendererOptions = rendererOptions;
+    }
+
+    public JsonObject getRendererOptions() {
+        return getState(false).rendererOptions;
+    }
+
     public void setFilter(String filterType,String filterProp,String filterValue) {
         this.getState().filterType=filterType;
         this.getState().filterProp=filterProp;
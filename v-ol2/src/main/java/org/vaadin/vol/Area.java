@@ -2,4 +2,13 @@ package org.vaadin.vol;
 
 public class Area extends Vector {
 
+    @Override
+    protected double[] simplify(double[] coordinates, double tolerance) {
+        return Simplifier.simplifyRing(coordinates, tolerance);
+    }
+
+    @Override
+    boolean isRing() {
+        return true;
+    }
 }
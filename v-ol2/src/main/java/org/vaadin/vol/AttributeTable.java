@@ -0,0 +1,336 @@
+package org.vaadin.vol;
+
+import elemental.json.Json;
+import elemental.json.JsonArray;
+import elemental.json.JsonValue;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.vaadin.vol.client.AttributeType;
+
+/**
+ * Attribute values of the features of a layer, stored column-wise: one array
+ * of values per declared attribute, indexed by the row of the feature. Rows of
+ * removed features are reused.
+ */
+@SuppressWarnings("serial")
+class AttributeTable implements Serializable {
+
+    private final LinkedHashMap<String, Column> columns = new LinkedHashMap<String, Column>();
+    private int capacity = 16;
+    private int rowCount;
+    private int[] freeRows = new int[0];
+    private int freeRowCount;
+
+    void addColumn(String name, AttributeType type) {
+        if (name == null || type == null) {
+            throw new IllegalArgumentException("Attribute name and type must not be null");
+        }
+        Column column = columns.get(name);
+        if (column != null) {
+            if (column.type != type) {
+                throw new IllegalArgumentException("Attribute " + name + " is already declared as " + column.type);
+            }
+            return;
+        }
+        columns.put(name, Column.create(type, capacity));
+    }
+
+    boolean hasColumns() {
+        return !columns.isEmpty();
+    }
+
+    List<String> getColumnNames() {
+        return new ArrayList<String>(columns.keySet());
+    }
+
+    AttributeType getColumnType(String name) {
+        Column column = columns.get(name);
+        return column != null ? column.type : null;
+    }
+
+    /**
+     * Checks that the values match the declared columns.
+     *
+     * @throws IllegalArgumentException
+     *             if an attribute is not declared or a value is of wrong type
+     */
+    void validate(Map<String, Object> values) {
+        if (values == null) {
+            return;
+        }
+        for (Map.Entry<String, Object> entry : values.entrySet()) {
+            validate(entry.getKey(), entry.getValue());
+        }
+    }
+
+    private Column validate(String name, Object value) {
+        Column column = columns.get(name);
+        if (column == null) {
+            throw new IllegalArgumentException("Attribute " + name + " is not declared on the layer");
+        }
+        if (value != null && !column.accepts(value)) {
+            throw new IllegalArgumentException("Attribute " + name + " is of type " + column.type + ", got "
+              + value.getClass().getName());
+        }
+        return column;
+    }
+
+    /**
+     * Allocates a row with the given values, which must have been validated.
+     *
+     * @return the row index
+     */
+    int addRow(Map<String, Object> values) {
+        int row;
+        if (freeRowCount > 0) {
+            row = freeRows[--freeRowCount];
+        } else {
+            row = rowCount++;
+            if (row >= capacity) {
+                capacity = capacity * 2;
+                for (Column column : columns.values()) {
+                    column.grow(capacity);
+                }
+            }
+        }
+        if (values != null) {
+            for (Map.Entry<String, Object> entry : values.entrySet()) {
+                columns.get(entry.getKey()).set(row, entry.getValue());
+            }
+        }
+        return row;
+    }
+
+    /**
+     * Frees the row.
+     *
+     * @return the non-null values of the row by attribute name, or null if
+     *         there are none
+     */
+    Map<String, Object> removeRow(int row) {
+        Map<String, Object> values = getValues(row);
+        if (values != null) {
+            for (String name : values.keySet()) {
+                columns.get(name).set(row, null);
+            }
+        }
+        if (freeRowCount == freeRows.length) {
+            int[] grown = new int[Math.max(16, freeRows.length * 2)];
+            System.arraycopy(freeRows, 0, grown, 0, freeRowCount);
+            freeRows = grown;
+        }
+        freeRows[freeRowCount++] = row;
+        return values;
+    }
+
+    /**
+     * @return the non-null values of the row by attribute name, or null if
+     *         there are none
+     */
+    Map<String, Object> getValues(int row) {
+        HashMap<String, Object> values = null;
+        for (Map.Entry<String, Column> entry : columns.entrySet()) {
+            Object value = entry.getValue().get(row);
+            if (value != null) {
+                if (values == null) {
+                    values = new HashMap<String, Object>();
+                }
+                values.put(entry.getKey(), value);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Forgets all rows, keeping the declared columns.
+     */
+    void clearRows() {
+        capacity = 16;
+        rowCount = 0;
+        freeRowCount = 0;
+        freeRows = new int[0];
+        for (Map.Entry<String, Column> entry : columns.entrySet()) {
+            entry.setValue(Column.create(entry.getValue().type, capacity));
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException
+     *             if the attribute is not declared or the value is of wrong
+     *             type
+     */
+    void set(int row, String name, Object value) {
+        validate(name, value).set(row, value);
+    }
+
+    Object get(int row, String name) {
+        Column column = columns.get(name);
+        return column != null ? column.get(row) : null;
+    }
+
+    /**
+     * @param rows
+     *            the rows of the features sent, -1 for features without
+     *            values
+     * @return one array per column with the values of the given rows, null
+     *         for missing values
+     */
+    JsonArray toJson(int[] rows) {
+        JsonArray result = Json.createArray();
+        int c = 0;
+        for (Column column : columns.values()) {
+            JsonArray values = Json.createArray();
+            for (int i = 0; i < rows.length; i++) {
+                values.set(i, rows[i] < 0 ? Json.createNull() : column.toJson(rows[i]));
+            }
+            result.set(c++, values);
+        }
+        return result;
+    }
+
+    /**
+     * @return the rows of the given features
+     */
+    static int[] getRows(Collection<Feature> features) {
+        int[] rows = new int[features.size()];
+        int i = 0;
+        for (Feature feature : features) {
+            rows[i++] = feature.getRow();
+        }
+        return rows;
+    }
+
+    private abstract static class Column implements Serializable {
+        final AttributeType type;
+
+        Column(AttributeType type) {
+            this.type = type;
+        }
+
+        static Column create(AttributeType type, int capacity) {
+            switch (type) {
+            case NUMBER:
+                return new NumberColumn(capacity);
+            case BOOLEAN:
+                return new BooleanColumn(capacity);
+            default:
+                return new StringColumn(capacity);
+            }
+        }
+
+        abstract boolean accepts(Object value);
+
+        abstract void grow(int capacity);
+
+        abstract void set(int row, Object value);
+
+        abstract Object get(int row);
+
+        abstract JsonValue toJson(int row);
+    }
+
+    // missing values are NaN
+    private static class NumberColumn extends Column {
+        private double[] values;
+
+        NumberColumn(int capacity) {
+            super(AttributeType.NUMBER);
+            values = new double[capacity];
+            Arrays.fill(values, Double.NaN);
+        }
+
+        boolean accepts(Object value) {
+            return value instanceof Number;
+        }
+
+        void grow(int capacity) {
+            double[] grown = new double[capacity];
+            System.arraycopy(values, 0, grown, 0, values.length);
+            Arrays.fill(grown, values.length, capacity, Double.NaN);
+            values = grown;
+        }
+
+        void set(int row, Object value) {
+            values[row] = value != null ? ((Number) value).doubleValue() : Double.NaN;
+        }
+
+        Object get(int row) {
+            return Double.isNaN(values[row]) ? null : Double.valueOf(values[row]);
+        }
+
+        JsonValue toJson(int row) {
+            return Double.isNaN(values[row]) ? Json.createNull() : Json.create(values[row]);
+        }
+    }
+
+    private static class StringColumn extends Column {
+        private String[] values;
+
+        StringColumn(int capacity) {
+            super(AttributeType.STRING);
+            values = new String[capacity];
+        }
+
+        boolean accepts(Object value) {
+            return value instanceof String;
+        }
+
+        void grow(int capacity) {
+            String[] grown = new String[capacity];
+            System.arraycopy(values, 0, grown, 0, values.length);
+            values = grown;
+        }
+
+        void set(int row, Object value) {
+            values[row] = (String) value;
+        }
+
+        Object get(int row) {
+            return values[row];
+        }
+
+        JsonValue toJson(int row) {
+            return values[row] != null ? Json.create(values[row]) : Json.createNull();
+        }
+    }
+
+    // 0 for missing values, 1 for false and 2 for true
+    private static class BooleanColumn extends Column {
+        private byte[] values;
+
+        BooleanColumn(int capacity) {
+            super(AttributeType.BOOLEAN);
+            values = new byte[capacity];
+        }
+
+        boolean accepts(Object value) {
+            return value instanceof Boolean;
+        }
+
+        void grow(int capacity) {
+            byte[] grown = new byte[capacity];
+            System.arraycopy(values, 0, grown, 0, values.length);
+            values = grown;
+        }
+
+        void set(int row, Object value) {
+            values[row] = value == null ? 0 : ((Boolean) value).booleanValue() ? (byte) 2 : (byte) 1;
+        }
+
+        Object get(int row) {
+            return values[row] == 0 ? null : Boolean.valueOf(values[row] == 2);
+        }
+
+        JsonValue toJson(int row) {
+            return values[row] == 0 ? Json.createNull() : Json.create(values[row] == 2);
+        }
+    }
+}
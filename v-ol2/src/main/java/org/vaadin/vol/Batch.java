@@ -0,0 +1,33 @@
+package org.vaadin.vol;
+
+import com.vaadin.server.ClientConnector;
+import com.vaadin.server.VaadinSession;
+
+/**
+ * Runs changes to the children of a layer as one update.
+ */
+final class Batch {
+
+    private Batch() {
+    }
+
+    /**
+     * Runs the changes with the session of the connector locked, so with
+     * server push or from a background thread the client receives all of the
+     * changes in one response and handles them in a single hierarchy change.
+     * Connectors not attached to a session run the changes as such.
+     */
+    static void run(ClientConnector connector, Runnable changes) {
+        VaadinSession session = connector.getSession();
+        if (session == null) {
+            changes.run();
+            return;
+        }
+        session.lock();
+        try {
+            changes.run();
+        } finally {
+            session.unlock();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package org.vaadin.vol;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import org.vaadin.vol.client.Bounds;
+import org.vaadin.vol.client.Point;
+
+/**
+ * A group of points that are close to each other at a certain zoom level,
+ * shown on the map as a single representative point.
+ *
+ * @see VectorLayer#setClusterDistance(int)
+ * @see MarkerLayer#setClusterDistance(int)
+ */
+@SuppressWarnings("serial")
+public class Cluster<T> implements Serializable {
+
+    private final String id;
+    // positions of the members, shared with the cluster index
+    private final LinkedHashMap<T, double[]> members = new LinkedHashMap<T, double[]>();
+    private double sumX;
+    private double sumY;
+    private double minX = Double.POSITIVE_INFINITY;
+    private double minY = Double.POSITIVE_INFINITY;
+    private double maxX = Double.NEGATIVE_INFINITY;
+    private double maxY = Double.NEGATIVE_INFINITY;
+
+    Cluster(String id) {
+        this.id = id;
+    }
+
+    void add(T member, double[] position) {
+        members.put(member, position);
+        sumX += position[0];
+        sumY += position[1];
+        extend(position);
+    }
+
+    /**
+     * @return true if the member was in this cluster
+     */
+    boolean remove(T member) {
+        double[] position = members.remove(member);
+        if (position == null) {
+            return false;
+        }
+        sumX -= position[0];
+        sumY -= position[1];
+        if (position[0] <= minX || position[0] >= maxX || position[1] <= minY || position[1] >= maxY) {
+            // the member was on the bounding box, recompute it
+            minX = Double.POSITIVE_INFINITY;
+            minY = Double.POSITIVE_INFINITY;
+            maxX = Double.NEGATIVE_INFINITY;
+            maxY = Double.NEGATIVE_INFINITY;
+            for (double[] p : members.values()) {
+                extend(p);
+            }
+        }
+        return true;
+    }
+
+    private void extend(double[] position) {
+        minX = Math.min(minX, position[0]);
+        minY = Math.min(minY, position[1]);
+        maxX = Math.max(maxX, position[0]);
+        maxY = Math.max(maxY, position[1]);
+    }
+
+    /**
+     * @return an identifier unique among the clusters of a layer at a zoom
+     *         level
+     */
+    String getId() {
+        return id;
+    }
+
+    /**
+     * @return the points in this cluster
+     */
+    public List<T> getMembers() {
+        return Collections.unmodifiableList(new ArrayList<T>(members.keySet()));
+    }
+
+    public int getSize() {
+        return members.size();
+    }
+
+    /**
+     * @return the average position of the members, where the cluster is shown
+     */
+    public Point getCenter() {
+        return new Point(getCenterX(), getCenterY());
+    }
+
+    double getCenterX() {
+        return sumX / members.size();
+    }
+
+    double getCenterY() {
+        return sumY / members.size();
+    }
+
+    /**
+     * @return the bounding box of the members
+     */
+    public Bounds getBounds() {
+        return new Bounds(new Point(minX, minY), new Point(maxX, maxY));
+    }
+}
@@ -0,0 +1,134 @@
+package org.vaadin.vol;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.vaadin.vol.client.SpatialIndex;
+
+/**
+ * Grid based clustering of points. The points are grouped into square cells
+ * whose size depends on the zoom level, cells are anchored to the origin of
+ * the projection so clusters don't change when the map is panned. Clusters are
+ * computed once per zoom level and kept up to date as points are added, moved
+ * and removed, only the cells a point leaves and enters are updated.
+ */
+@SuppressWarnings("serial")
+class ClusterIndex<T> implements Serializable {
+
+    private final LinkedHashMap<T, double[]> points = new LinkedHashMap<T, double[]>();
+    private final HashMap<Integer, Level<T>> levels = new HashMap<Integer, Level<T>>();
+
+    /**
+     * Adds or moves a point.
+     */
+    void put(T item, double x, double y) {
+        double[] old = points.get(item);
+        if (old != null && old[0] == x && old[1] == y) {
+            return;
+        }
+        double[] position = new double[] { x, y };
+        points.put(item, position);
+        for (Level<T> level : levels.values()) {
+            if (old != null) {
+                level.remove(item, old);
+            }
+            level.add(item, position);
+        }
+    }
+
+    void remove(T item) {
+        double[] old = points.remove(item);
+        if (old != null) {
+            for (Level<T> level : levels.values()) {
+                level.remove(item, old);
+            }
+        }
+    }
+
+    void clear() {
+        points.clear();
+        levels.clear();
+    }
+
+    /**
+     * @param zoom
+     *            the zoom level, clusters are cached per level
+     * @param cellSize
+     *            the size of the grid cells at the zoom level
+     * @param area
+     *            minX, minY, maxX, maxY
+     * @return the clusters whose center is within the area
+     */
+    List<Cluster<T>> getClusters(int zoom, double cellSize, double[] area) {
+        Level<T> level = levels.get(zoom);
+        if (level == null || level.cellSize != cellSize) {
+            level = new Level<T>(zoom, cellSize);
+            level.build(points);
+            levels.put(zoom, level);
+        }
+        return level.index.search(area[0], area[1], area[2], area[3]);
+    }
+
+    /**
+     * The clusters of one zoom level by their cell.
+     */
+    private static class Level<T> implements Serializable {
+        final int zoom;
+        final double cellSize;
+        final HashMap<String, Cluster<T>> cells = new HashMap<String, Cluster<T>>();
+        final SpatialIndex<Cluster<T>> index = new SpatialIndex<Cluster<T>>();
+
+        Level(int zoom, double cellSize) {
+            this.zoom = zoom;
+            this.cellSize = cellSize;
+        }
+
+        void build(Map<T, double[]> points) {
+            for (Map.Entry<T, double[]> entry : points.entrySet()) {
+                getCell(entry.getValue(), true).add(entry.getKey(), entry.getValue());
+            }
+            for (Cluster<T> cluster : cells.values()) {
+                index(cluster);
+            }
+        }
+
+        void add(T item, double[] position) {
+            Cluster<T> cluster = getCell(position, true);
+            cluster.add(item, position);
+            index(cluster);
+        }
+
+        void remove(T item, double[] position) {
+            Cluster<T> cluster = getCell(position, false);
+            if (cluster == null || !cluster.remove(item)) {
+                return;
+            }
+            if (cluster.getSize() == 0) {
+                cells.remove(cluster.getId());
+                index.remove(cluster);
+            } else {
+                index(cluster);
+            }
+        }
+
+        private Cluster<T> getCell(double[] position, boolean create) {
+            String key = zoom + ":" + (long) Math.floor(position[0] / cellSize) + ":"
+              + (long) Math.floor(position[1] / cellSize);
+            Cluster<T> cluster = cells.get(key);
+            if (cluster == null && create) {
+                cluster = new Cluster<T>(key);
+                cells.put(key, cluster);
+            }
+            return cluster;
+        }
+
+        private void index(Cluster<T> cluster) {
+            double x = cluster.getCenterX();
+            double y = cluster.getCenterY();
+            index.insert(cluster, x, y, x, y);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package org.vaadin.vol;
+
+/**
+ * A marker that represents a {@link Cluster} of markers in a
+ * {@link MarkerLayer} with clustering enabled. Cluster markers are created and
+ * removed by the layer.
+ *
+ * @see MarkerLayer#setClusterDistance(int)
+ */
+@SuppressWarnings("serial")
+public class ClusterMarker extends Marker {
+
+    private Cluster<Marker> cluster;
+
+    ClusterMarker(Cluster<Marker> cluster) {
+        super(cluster.getCenterX(), cluster.getCenterY());
+        this.cluster = cluster;
+    }
+
+    /**
+     * @return the cluster this marker currently represents
+     */
+    public Cluster<Marker> getCluster() {
+        return cluster;
+    }
+
+    void setCluster(Cluster<Marker> cluster) {
+        this.cluster = cluster;
+        setPosition(cluster.getCenterX(), cluster.getCenterY());
+    }
+}
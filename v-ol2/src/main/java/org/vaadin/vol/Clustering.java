@@ -0,0 +1,87 @@
+package org.vaadin.vol;
+
+import com.vaadin.ui.Component;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The clustering settings and cluster index of a layer, shared by
+ * {@link VectorLayer} and {@link MarkerLayer}.
+ */
+@SuppressWarnings("serial")
+class Clustering<T> implements Serializable {
+
+    private int distance;
+    // null while clustering is disabled
+    private ClusterIndex<T> index;
+    private boolean zoomToClusterOnClick = true;
+
+    /**
+     * Enables clustering with an empty index or disables it, the caller adds
+     * the points to the new index.
+     *
+     * @return true if the distance was changed
+     */
+    boolean setDistance(int pixels) {
+        if (pixels < 0) {
+            throw new IllegalArgumentException("Cluster distance must not be negative");
+        }
+        if (distance == pixels) {
+            return false;
+        }
+        distance = pixels;
+        index = pixels > 0 ? new ClusterIndex<T>() : null;
+        return true;
+    }
+
+    int getDistance() {
+        return distance;
+    }
+
+    /**
+     * @return the index of the clustered points, null if clustering is
+     *         disabled
+     */
+    ClusterIndex<T> getIndex() {
+        return index;
+    }
+
+    void setZoomToClusterOnClick(boolean zoomToClusterOnClick) {
+        this.zoomToClusterOnClick = zoomToClusterOnClick;
+    }
+
+    boolean isZoomToClusterOnClick() {
+        return zoomToClusterOnClick;
+    }
+
+    /**
+     * @param area
+     *            minX, minY, maxX, maxY or null if not known
+     * @return the clusters within the area at the current zoom level of the
+     *         map of the layer, none if clustering is disabled or the extent
+     *         of the map is not known
+     */
+    List<Cluster<T>> getClusters(Component layer, double[] area) {
+        if (index == null || area == null || !(layer.getParent() instanceof OpenLayersMap)) {
+            return Collections.emptyList();
+        }
+        OpenLayersMap map = (OpenLayersMap) layer.getParent();
+        double cellSize = distance * map.getResolution();
+        if (cellSize <= 0) {
+            return Collections.emptyList();
+        }
+        return index.getClusters(map.getZoom(), cellSize, area);
+    }
+
+    /**
+     * Zooms the map of the layer to the extent of the clicked cluster, unless
+     * disabled.
+     */
+    void clicked(Component layer, Cluster<T> cluster) {
+        if (zoomToClusterOnClick && layer.getParent() instanceof OpenLayersMap) {
+            ((OpenLayersMap) layer.getParent()).zoomToExtent(cluster.getBounds());
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package org.vaadin.vol;
+
+import java.io.Serializable;
+
+import org.vaadin.vol.client.GeometryCodec;
+import org.vaadin.vol.client.GeometryPatch;
+import org.vaadin.vol.client.Point;
+
+/**
+ * Packed coordinates of a vector, stored as a window of a larger array so that
+ * appending vertices and dropping them from the beginning takes time
+ * proportional to the number of affected vertices only.
+ */
+@SuppressWarnings("serial")
+class CoordinateBuffer implements Serializable {
+
+    private double[] data = Coordinates.EMPTY;
+    private int offset;
+    private int length;
+    // false while data is an array given by the user
+    private boolean owned;
+
+    /**
+     * Uses the given array as the contents of the buffer. The array is never
+     * modified.
+     */
+    void set(double[] coordinates) {
+        data = coordinates;
+        offset = 0;
+        length = coordinates.length;
+        owned = false;
+    }
+
+    boolean contentEquals(double[] coordinates) {
+        if (coordinates.length != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (Double.doubleToLongBits(data[offset + i]) != Double.doubleToLongBits(coordinates[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    int getPointCount() {
+        return length / 2;
+    }
+
+    /**
+     * @return the number of doubles in the buffer
+     */
+    int size() {
+        return length;
+    }
+
+    Point getPoint(int index) {
+        if (index < 0 || index >= getPointCount()) {
+            throw new IndexOutOfBoundsException("Vertex index " + index + ", vertex count " + getPointCount());
+        }
+        return new Point(data[offset + index * 2], data[offset + index * 2 + 1]);
+    }
+
+    Point[] toPoints() {
+        Point[] points = new Point[getPointCount()];
+        for (int i = 0; i < points.length; i++) {
+            points[i] = new Point(data[offset + i * 2], data[offset + i * 2 + 1]);
+        }
+        return points;
+    }
+
+    double[] toArray() {
+        double[] coordinates = new double[length];
+        System.arraycopy(data, offset, coordinates, 0, length);
+        return coordinates;
+    }
+
+    String encode(int precision) {
+        return GeometryCodec.encode(data, offset, length, precision);
+    }
+
+    /**
+     * Replaces removeCount vertices starting from index with the inserted
+     * ones. Appending, removing from the beginning and replacing vertices are
+     * done in place.
+     */
+    void splice(int index, int removeCount, double[] inserted) {
+        int count = getPointCount();
+        if (index < 0 || index > count) {
+            throw new IndexOutOfBoundsException("Vertex index " + index + " out of bounds, vertex count " + count);
+        }
+        removeCount = Math.max(0, Math.min(removeCount, count - index));
+        if (removeCount == 0 && index == count) {
+            append(inserted);
+        } else if (owned && removeCount * 2 == inserted.length) {
+            System.arraycopy(inserted, 0, data, offset + index * 2, inserted.length);
+        } else if (index == 0 && inserted.length == 0) {
+            offset += removeCount * 2;
+            length -= removeCount * 2;
+        } else {
+            set(GeometryPatch.splice(toArray(), index, removeCount, inserted));
+            owned = true;
+        }
+    }
+
+    private void append(double[] inserted) {
+        int required = length + inserted.length;
+        if (!owned || offset + required > data.length) {
+            // compact, grow if more than half of the array would be in use
+            double[] target = owned && required * 2 <= data.length ? data : new double[Math.max(required * 3 / 2, 16)];
+            System.arraycopy(data, offset, target, 0, length);
+            data = target;
+            offset = 0;
+            owned = true;
+        }
+        System.arraycopy(inserted, 0, data, offset + length, inserted.length);
+        length = required;
+    }
+}
@@ -0,0 +1,64 @@
+package org.vaadin.vol;
+
+import java.util.Arrays;
+
+import org.vaadin.vol.client.Point;
+
+/**
+ * Helpers for packed coordinate arrays, where longitudes and latitudes of
+ * vertices are stored interleaved in a single double array:
+ * {@code [lon0, lat0, lon1, lat1, ...]}.
+ */
+final class Coordinates {
+
+    static final double[] EMPTY = new double[0];
+
+    private Coordinates() {
+    }
+
+    static double[] pack(Point... points) {
+        if (points == null || points.length == 0) {
+            return EMPTY;
+        }
+        double[] coordinates = new double[points.length * 2];
+        for (int i = 0; i < points.length; i++) {
+            coordinates[i * 2] = points[i].getLon();
+            coordinates[i * 2 + 1] = points[i].getLat();
+        }
+        return coordinates;
+    }
+
+    static Point[] unpack(double[] coordinates) {
+        Point[] points = new Point[coordinates.length / 2];
+        for (int i = 0; i < points.length; i++) {
+            points[i] = new Point(coordinates[i * 2], coordinates[i * 2 + 1]);
+        }
+        return points;
+    }
+
+    static Point getPoint(double[] coordinates, int index) {
+        return new Point(coordinates[index * 2], coordinates[index * 2 + 1]);
+    }
+
+    /**
+     * @return the coordinates without the last vertex if it closes the ring,
+     *         the given array if it doesn't
+     */
+    static double[] openRing(double[] coordinates) {
+        int n = coordinates.length;
+        if (n >= 4 && coordinates[0] == coordinates[n - 2] && coordinates[1] == coordinates[n - 1]) {
+            return Arrays.copyOf(coordinates, n - 2);
+        }
+        return coordinates;
+    }
+
+    static double[] checkCoordinates(double[] coordinates) {
+        if (coordinates == null) {
+            return EMPTY;
+        }
+        if (coordinates.length % 2 != 0) {
+            throw new IllegalArgumentException("Coordinates must be given as lon/lat pairs");
+        }
+        return coordinates;
+    }
+}
@@ -0,0 +1,320 @@
+package org.vaadin.vol;
+
+import elemental.json.JsonObject;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.vaadin.vol.client.AttributeType;
+import org.vaadin.vol.client.Attributes;
+import org.vaadin.vol.client.FeatureData;
+import org.vaadin.vol.client.GeometryCodec;
+import org.vaadin.vol.client.GeometryType;
+import org.vaadin.vol.client.Point;
+import org.vaadin.vol.client.SpatialIndex;
+import org.vaadin.vol.client.Style;
+import org.vaadin.vol.client.StyleMap;
+
+/**
+ * A lightweight vector feature. Features are plain data records addressed by
+ * an id that is unique within their {@link VectorLayer}. Contrary to
+ * {@link Vector}s, features are not components: they don't have a connector
+ * of their own, but are synchronized to the client as a part of the layer.
+ * This makes them suitable for layers with tens of thousands of geometries.
+ * <p>
+ * Changes made to a feature after it has been added to a layer are sent to the
+ * client on the next response.
+ *
+ * @see VectorLayer#addFeature(Feature)
+ */
+@SuppressWarnings("serial")
+public class Feature implements Serializable {
+
+    private final String id;
+    private final GeometryType type;
+    private double[] coordinates;
+    private String renderIntent;
+    private Style customStyle;
+    private Attributes attributes;
+
+    private VectorLayer layer;
+    // id of the custom style in the style registry of the layer
+    private String styleId;
+    private boolean styleChanged;
+    // attributes converted to JSON, null until needed
+    private JsonObject attributesJson;
+    // row of the attribute values in the attribute table of the layer
+    private int row = -1;
+    // attribute values while not in a layer
+    private Map<String, Object> attributeValues;
+
+    /**
+     * @param id
+     *            the identifier of the feature, unique within its layer
+     * @param type
+     *            the type of the geometry
+     * @param points
+     *            the vertices of the geometry, for points only the first one
+     *            is used
+     */
+    public Feature(String id, GeometryType type, Point... points) {
+        if (id == null) {
+            throw new IllegalArgumentException("Feature id must not be null");
+        }
+        if (type == null) {
+            throw new IllegalArgumentException("Feature type must not be null");
+        }
+        this.id = id;
+        this.type = type;
+        this.coordinates = Coordinates.pack(points);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public GeometryType getType() {
+        return type;
+    }
+
+    /**
+     * @return the vertices of the feature, modifying the returned points does
+     *         not change the feature
+     */
+    public Point[] getPoints() {
+        return Coordinates.unpack(coordinates);
+    }
+
+    public void setPoints(Point... points) {
+        setCoordinates(Coordinates.pack(points));
+    }
+
+    /**
+     * @return a copy of the packed coordinates of the feature
+     * @see Vector#setCoordinates(double...)
+     */
+    public double[] getCoordinates() {
+        return coordinates.clone();
+    }
+
+    public void setCoordinates(double... coordinates) {
+        if (setCoordinatesWithoutRepaint(coordinates)) {
+            markAsDirty();
+        }
+    }
+
+    boolean setCoordinatesWithoutRepaint(double... coordinates) {
+        coordinates = Coordinates.checkCoordinates(coordinates);
+        if (Arrays.equals(coordinates, this.coordinates)) {
+            return false;
+        }
+        this.coordinates = coordinates;
+        return true;
+    }
+
+    public String getRenderIntent() {
+        return renderIntent;
+    }
+
+    /**
+     * Sets a custom renderer intent that OpenLayers should use to render the
+     * feature.
+     *
+     * @see StyleMap
+     */
+    public void setRenderIntent(String renderIntent) {
+        this.renderIntent = renderIntent;
+        markAsDirty();
+    }
+
+    /**
+     * @return the custom style declaration associated with this feature
+     */
+    public Style getCustomStyle() {
+        return customStyle;
+    }
+
+    /**
+     * Sets the custom style of the feature. The style is sent to the client
+     * when set, call this method again after modifying the style.
+     */
+    public void setCustomStyle(Style customStyle) {
+        this.customStyle = customStyle;
+        styleChanged = true;
+        markAsDirty();
+    }
+
+    public Attributes getAttributes() {
+        return attributes;
+    }
+
+    /**
+     * Sets the attributes of the feature. The attributes are sent to the
+     * client when set, call this method again after modifying them.
+     */
+    public void setAttributes(Attributes attributes) {
+        this.attributes = attributes;
+        attributesJson = null;
+        markAsDirty();
+    }
+
+    /**
+     * Sets the value of an attribute declared on the layer with
+     * {@link VectorLayer#addAttribute(String, AttributeType)}. The values are
+     * stored column-wise in the layer and passed to OpenLayers as feature
+     * attributes, so they can be used in style templates like
+     * <code>${name}</code> and unique value rules of a {@link StyleMap}.
+     * <p>
+     * Values can be set before the feature is added to a layer, they are
+     * validated when the feature is added.
+     *
+     * @param value
+     *            a Number, String or Boolean depending on the type of the
+     *            attribute, null removes the value
+     * @throws IllegalArgumentException
+     *             if the feature is in a layer that does not declare the
+     *             attribute or the value is of wrong type
+     */
+    public void setAttribute(String name, Object value) {
+        if (layer != null) {
+            layer.getAttributeTable().set(row, name, value);
+            markAsDirty();
+        } else if (value != null) {
+            if (attributeValues == null) {
+                attributeValues = new HashMap<String, Object>();
+            }
+            attributeValues.put(name, value);
+        } else if (attributeValues != null) {
+            attributeValues.remove(name);
+        }
+    }
+
+    /**
+     * @return the value of the attribute or null if not set, numbers are
+     *         returned as Doubles
+     * @see #setAttribute(String, Object)
+     */
+    public Object getAttribute(String name) {
+        if (layer != null) {
+            return layer.getAttributeTable().get(row, name);
+        }
+        return attributeValues != null ? attributeValues.get(name) : null;
+    }
+
+    /**
+     * @return the attribute values by name or null if there are none
+     */
+    Map<String, Object> getAttributeValues() {
+        if (layer != null) {
+            return layer.getAttributeTable().getValues(row);
+        }
+        return attributeValues;
+    }
+
+    /**
+     * @return the row of the attribute values in the layer, -1 if the feature
+     *         is not in a layer
+     */
+    int getRow() {
+        return row;
+    }
+
+    /**
+     * @return the layer this feature is attached to or null
+     */
+    public VectorLayer getLayer() {
+        return layer;
+    }
+
+    void setLayer(VectorLayer layer) {
+        if (this.layer != null && styleId != null) {
+            this.layer.releaseStyle(styleId);
+            styleId = null;
+        }
+        if (this.layer != null && row >= 0) {
+            attributeValues = this.layer.getAttributeTable().removeRow(row);
+            row = -1;
+        }
+        this.layer = layer;
+        if (layer != null) {
+            row = layer.getAttributeTable().addRow(attributeValues);
+            attributeValues = null;
+        }
+    }
+
+    /**
+     * Ensures the current values of the feature are sent to the client.
+     */
+    public void markAsDirty() {
+        if (layer != null) {
+            layer.featureChanged(this);
+        }
+    }
+
+    /**
+     * Adds the feature to the index with the bounding box of its vertices.
+     */
+    void index(SpatialIndex<Feature> index) {
+        double[] box = getBoundingBox();
+        if (box == null) {
+            index.remove(this);
+        } else {
+            index.insert(this, box[0], box[1], box[2], box[3]);
+        }
+    }
+
+    boolean intersects(double minX, double minY, double maxX, double maxY) {
+        double[] box = getBoundingBox();
+        return box != null && box[0] <= maxX && box[2] >= minX && box[1] <= maxY && box[3] >= minY;
+    }
+
+    /**
+     * @return minX, minY, maxX, maxY of the vertices or null if there are none
+     */
+    private double[] getBoundingBox() {
+        if (coordinates.length == 0) {
+            return null;
+        }
+        double[] box = { coordinates[0], coordinates[1], coordinates[0], coordinates[1] };
+        for (int i = 2; i + 1 < coordinates.length; i += 2) {
+            box[0] = Math.min(box[0], coordinates[i]);
+            box[1] = Math.min(box[1], coordinates[i + 1]);
+            box[2] = Math.max(box[2], coordinates[i]);
+            box[3] = Math.max(box[3], coordinates[i + 1]);
+        }
+        return box;
+    }
+
+    /**
+     * Uses a style acquired by the layer on behalf of the feature, for
+     * features that are not in a layer like cluster representatives. The
+     * layer owns the reference to the style.
+     */
+    void setStyleId(String styleId) {
+        this.styleId = styleId;
+    }
+
+    FeatureData toData(int precision) {
+        if (styleChanged || customStyle != null && styleId == null) {
+            String oldStyleId = styleId;
+            styleId = customStyle != null ? layer.acquireStyle(customStyle) : null;
+            if (oldStyleId != null) {
+                layer.releaseStyle(oldStyleId);
+            }
+            styleChanged = false;
+        }
+        FeatureData data = new FeatureData();
+        data.id = id;
+        data.type = type;
+        data.geometry = GeometryCodec.encode(coordinates, precision);
+        data.intent = renderIntent;
+        data.styleId = styleId;
+        if (attributes != null && attributesJson == null) {
+            attributesJson = JsonValues.toJsonObject(JsonValues.GSON, attributes);
+        }
+        data.attributes = attributesJson;
+        return data;
+    }
+}
@@ -0,0 +1,30 @@
+package org.vaadin.vol;
+
+import com.vaadin.ui.Component;
+
+/**
+ * Notified when a layer loading its features incrementally has added all of
+ * them to the map on the client side.
+ */
+public interface FeaturesLoadedListener {
+
+    void featuresLoaded(FeaturesLoadedEvent event);
+
+    @SuppressWarnings("serial")
+    class FeaturesLoadedEvent extends Component.Event {
+
+        private final int featureCount;
+
+        public FeaturesLoadedEvent(Component source, int featureCount) {
+            super(source);
+            this.featureCount = featureCount;
+        }
+
+        /**
+         * @return the number of features in the layer on the client side
+         */
+        public int getFeatureCount() {
+            return featureCount;
+        }
+    }
+}
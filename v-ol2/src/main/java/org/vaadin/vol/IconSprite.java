@@ -0,0 +1,155 @@
+package org.vaadin.vol;
+
+import com.vaadin.server.ConnectorResource;
+import com.vaadin.server.DownloadStream;
+import com.vaadin.server.Resource;
+import com.vaadin.server.StreamResource;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import javax.imageio.ImageIO;
+
+import org.vaadin.vol.client.MarkerIcon;
+
+/**
+ * Packs icon images into a single PNG sprite sheet. Icons whose image cannot
+ * be read on the server, e.g. external and theme resources, are left out.
+ */
+class IconSprite {
+
+    // gap between the icons in the sheet
+    private static final int PADDING = 1;
+    private static final int MIN_SHEET_WIDTH = 256;
+    // the name of the sheet changes with its content, so it can be cached
+    private static final long CACHE_TIME = 365L * 24 * 60 * 60 * 1000;
+
+    private IconSprite() {
+    }
+
+    /**
+     * Packs the images of the given icons and marks the packed icons with
+     * their location in the sheet.
+     *
+     * @return the sprite sheet, null if none of the images could be read
+     */
+    static StreamResource pack(Map<String, Resource> resources, Map<String, MarkerIcon> icons) {
+        final List<String> names = new ArrayList<String>();
+        final List<BufferedImage> images = new ArrayList<BufferedImage>();
+        for (Map.Entry<String, Resource> entry : resources.entrySet()) {
+            icons.get(entry.getKey()).packed = false;
+            BufferedImage image = read(entry.getValue());
+            if (image != null) {
+                names.add(entry.getKey());
+                images.add(image);
+            }
+        }
+        if (images.isEmpty()) {
+            return null;
+        }
+
+        // shelves of icons, the tallest first
+        List<Integer> order = new ArrayList<Integer>();
+        int area = 0;
+        int widest = 0;
+        for (int i = 0; i < images.size(); i++) {
+            order.add(i);
+            area += (images.get(i).getWidth() + PADDING) * (images.get(i).getHeight() + PADDING);
+            widest = Math.max(widest, images.get(i).getWidth());
+        }
+        Collections.sort(order, new Comparator<Integer>() {
+            public int compare(Integer a, Integer b) {
+                return images.get(b).getHeight() - images.get(a).getHeight();
+            }
+        });
+        int sheetWidth = Math.max(widest, Math.max(MIN_SHEET_WIDTH, (int) Math.ceil(Math.sqrt(area))));
+        int[] xs = new int[images.size()];
+        int[] ys = new int[images.size()];
+        int x = 0;
+        int y = 0;
+        int shelfHeight = 0;
+        int usedWidth = 0;
+        for (int i : order) {
+            BufferedImage image = images.get(i);
+            if (x > 0 && x + image.getWidth() > sheetWidth) {
+                x = 0;
+                y += shelfHeight + PADDING;
+                shelfHeight = 0;
+            }
+            xs[i] = x;
+            ys[i] = y;
+            x += image.getWidth() + PADDING;
+            usedWidth = Math.max(usedWidth, x - PADDING);
+            shelfHeight = Math.max(shelfHeight, image.getHeight());
+        }
+
+        BufferedImage sheet = new BufferedImage(usedWidth, y + shelfHeight, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = sheet.createGraphics();
+        try {
+            for (int i = 0; i < images.size(); i++) {
+                graphics.drawImage(images.get(i), xs[i], ys[i], null);
+            }
+        } finally {
+            graphics.dispose();
+        }
+        final byte[] png;
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            ImageIO.write(sheet, "png", out);
+            png = out.toByteArray();
+        } catch (IOException e) {
+            return null;
+        }
+
+        for (int i = 0; i < images.size(); i++) {
+            MarkerIcon icon = icons.get(names.get(i));
+            icon.packed = true;
+            icon.spriteX = xs[i];
+            icon.spriteY = ys[i];
+            icon.spriteWidth = images.get(i).getWidth();
+            icon.spriteHeight = images.get(i).getHeight();
+        }
+        StreamResource resource = new StreamResource(new StreamResource.StreamSource() {
+            public InputStream getStream() {
+                return new ByteArrayInputStream(png);
+            }
+        }, "markericons-" + Integer.toHexString(Arrays.hashCode(png)) + ".png");
+        resource.setMIMEType("image/png");
+        resource.setCacheTime(CACHE_TIME);
+        return resource;
+    }
+
+    private static BufferedImage read(Resource resource) {
+        if (!(resource instanceof ConnectorResource)) {
+            return null;
+        }
+        InputStream in = null;
+        try {
+            DownloadStream stream = ((ConnectorResource) resource).getStream();
+            in = stream != null ? stream.getStream() : null;
+            return in != null ? ImageIO.read(in) : null;
+        } catch (IOException e) {
+            return null;
+        } catch (RuntimeException e) {
+            return null;
+        } finally {
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException e) {
+                    // ignore
+                }
+            }
+        }
+    }
+}
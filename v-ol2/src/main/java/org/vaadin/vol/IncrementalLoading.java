@@ -0,0 +1,80 @@
+package org.vaadin.vol;
+
+import com.vaadin.ui.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.vaadin.vol.client.IncrementalLoadingServerRpc;
+import org.vaadin.vol.client.IncrementalLoadingState;
+
+/**
+ * The incremental loading settings and {@link FeaturesLoadedListener}s of a
+ * layer, shared by {@link VectorLayer} and {@link WellKnownTextLayer}. The
+ * layer registers this as its {@link IncrementalLoadingServerRpc}.
+ */
+@SuppressWarnings("serial")
+class IncrementalLoading implements IncrementalLoadingServerRpc {
+
+    private final Component layer;
+    private final IncrementalLoadingState state;
+    private final List<FeaturesLoadedListener> listeners = new ArrayList<FeaturesLoadedListener>();
+
+    IncrementalLoading(Component layer, IncrementalLoadingState state) {
+        this.layer = layer;
+        this.state = state;
+    }
+
+    void setEnabled(boolean enabled) {
+        if (state.enabled != enabled) {
+            state.enabled = enabled;
+            layer.markAsDirty();
+        }
+    }
+
+    boolean isEnabled() {
+        return state.enabled;
+    }
+
+    void setTimeBudget(int millis) {
+        if (millis <= 0) {
+            throw new IllegalArgumentException("Time budget must be positive");
+        }
+        if (state.timeBudget != millis) {
+            state.timeBudget = millis;
+            layer.markAsDirty();
+        }
+    }
+
+    int getTimeBudget() {
+        return state.timeBudget;
+    }
+
+    void addListener(FeaturesLoadedListener listener) {
+        listeners.add(listener);
+        updateReportLoaded();
+    }
+
+    void removeListener(FeaturesLoadedListener listener) {
+        listeners.remove(listener);
+        updateReportLoaded();
+    }
+
+    /**
+     * The client reports loaded features only while there are listeners.
+     */
+    private void updateReportLoaded() {
+        if (state.reportLoaded != !listeners.isEmpty()) {
+            state.reportLoaded = !listeners.isEmpty();
+            layer.markAsDirty();
+        }
+    }
+
+    public void loaded(int featureCount) {
+        FeaturesLoadedListener.FeaturesLoadedEvent event = new FeaturesLoadedListener.FeaturesLoadedEvent(layer,
+          featureCount);
+        for (FeaturesLoadedListener listener : new ArrayList<FeaturesLoadedListener>(listeners)) {
+            listener.featuresLoaded(event);
+        }
+    }
+}
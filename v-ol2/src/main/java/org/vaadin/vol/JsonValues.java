@@ -0,0 +1,80 @@
+package org.vaadin.vol;
+
+import com.google.gson.ExclusionStrategy;
+import com.google.gson.FieldAttributes;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonPrimitive;
+
+import elemental.json.Json;
+import elemental.json.JsonObject;
+import elemental.json.JsonValue;
+
+import java.util.Map;
+
+import org.vaadin.vol.client.Style;
+
+/**
+ * Converts objects serialized with Gson to elemental JSON values, which
+ * Vaadin transfers in shared state and RPC as such, without encoding them to
+ * strings.
+ */
+final class JsonValues {
+
+    static final Gson GSON = new Gson();
+
+    // for styles, the generated style name would make equal styles differ
+    static final Gson STYLE_GSON = new GsonBuilder().setExclusionStrategies(new ExclusionStrategy() {
+        public boolean shouldSkipField(FieldAttributes f) {
+            return f.getDeclaringClass() == Style.class && f.getName().equals("name");
+        }
+
+        public boolean shouldSkipClass(Class<?> clazz) {
+            return false;
+        }
+    }).create();
+
+    private JsonValues() {
+    }
+
+    /**
+     * @return the object serialized to a JSON object or null if the object is
+     *         null
+     */
+    static JsonObject toJsonObject(Gson gson, Object object) {
+        if (object == null) {
+            return null;
+        }
+        return (JsonObject) toJsonValue(gson.toJsonTree(object));
+    }
+
+    static JsonValue toJsonValue(JsonElement element) {
+        if (element == null || element.isJsonNull()) {
+            return Json.createNull();
+        }
+        if (element.isJsonPrimitive()) {
+            JsonPrimitive primitive = element.getAsJsonPrimitive();
+            if (primitive.isBoolean()) {
+                return Json.create(primitive.getAsBoolean());
+            } else if (primitive.isNumber()) {
+                return Json.create(primitive.getAsDouble());
+            }
+            return Json.create(primitive.getAsString());
+        }
+        if (element.isJsonArray()) {
+            JsonArray array = element.getAsJsonArray();
+            elemental.json.JsonArray result = Json.createArray();
+            for (int i = 0; i < array.size(); i++) {
+                result.set(i, toJsonValue(array.get(i)));
+            }
+            return result;
+        }
+        JsonObject result = Json.createObject();
+        for (Map.Entry<String, JsonElement> entry : element.getAsJsonObject().entrySet()) {
+            result.put(entry.getKey(), toJsonValue(entry.getValue()));
+        }
+        return result;
+    }
+}
@@ -12,21 +12,26 @@ public class LabelVector extends PointVector {
         setTextToSymbolizerOrAsLabelAttribute(caption);
    }
 
+    /*
+     * The text is always passed as an attribute. Without a style name the
+     * custom style refers to the attribute, so labels with different texts
+     * share the same style on the client.
+     */
     private void setTextToSymbolizerOrAsLabelAttribute(String caption) {
+        Attributes attributes = getAttributes();
+        if(attributes == null) {
+            attributes = new Attributes();
+        }
+        attributes.setLabel(caption);
+        setAttributes(attributes);
         if(getStyleName().isEmpty()) {
             Style customStyle = getCustomStyle();
             if(customStyle == null) {
                 customStyle = new Style();
             }
+            customStyle.setLabelByAttribute("label");
             setCustomStyle(customStyle);
-            customStyle.setLabel(caption);
         } else {
-            Attributes attributes = getAttributes();
-            if(attributes == null) {
-                attributes = new Attributes();
-                setAttributes(attributes);
-            }
-            attributes.setLabel(caption);
             setCustomStyle(null);
         }
     }
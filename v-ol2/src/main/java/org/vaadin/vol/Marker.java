@@ -19,16 +19,24 @@ import org.vaadin.vol.client.Point;
 @SuppressWarnings("serial")
 public class Marker extends AbstractComponent {
 
+    // the layer the marker has been added to, set also while the marker is
+    // not attached because of clustering
+    private MarkerLayer layer;
+
     public Marker(double lon, double lat) {
         this.registerRpc(new MarkerServerRpc() {
             public void markerClicked() {
-                fireEvent(new ClickEvent(Marker.this, null));
+                if (!isEventsDelegated()) {
+                    clicked(null);
+                }
             }
         });
         registerRpc(new ContextClickRpc() {
             @Override
             public void contextClick(MouseEventDetails details, Point point) {
-                fireEvent(new MarkerContextClickEvent(Marker.this, details, point));
+                if (!isEventsDelegated()) {
+                    contextClicked(details, point);
+                }
             }
         });
         this.getState().lon = lon;
@@ -40,22 +48,62 @@ public class Marker extends AbstractComponent {
         return (MarkerState)super.getState();
     }
 
+    @Override
+    protected MarkerState getState(boolean markAsDirty) {
+        return (MarkerState)super.getState(markAsDirty);
+    }
+
     public double getLon() {
-        return getState().lon;
+        return getState(false).lon;
     }
 
     public double getLat() {
-        return getState().lat;
+        return getState(false).lat;
     }
 
     public void setLon(double lon) {
-        this.getState().lon = lon;
-        markAsDirty();
+        setPosition(lon, getLat());
     }
 
     public void setLat(double lat) {
-        this.getState().lat = lat;
-        markAsDirty();
+        setPosition(getLon(), lat);
+    }
+
+    /**
+     * Moves the marker. The marker is moved in place on the client side, so
+     * markers can be moved frequently, for example to track vehicles.
+     */
+    public void setPosition(double lon, double lat) {
+        if (lon == getLon() && lat == getLat()) {
+            return;
+        }
+        getState().lon = lon;
+        getState().lat = lat;
+        if (layer != null) {
+            layer.markerMoved(this);
+        }
+    }
+
+    // handlers registered before the layer started to delegate events may
+    // still be in place on the client
+    private boolean isEventsDelegated() {
+        return getParent() instanceof MarkerLayer && ((MarkerLayer) getParent()).isHandlingMarkerEvents();
+    }
+
+    void clicked(MouseEventDetails details) {
+        fireEvent(new ClickEvent(this, details));
+    }
+
+    void contextClicked(MouseEventDetails details, Point point) {
+        fireEvent(new MarkerContextClickEvent(this, details, point));
+    }
+
+    MarkerLayer getLayer() {
+        return layer;
+    }
+
+    void setLayer(MarkerLayer layer) {
+        this.layer = layer;
     }
 
     public void setIcon(String url, int width, int height) {
@@ -78,6 +126,23 @@ public class Marker extends AbstractComponent {
         setIcon(icon); // also calls markAsDirty()
     }
 
+    /**
+     * Shows the marker with an icon registered to its layer with
+     * {@link MarkerLayer#registerIcon(String, Resource, int, int, int, int)},
+     * instead of the icon set with {@link #setIcon(Resource, int, int)}.
+     * Markers sharing an icon this way load its image only once.
+     *
+     * @param iconName
+     *            the name of the icon, null to use the icon of the marker
+     */
+    public void setIconName(String iconName) {
+        getState().iconName = iconName;
+    }
+
+    public String getIconName() {
+        return getState(false).iconName;
+    }
+
     public void addClickListener(ClickListener listener) {
         addListener("click", ClickEvent.class, listener, ClickListener.clickMethod);
         markAsDirty();
@@ -3,25 +3,186 @@
  */
 package org.vaadin.vol;
 
+import com.vaadin.event.MouseEvents.ClickEvent;
+import com.vaadin.event.MouseEvents.ClickListener;
+import com.vaadin.server.ClientConnector;
+import com.vaadin.server.Resource;
 import com.vaadin.ui.AbstractComponentContainer;
+import com.vaadin.shared.MouseEventDetails;
 import com.vaadin.ui.Component;
+import com.vaadin.util.ReflectTools;
 
+import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 
+import org.vaadin.vol.client.Constants;
+import org.vaadin.vol.client.MarkerIcon;
+import org.vaadin.vol.client.MarkerLayerServerRpc;
 import org.vaadin.vol.client.MarkerLayerState;
+import org.vaadin.vol.client.Point;
 
 public class MarkerLayer extends AbstractComponentContainer implements Layer {
 
-    private List<Marker> markers = new LinkedList<Marker>();
+    // margin around the map extent where clusters are sent
+    private static final double CLUSTER_MARGIN = 0.5;
+
+    private final LinkedHashSet<Marker> markers = new LinkedHashSet<Marker>();
+    // markers attached as components, all markers unless clustering
+    private final LinkedHashSet<Marker> children = new LinkedHashSet<Marker>();
+
+    private final Clustering<Marker> clustering = new Clustering<Marker>();
+    private HashMap<String, ClusterMarker> clusterMarkers = new HashMap<String, ClusterMarker>();
+    private boolean clustersChanged;
+    private Resource clusterIcon;
+    private int clusterIconWidth;
+    private int clusterIconHeight;
+    private OpenLayersMap.ExtentChangeListener extentChangeListener;
+
+    private final LinkedHashMap<String, Resource> icons = new LinkedHashMap<String, Resource>();
+    private boolean iconSprite;
+    private boolean iconsChanged;
+
+    private final ClickListener clusterMarkerClickListener = new ClickListener() {
+        public void click(ClickEvent event) {
+            clusterClicked(((ClusterMarker) event.getComponent()).getCluster());
+        }
+    };
+
+    public MarkerLayer() {
+        registerRpc(new MarkerLayerServerRpc() {
+            public void markerClicked(String markerId, MouseEventDetails details) {
+                Marker marker = getChildMarker(markerId);
+                if (marker != null) {
+                    marker.clicked(details);
+                }
+            }
+
+            public void markerContextClicked(String markerId, MouseEventDetails details, Point point) {
+                Marker marker = getChildMarker(markerId);
+                if (marker != null) {
+                    marker.contextClicked(details, point);
+                }
+            }
+        });
+    }
+
+    private Marker getChildMarker(String connectorId) {
+        if (!isHandlingMarkerEvents()) {
+            return null;
+        }
+        ClientConnector connector = getUI() != null ? getUI().getConnectorTracker().getConnector(connectorId) : null;
+        if (connector instanceof Marker && connector.getParent() == this) {
+            return (Marker) connector;
+        }
+        return null;
+    }
 
     @Override
     public MarkerLayerState getState() {
         return (MarkerLayerState)super.getState();
     }
 
+    @Override
+    protected MarkerLayerState getState(boolean markAsDirty) {
+        return (MarkerLayerState)super.getState(markAsDirty);
+    }
+
+    @Override
+    public void beforeClientResponse(boolean initial) {
+        super.beforeClientResponse(initial);
+        if (clustersChanged) {
+            updateClusters();
+        }
+        if (iconsChanged) {
+            iconsChanged = false;
+            if (iconSprite) {
+                setResource(Constants.MARKER_ICON_SPRITE_RESOURCE_KEY, IconSprite.pack(icons, getState().icons));
+            } else {
+                setResource(Constants.MARKER_ICON_SPRITE_RESOURCE_KEY, null);
+                for (MarkerIcon icon : getState().icons.values()) {
+                    icon.packed = false;
+                }
+            }
+        }
+    }
+
+    /**
+     * Registers an icon markers of this layer can use with
+     * {@link Marker#setIconName(String)}. The image is sent to the client
+     * once for the layer, instead of once per marker.
+     *
+     * @param width
+     *            the width the icon is shown with
+     * @param height
+     *            the height the icon is shown with
+     */
+    public void registerIcon(String name, Resource icon, int width, int height) {
+        registerIcon(name, icon, width, height, Integer.MIN_VALUE, Integer.MIN_VALUE);
+    }
+
+    /**
+     * Registers an icon markers of this layer can use with
+     * {@link Marker#setIconName(String)}. The image is sent to the client
+     * once for the layer, instead of once per marker.
+     *
+     * @param xOffset
+     *            the horizontal offset of the icon from the location of the
+     *            marker in pixels, the icon is centered by default
+     * @param yOffset
+     *            the vertical offset of the icon from the location of the
+     *            marker in pixels
+     */
+    public void registerIcon(String name, Resource icon, int width, int height, int xOffset, int yOffset) {
+        icons.put(name, icon);
+        getState().icons.put(name, new MarkerIcon(width, height, xOffset, yOffset));
+        setResource(Constants.MARKER_ICON_RESOURCE_KEY + name, icon);
+        iconsChanged = true;
+    }
+
+    public void unregisterIcon(String name) {
+        if (icons.remove(name) != null) {
+            getState().icons.remove(name);
+            setResource(Constants.MARKER_ICON_RESOURCE_KEY + name, null);
+            iconsChanged = true;
+        }
+    }
+
+    /**
+     * @return the names of the registered icons
+     */
+    public Collection<String> getIconNames() {
+        return Collections.unmodifiableCollection(icons.keySet());
+    }
+
+    /**
+     * Sets whether the registered icons are packed into a single image, a
+     * sprite sheet, so that the browser loads all of them with one request.
+     * The sheet is generated on the server and can be cached by the browser.
+     * Only icons with a resource the server can read, like
+     * {@link com.vaadin.server.ClassResource},
+     * {@link com.vaadin.server.FileResource} and
+     * {@link com.vaadin.server.StreamResource}, are packed, the rest are
+     * loaded on their own.
+     */
+    public void setIconSprite(boolean iconSprite) {
+        if (this.iconSprite != iconSprite) {
+            this.iconSprite = iconSprite;
+            iconsChanged = true;
+            markAsDirty();
+        }
+    }
+
+    public boolean isIconSprite() {
+        return iconSprite;
+    }
+
     public void addMarker(Marker m) {
         addComponent(m);
     }
@@ -33,20 +194,44 @@ public class MarkerLayer extends AbstractComponentContainer implements Layer {
 
     @Override
     public int getComponentCount() {
-        return this.markers.size();
+        return this.children.size();
     }
 
+    /**
+     * Iterates the markers attached to the client side. With clustering these
+     * are the visible single markers and the {@link ClusterMarker}s, see
+     * {@link #getMarkers()} for all markers.
+     */
     public Iterator<Component> iterator() {
-        List<Component> list = new ArrayList<Component>(markers);
-        return list.iterator();
+        return new ArrayList<Component>(children).iterator();
+    }
+
+    /**
+     * @return an unmodifiable view to all markers added to this layer
+     */
+    public Collection<Marker> getMarkers() {
+        return Collections.unmodifiableCollection(markers);
     }
 
     @Override
     public void addComponent(Component c) {
-        if (c instanceof Marker) {
-            markers.add((Marker) c);
-            super.addComponent(c);
-            markAsDirty();
+        if (c instanceof Marker && !(c instanceof ClusterMarker)) {
+            Marker marker = (Marker) c;
+            if (marker.getLayer() != null && marker.getLayer() != this) {
+                marker.getLayer().removeComponent(marker);
+            }
+            if (clustering.getIndex() != null) {
+                if (markers.add(marker)) {
+                    marker.setLayer(this);
+                    clustering.getIndex().put(marker, marker.getLon(), marker.getLat());
+                    clustersChanged();
+                }
+            } else {
+                super.addComponent(c);
+                markers.add(marker);
+                children.add(marker);
+                marker.setLayer(this);
+            }
         } else {
             throw new IllegalArgumentException(
               "MarkerLayer supports only markers");
@@ -56,15 +241,300 @@ public class MarkerLayer extends AbstractComponentContainer implements Layer {
     @Override
     public void removeComponent(Component c) {
         if (c instanceof Marker) {
-            super.removeComponent(c);
-            markers.remove(c);
-            markAsDirty();
+            if (markers.remove(c)) {
+                Marker marker = (Marker) c;
+                marker.setLayer(null);
+                if (clustering.getIndex() != null) {
+                    clustering.getIndex().remove(marker);
+                    clustersChanged();
+                }
+                if (children.remove(c)) {
+                    super.removeComponent(c);
+                }
+            }
         } else {
             throw new IllegalArgumentException(
               "MarkerLayer supports only markers");
         }
     }
 
+    /**
+     * Adds the given markers to this layer. The client side receives all of
+     * them in a single hierarchy change.
+     */
+    public void addMarkers(final Collection<? extends Marker> markers) {
+        batch(new Runnable() {
+            public void run() {
+                for (Marker marker : markers) {
+                    addComponent(marker);
+                }
+            }
+        });
+    }
+
+    /**
+     * Removes the given markers from this layer. The client side removes all
+     * of them from the OpenLayers layer at once.
+     */
+    public void removeMarkers(final Collection<? extends Marker> markers) {
+        batch(new Runnable() {
+            public void run() {
+                for (Marker marker : markers) {
+                    removeComponent(marker);
+                }
+            }
+        });
+    }
+
+    public void removeAllMarkers() {
+        removeMarkers(new ArrayList<Marker>(markers));
+    }
+
+    /**
+     * Removes all markers, including the ones in clusters, and the
+     * {@link ClusterMarker}s. The iterator covers only the markers attached
+     * to the client side, so the default implementation would miss them.
+     */
+    @Override
+    public void removeAllComponents() {
+        removeAllMarkers();
+        for (Marker child : new ArrayList<Marker>(children)) {
+            children.remove(child);
+            super.removeComponent(child);
+        }
+        clusterMarkers.clear();
+    }
+
+    /**
+     * Runs the given changes to the markers of this layer as one update, see
+     * {@link VectorLayer#batch(Runnable)}.
+     */
+    public void batch(Runnable changes) {
+        Batch.run(this, changes);
+    }
+
+    /**
+     * Enables or disables clustering of markers. When enabled, markers closer
+     * than the given distance to each other at the current zoom level are
+     * grouped and shown as a single {@link ClusterMarker}. The clusters are
+     * computed on the server once per zoom level and only the markers and
+     * clusters near the current extent of the map are attached to the client
+     * side, so the number of markers on the client stays small regardless of
+     * the size of the layer. Zooming in splits clusters into smaller ones.
+     * <p>
+     * Clicking a cluster fires a {@link ClusterClickEvent} with its members
+     * and, by default, zooms the map to the cluster.
+     * <p>
+     * While clustering, markers are attached to the layer as components only
+     * when they are shown on their own. Clustering uses the coordinates of the
+     * markers as such, so the api projection of the map should be the same as
+     * the projection of the markers, EPSG:4326.
+     *
+     * @param pixels
+     *            the size of the clustering grid cells in screen pixels, 0 (the
+     *            default) disables clustering
+     */
+    public void setClusterDistance(int pixels) {
+        if (!clustering.setDistance(pixels)) {
+            return;
+        }
+        if (clustering.getIndex() != null) {
+            for (Marker marker : markers) {
+                clustering.getIndex().put(marker, marker.getLon(), marker.getLat());
+            }
+        }
+        updateExtentChangeListener();
+        clustersChanged();
+    }
+
+    public int getClusterDistance() {
+        return clustering.getDistance();
+    }
+
+    /**
+     * Sets the icon used for {@link ClusterMarker}s.
+     */
+    public void setClusterIcon(Resource icon, int width, int height) {
+        clusterIcon = icon;
+        clusterIconWidth = width;
+        clusterIconHeight = height;
+        for (ClusterMarker clusterMarker : clusterMarkers.values()) {
+            clusterMarker.setIcon(icon, width, height);
+        }
+    }
+
+    /**
+     * @see VectorLayer#setZoomToClusterOnClick(boolean)
+     */
+    public void setZoomToClusterOnClick(boolean zoomToClusterOnClick) {
+        clustering.setZoomToClusterOnClick(zoomToClusterOnClick);
+    }
+
+    public boolean isZoomToClusterOnClick() {
+        return clustering.isZoomToClusterOnClick();
+    }
+
+    void markerMoved(Marker marker) {
+        if (clustering.getIndex() != null && markers.contains(marker)) {
+            clustering.getIndex().put(marker, marker.getLon(), marker.getLat());
+            clustersChanged();
+        }
+    }
+
+    private void clustersChanged() {
+        clustersChanged = true;
+        markAsDirty();
+    }
+
+    /**
+     * Attaches the markers and cluster markers that should currently be shown
+     * and detaches the rest.
+     */
+    private void updateClusters() {
+        clustersChanged = false;
+        LinkedHashSet<Marker> shown;
+        HashMap<String, ClusterMarker> shownClusterMarkers = new HashMap<String, ClusterMarker>();
+        if (clustering.getIndex() == null) {
+            shown = markers;
+        } else {
+            shown = new LinkedHashSet<Marker>();
+            double[] area = getParent() instanceof OpenLayersMap
+              ? ((OpenLayersMap) getParent()).getExtentWithMargin(CLUSTER_MARGIN) : null;
+            for (Cluster<Marker> cluster : clustering.getClusters(this, area)) {
+                if (cluster.getSize() == 1) {
+                    shown.add(cluster.getMembers().get(0));
+                } else {
+                    ClusterMarker clusterMarker = clusterMarkers.get(cluster.getId());
+                    if (clusterMarker == null) {
+                        clusterMarker = createClusterMarker(cluster);
+                    } else {
+                        clusterMarker.setCluster(cluster);
+                    }
+                    shownClusterMarkers.put(cluster.getId(), clusterMarker);
+                    shown.add(clusterMarker);
+                }
+            }
+        }
+        for (Marker child : new ArrayList<Marker>(children)) {
+            if (!shown.contains(child)) {
+                children.remove(child);
+                super.removeComponent(child);
+            }
+        }
+        for (Marker marker : shown) {
+            if (children.add(marker)) {
+                super.addComponent(marker);
+            }
+        }
+        clusterMarkers = shownClusterMarkers;
+    }
+
+    private ClusterMarker createClusterMarker(Cluster<Marker> cluster) {
+        ClusterMarker clusterMarker = new ClusterMarker(cluster);
+        if (clusterIcon != null) {
+            clusterMarker.setIcon(clusterIcon, clusterIconWidth, clusterIconHeight);
+        }
+        clusterMarker.addClickListener(clusterMarkerClickListener);
+        return clusterMarker;
+    }
+
+    private void clusterClicked(Cluster<Marker> cluster) {
+        fireEvent(new ClusterClickEvent(this, cluster));
+        clustering.clicked(this, cluster);
+    }
+
+    @Override
+    public void attach() {
+        super.attach();
+        updateExtentChangeListener();
+    }
+
+    @Override
+    public void detach() {
+        unregisterExtentChangeListener();
+        super.detach();
+    }
+
+    private void updateExtentChangeListener() {
+        if (clustering.getDistance() > 0 && isAttached() && getParent() instanceof OpenLayersMap) {
+            if (extentChangeListener == null) {
+                extentChangeListener = new OpenLayersMap.ExtentChangeListener() {
+                    public void extentChanged(OpenLayersMap.ExtentChangeEvent event) {
+                        clustersChanged();
+                    }
+                };
+                ((OpenLayersMap) getParent()).addExtentChangeListener(extentChangeListener);
+            }
+        } else {
+            unregisterExtentChangeListener();
+        }
+    }
+
+    private void unregisterExtentChangeListener() {
+        if (extentChangeListener != null) {
+            if (getParent() instanceof OpenLayersMap) {
+                ((OpenLayersMap) getParent()).removeExtentChangeListener(extentChangeListener);
+            }
+            extentChangeListener = null;
+        }
+    }
+
+    /**
+     * Sets whether the layer handles the clicks and context clicks of all of
+     * its markers. The client side then registers one handler on the layer
+     * instead of one per marker and reports the events with a single layer
+     * RPC, which is much lighter for layers with lots of markers. The click
+     * and context click listeners of the markers are notified as before.
+     * <p>
+     * Must be set before the layer is attached.
+     *
+     * @throws IllegalStateException
+     *             if the layer is attached
+     */
+    public void setDelegatedEvents(boolean delegatedEvents) {
+        if (isDelegatedEvents() != delegatedEvents) {
+            if (isAttached()) {
+                throw new IllegalStateException("Delegated events must be set before the layer is attached");
+            }
+            getState().delegatedEvents = delegatedEvents;
+        }
+    }
+
+    public boolean isDelegatedEvents() {
+        return getState(false).delegatedEvents;
+    }
+
+    /**
+     * Sets whether the markers are drawn as point features, with their icon
+     * as external graphic, on a vector layer rendered with Canvas where
+     * supported. Markers are then not elements of their own, so panning and
+     * zooming a map with thousands of markers does not reposition thousands
+     * of elements. The icons, sizes and offsets of the markers as well as
+     * their click and context click listeners work as before, the events are
+     * handled by the layer as with {@link #setDelegatedEvents(boolean)}.
+     * <p>
+     * Must be set before the layer is attached.
+     *
+     * @throws IllegalStateException
+     *             if the layer is attached
+     */
+    public void setCanvasRendering(boolean canvasRendering) {
+        if (isCanvasRendering() != canvasRendering) {
+            if (isAttached()) {
+                throw new IllegalStateException("Canvas rendering must be set before the layer is attached");
+            }
+            getState().canvasRendering = canvasRendering;
+        }
+    }
+
+    public boolean isCanvasRendering() {
+        return getState(false).canvasRendering;
+    }
+
+    boolean isHandlingMarkerEvents() {
+        return isDelegatedEvents() || isCanvasRendering();
+    }
+
     public void setDisplayName(String displayName) {
         this.getState().displayName = displayName;
     }
@@ -76,4 +546,45 @@ public class MarkerLayer extends AbstractComponentContainer implements Layer {
     public void removeMarker(Marker marker) {
         removeComponent(marker);
     }
+
+    public interface ClusterClickListener {
+
+        Method method = ReflectTools.findMethod(
+                ClusterClickListener.class, "clusterClicked",
+                ClusterClickEvent.class);
+
+        void clusterClicked(ClusterClickEvent event);
+
+    }
+
+    public void addClusterClickListener(ClusterClickListener listener) {
+        addListener("cclick", ClusterClickEvent.class, listener,
+                ClusterClickListener.method);
+    }
+
+    public void removeClusterClickListener(ClusterClickListener listener) {
+        removeListener("cclick", ClusterClickEvent.class, listener);
+    }
+
+    public class ClusterClickEvent extends Event {
+
+        private final Cluster<Marker> cluster;
+
+        public ClusterClickEvent(Component source, Cluster<Marker> cluster) {
+            super(source);
+            this.cluster = cluster;
+        }
+
+        public Cluster<Marker> getCluster() {
+            return cluster;
+        }
+
+        /**
+         * @return the markers in the clicked cluster
+         */
+        public List<Marker> getMarkers() {
+            return cluster.getMembers();
+        }
+
+    }
 }
@@ -24,6 +24,7 @@ public class OpenLayersMap extends AbstractComponentContainer implements Action.
 
     private LinkedList<Action.Handler> actionHandlers = new LinkedList<Action.Handler>();
     private KeyMapper<Action> actionMapper = new KeyMapper<Action>();
+    private double resolution;
 
     public OpenLayersMap() {
         this(false);
@@ -50,9 +51,10 @@ public class OpenLayersMap extends AbstractComponentContainer implements Action.
             }
 
             @Override
-            public void extentChanged(Bounds bounds, int zoom) {
+            public void extentChanged(Bounds bounds, int zoom, double resolution) {
                 getState().bounds = bounds;
                 getState().zoom = zoom;
+                OpenLayersMap.this.resolution = resolution;
                 ExtentChangeEvent extentChangeEvent = new ExtentChangeEvent();
                 fireEvent(extentChangeEvent);
             }
@@ -216,6 +218,34 @@ public class OpenLayersMap extends AbstractComponentContainer implements Action.
         return this.getState().zoom;
     }
 
+    /**
+     * Note, this is only known after the client side has reported its extent,
+     * see {@link #addExtentChangeListener(ExtentChangeListener)}.
+     *
+     * @return the size of a screen pixel in the units of the api projection
+     *         or 0 if not known
+     */
+    public double getResolution() {
+        return resolution;
+    }
+
+    /**
+     * @param margin
+     *            the margin relative to the size of the extent
+     * @return the current extent extended with the margin in every direction
+     *         as minX, minY, maxX, maxY or null if the extent is not yet known
+     */
+    double[] getExtentWithMargin(double margin) {
+        Bounds extent = getExtent();
+        if (extent == null) {
+            return null;
+        }
+        double marginX = (extent.getRight() - extent.getLeft()) * margin;
+        double marginY = (extent.getTop() - extent.getBottom()) * margin;
+        return new double[] { extent.getLeft() - marginX, extent.getBottom() - marginY,
+          extent.getRight() + marginX, extent.getTop() + marginY };
+    }
+
     public void replaceComponent(Component oldComponent, Component newComponent) {
         this.removeComponent(oldComponent);
         this.addComponent(newComponent);
@@ -0,0 +1,224 @@
+package org.vaadin.vol;
+
+import com.vaadin.ui.Component;
+import com.vaadin.util.ReflectTools;
+
+import java.lang.reflect.Method;
+
+import org.vaadin.vol.client.GeometryCodec;
+import org.vaadin.vol.client.PointCloudClientRpc;
+import org.vaadin.vol.client.PointCloudLayerState;
+import org.vaadin.vol.client.PointCloudServerRpc;
+
+/**
+ * A layer for large numbers of points, for example measurements or sensor
+ * readings. Unlike a {@link VectorLayer}, the points are not features: they are
+ * sent to the client as packed coordinate arrays and drawn directly on a
+ * canvas, so hundreds of thousands of points can be shown. The points have no
+ * identity of their own, clicks are reported with the index of the point, so
+ * the application can resolve the record it represents.
+ * <p>
+ * The coordinates are in the projection of the layer or, if not set, in the
+ * api projection of the map.
+ */
+public class PointCloudLayer extends AbstractLayerBase implements Layer {
+
+    private static final double[] NO_POINTS = new double[0];
+
+    private double[] coordinates = NO_POINTS;
+    private int[] colors;
+    private double[] sizes;
+    private boolean pointsChanged;
+
+    public PointCloudLayer() {
+        registerRpc(new PointCloudServerRpc() {
+            public void pointClicked(int index) {
+                if (index >= 0 && index < getPointCount()) {
+                    fireEvent(new PointClickEvent(PointCloudLayer.this, index));
+                }
+            }
+        });
+    }
+
+    @Override
+    public PointCloudLayerState getState() {
+        return (PointCloudLayerState)super.getState();
+    }
+
+    @Override
+    protected PointCloudLayerState getState(boolean markAsDirty) {
+        return (PointCloudLayerState)super.getState(markAsDirty);
+    }
+
+    @Override
+    public void beforeClientResponse(boolean initial) {
+        super.beforeClientResponse(initial);
+        if (initial || pointsChanged) {
+            pointsChanged = false;
+            sendPoints();
+        }
+    }
+
+    private void sendPoints() {
+        String projection = getProjection();
+        if (projection == null && getParent() instanceof OpenLayersMap) {
+            projection = ((OpenLayersMap) getParent()).getApiProjection();
+        }
+        int precision = GeometryCodec.getPrecision(projection);
+        String encodedColors = null;
+        if (colors != null) {
+            double[] values = new double[colors.length + colors.length % 2];
+            for (int i = 0; i < colors.length; i++) {
+                values[i] = colors[i] & 0xffffff;
+            }
+            encodedColors = GeometryCodec.encode(values, 0);
+        }
+        String encodedSizes = null;
+        if (sizes != null) {
+            double[] values = new double[sizes.length + sizes.length % 2];
+            System.arraycopy(sizes, 0, values, 0, sizes.length);
+            encodedSizes = GeometryCodec.encode(values, 1);
+        }
+        getRpcProxy(PointCloudClientRpc.class).setPoints(GeometryCodec.encode(coordinates, precision), precision,
+          encodedColors, encodedSizes);
+    }
+
+    /**
+     * Replaces the points of the layer, drawn with the point color and size of
+     * the layer.
+     *
+     * @param coordinates
+     *            interleaved x and y (lon and lat) coordinates of the points
+     */
+    public void setPoints(double[] coordinates) {
+        setPoints(coordinates, null, null);
+    }
+
+    /**
+     * Replaces the points of the layer.
+     *
+     * @param coordinates
+     *            interleaved x and y (lon and lat) coordinates of the points
+     * @param colors
+     *            the color of each point as 0xRRGGBB, or null to use the point
+     *            color of the layer
+     * @param sizes
+     *            the size of each point in pixels, or null to use the point
+     *            size of the layer
+     */
+    public void setPoints(double[] coordinates, int[] colors, double[] sizes) {
+        if (coordinates.length % 2 != 0) {
+            throw new IllegalArgumentException("Coordinates must be x, y pairs");
+        }
+        int count = coordinates.length / 2;
+        if (colors != null && colors.length != count) {
+            throw new IllegalArgumentException("Expected " + count + " colors, got " + colors.length);
+        }
+        if (sizes != null && sizes.length != count) {
+            throw new IllegalArgumentException("Expected " + count + " sizes, got " + sizes.length);
+        }
+        this.coordinates = coordinates.clone();
+        this.colors = colors != null ? colors.clone() : null;
+        this.sizes = sizes != null ? sizes.clone() : null;
+        pointsChanged = true;
+        markAsDirty();
+    }
+
+    /**
+     * Removes all points from the layer.
+     */
+    public void clear() {
+        setPoints(NO_POINTS);
+    }
+
+    public int getPointCount() {
+        return coordinates.length / 2;
+    }
+
+    /**
+     * @return the x and y (lon and lat) coordinates of the point with the given
+     *         index
+     */
+    public double[] getPoint(int index) {
+        return new double[] { coordinates[index * 2], coordinates[index * 2 + 1] };
+    }
+
+    /**
+     * Sets the color of points without a color of their own.
+     *
+     * @param color
+     *            any CSS color, the default is #ee9900
+     */
+    public void setPointColor(String color) {
+        getState().pointColor = color;
+    }
+
+    public String getPointColor() {
+        return getState(false).pointColor;
+    }
+
+    /**
+     * Sets the size in pixels of points without a size of their own. Points of
+     * up to 3 pixels are drawn as squares, larger ones as circles.
+     */
+    public void setPointSize(double size) {
+        getState().pointSize = size;
+    }
+
+    public double getPointSize() {
+        return getState(false).pointSize;
+    }
+
+    /**
+     * Sets the distance in pixels from a click within which the nearest point
+     * is reported as clicked. The default is 4.
+     */
+    public void setPickTolerance(int pixels) {
+        getState().pickTolerance = pixels;
+    }
+
+    public int getPickTolerance() {
+        return getState(false).pickTolerance;
+    }
+
+    public void addPointClickListener(PointClickListener listener) {
+        addListener(PointClickListener.EVENT_ID, PointClickEvent.class, listener, PointClickListener.method);
+    }
+
+    public void removePointClickListener(PointClickListener listener) {
+        removeListener(PointClickListener.EVENT_ID, PointClickEvent.class, listener);
+    }
+
+    public interface PointClickListener {
+        String EVENT_ID = "pclick";
+
+        Method method = ReflectTools.findMethod(PointClickListener.class, "pointClicked", PointClickEvent.class);
+
+        void pointClicked(PointClickEvent event);
+    }
+
+    public class PointClickEvent extends Event {
+
+        private final int index;
+
+        public PointClickEvent(Component source, int index) {
+            super(source);
+            this.index = index;
+        }
+
+        /**
+         * @return the index of the clicked point in the coordinates given to
+         *         {@link PointCloudLayer#setPoints(double[], int[], double[])}
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        /**
+         * @return the x and y (lon and lat) coordinates of the clicked point
+         */
+        public double[] getPoint() {
+            return PointCloudLayer.this.getPoint(index);
+        }
+    }
+}
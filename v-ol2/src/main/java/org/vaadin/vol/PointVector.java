@@ -17,7 +17,7 @@ public class PointVector extends Vector {
     }
 
     public Point getPoint() {
-        return getPoints()[0];
+        return getPoint(0);
     }
 
     /**
@@ -1,5 +1,53 @@
 package org.vaadin.vol;
 
+import org.vaadin.vol.client.Point;
+
 public class PolyLine extends Vector {
 
+    private int maxPoints;
+
+    /**
+     * Limits the number of vertices kept when points are appended with
+     * {@link #appendPoints(Point...)}: the oldest vertices are dropped, like in
+     * a ring buffer. Useful for live tracks where only the latest positions are
+     * of interest. Appending and dropping only send the affected vertices to
+     * the client, so an update costs the same regardless of the track length.
+     *
+     * @param maxPoints
+     *            the maximum number of vertices, 0 for no limit
+     */
+    public void setMaxPoints(int maxPoints) {
+        if (maxPoints < 0) {
+            throw new IllegalArgumentException("maxPoints must not be negative");
+        }
+        this.maxPoints = maxPoints;
+        dropOldestPoints();
+    }
+
+    public int getMaxPoints() {
+        return maxPoints;
+    }
+
+    @Override
+    public void appendPoints(Point... points) {
+        if (maxPoints > 0 && points.length > maxPoints) {
+            Point[] latest = new Point[maxPoints];
+            System.arraycopy(points, points.length - maxPoints, latest, 0, maxPoints);
+            points = latest;
+        }
+        super.appendPoints(points);
+        dropOldestPoints();
+    }
+
+    @Override
+    protected double[] simplify(double[] coordinates, double tolerance) {
+        return Simplifier.simplifyLine(coordinates, tolerance);
+    }
+
+    private void dropOldestPoints() {
+        int excess = getPointCount() - maxPoints;
+        if (maxPoints > 0 && excess > 0) {
+            removePoints(0, excess);
+        }
+    }
 }
@@ -0,0 +1,61 @@
+package org.vaadin.vol;
+
+import com.vaadin.ui.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.vaadin.vol.client.Renderer;
+
+/**
+ * Converts renderers to and from the class names in the state of the vector
+ * layers.
+ */
+final class Renderers {
+
+    private Renderers() {
+    }
+
+    /**
+     * The renderer is chosen when the OpenLayers layer is created, so the
+     * renderers and their options can't be changed once the layer is
+     * attached.
+     *
+     * @throws IllegalStateException
+     *             if the layer is attached
+     */
+    static void checkNotAttached(Component layer) {
+        if (layer.isAttached()) {
+            throw new IllegalStateException("Renderers must be set before the layer is attached");
+        }
+    }
+
+    /**
+     * @return the class names of the renderers, null if there are none
+     * @throws IllegalArgumentException
+     *             if a renderer is null
+     */
+    static List<String> toClassNames(Renderer... renderers) {
+        if (renderers.length == 0) {
+            return null;
+        }
+        List<String> classNames = new ArrayList<String>();
+        for (Renderer renderer : renderers) {
+            if (renderer == null) {
+                throw new IllegalArgumentException("Renderer must not be null");
+            }
+            classNames.add(renderer.getClassName());
+        }
+        return classNames;
+    }
+
+    static List<Renderer> fromClassNames(List<String> classNames) {
+        List<Renderer> renderers = new ArrayList<Renderer>();
+        if (classNames != null) {
+            for (String className : classNames) {
+                renderers.add(Renderer.forClassName(className));
+            }
+        }
+        return renderers;
+    }
+}
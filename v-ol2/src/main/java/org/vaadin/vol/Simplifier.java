@@ -0,0 +1,184 @@
+package org.vaadin.vol;
+
+/**
+ * Douglas-Peucker simplification of packed coordinates, used to send fewer
+ * vertices to the client at low zoom levels.
+ */
+class Simplifier {
+
+    private Simplifier() {
+    }
+
+    /**
+     * Simplifies an open line. The first and the last vertex are always kept.
+     *
+     * @param tolerance
+     *            the maximum distance of a removed vertex from the simplified
+     *            line
+     * @return the simplified coordinates or the given array if no vertex
+     *         could be removed
+     */
+    static double[] simplifyLine(double[] coordinates, double tolerance) {
+        int count = coordinates.length / 2;
+        if (count <= 2 || tolerance <= 0) {
+            return coordinates;
+        }
+        boolean[] keep = new boolean[count];
+        keep[0] = true;
+        keep[count - 1] = true;
+        markKept(coordinates, 0, count - 1, tolerance * tolerance, keep);
+        return collect(coordinates, keep);
+    }
+
+    /**
+     * Simplifies a closed ring. The ring is split at its first vertex and the
+     * vertex farthest from it, and both halves are simplified separately, so
+     * the ring never collapses to a line: at least three vertices are kept.
+     *
+     * @return the simplified coordinates or the given array if no vertex
+     *         could be removed
+     */
+    static double[] simplifyRing(double[] coordinates, double tolerance) {
+        int count = coordinates.length / 2;
+        boolean closed = count > 1 && coordinates[0] == coordinates[count * 2 - 2]
+          && coordinates[1] == coordinates[count * 2 - 1];
+        int open = closed ? count - 1 : count;
+        if (open <= 3 || tolerance <= 0) {
+            return coordinates;
+        }
+        int far = 1;
+        double farDistance = -1;
+        for (int i = 1; i < open; i++) {
+            double d = squaredDistance(coordinates, 0, i);
+            if (d > farDistance) {
+                far = i;
+                farDistance = d;
+            }
+        }
+        // the closing vertex equals the first one, add it if missing
+        double[] ring = coordinates;
+        if (!closed) {
+            ring = new double[coordinates.length + 2];
+            System.arraycopy(coordinates, 0, ring, 0, coordinates.length);
+            ring[coordinates.length] = coordinates[0];
+            ring[coordinates.length + 1] = coordinates[1];
+        }
+        boolean[] keep = new boolean[open + 1];
+        keep[0] = true;
+        keep[far] = true;
+        keep[open] = closed;
+        double squaredTolerance = tolerance * tolerance;
+        markKept(ring, 0, far, squaredTolerance, keep);
+        markKept(ring, far, open, squaredTolerance, keep);
+        int kept = 0;
+        for (int i = 0; i < open; i++) {
+            if (keep[i]) {
+                kept++;
+            }
+        }
+        if (kept < 3) {
+            // keep the vertex farthest from the split line to stay a polygon
+            int third = -1;
+            double thirdDistance = -1;
+            for (int i = 1; i < open; i++) {
+                if (i != far) {
+                    double d = squaredSegmentDistance(ring, i, 0, far);
+                    if (d > thirdDistance) {
+                        third = i;
+                        thirdDistance = d;
+                    }
+                }
+            }
+            keep[third] = true;
+        }
+        double[] simplified = collect(ring, keep);
+        return simplified.length < coordinates.length ? simplified : coordinates;
+    }
+
+    /**
+     * Marks the vertices between first and last (exclusive) that are needed
+     * to stay within the tolerance.
+     */
+    private static void markKept(double[] c, int first, int last, double squaredTolerance, boolean[] keep) {
+        int[] stack = new int[64];
+        int top = 0;
+        stack[top++] = first;
+        stack[top++] = last;
+        while (top > 0) {
+            int end = stack[--top];
+            int start = stack[--top];
+            double maxDistance = squaredTolerance;
+            int index = -1;
+            for (int i = start + 1; i < end; i++) {
+                double d = squaredSegmentDistance(c, i, start, end);
+                if (d > maxDistance) {
+                    index = i;
+                    maxDistance = d;
+                }
+            }
+            if (index >= 0) {
+                keep[index] = true;
+                if (top + 4 > stack.length) {
+                    int[] larger = new int[stack.length * 2];
+                    System.arraycopy(stack, 0, larger, 0, top);
+                    stack = larger;
+                }
+                stack[top++] = start;
+                stack[top++] = index;
+                stack[top++] = index;
+                stack[top++] = end;
+            }
+        }
+    }
+
+    private static double[] collect(double[] coordinates, boolean[] keep) {
+        int kept = 0;
+        for (boolean k : keep) {
+            if (k) {
+                kept++;
+            }
+        }
+        if (kept * 2 == coordinates.length) {
+            return coordinates;
+        }
+        double[] result = new double[kept * 2];
+        int j = 0;
+        for (int i = 0; i < keep.length; i++) {
+            if (keep[i]) {
+                result[j++] = coordinates[i * 2];
+                result[j++] = coordinates[i * 2 + 1];
+            }
+        }
+        return result;
+    }
+
+    private static double squaredDistance(double[] c, int i, int j) {
+        double dx = c[i * 2] - c[j * 2];
+        double dy = c[i * 2 + 1] - c[j * 2 + 1];
+        return dx * dx + dy * dy;
+    }
+
+    /**
+     * @return the squared distance of vertex p from the segment between
+     *         vertices a and b
+     */
+    private static double squaredSegmentDistance(double[] c, int p, int a, int b) {
+        double x = c[a * 2];
+        double y = c[a * 2 + 1];
+        double dx = c[b * 2] - x;
+        double dy = c[b * 2 + 1] - y;
+        if (dx != 0 || dy != 0) {
+            double t = ((c[p * 2] - x) * dx + (c[p * 2 + 1] - y) * dy) / (dx * dx + dy * dy);
+            if (t > 1) {
+                x = c[b * 2];
+                y = c[b * 2 + 1];
+            } else if (t > 0) {
+                x += dx * t;
+                y += dy * t;
+            }
+        }
+        dx = c[p * 2] - x;
+        dy = c[p * 2 + 1] - y;
+        return dx * dx + dy * dy;
+    }
+}
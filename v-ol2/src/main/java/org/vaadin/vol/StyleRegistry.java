@@ -0,0 +1,68 @@
+package org.vaadin.vol;
+
+import com.google.gson.JsonElement;
+
+import elemental.json.JsonObject;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.vaadin.vol.client.Style;
+
+/**
+ * Interns the custom styles of the vectors and features of a layer: styles
+ * with equal content share an id and are sent to the client only once. The
+ * registry keeps a reference count per style and forgets styles no longer in
+ * use.
+ */
+@SuppressWarnings("serial")
+class StyleRegistry implements Serializable {
+
+    private final HashMap<String, String> idsByJson = new HashMap<String, String>();
+    private final HashMap<String, String> jsonById = new HashMap<String, String>();
+    private final HashMap<String, Integer> useCounts = new HashMap<String, Integer>();
+    private long nextId;
+
+    /**
+     * Registers a use of the style.
+     *
+     * @param styles
+     *            the styles by id sent to the client, new styles are added to
+     *            it
+     * @return the id of the style
+     */
+    String acquire(Style style, Map<String, JsonObject> styles) {
+        JsonElement tree = JsonValues.STYLE_GSON.toJsonTree(style);
+        String json = tree.toString();
+        String id = idsByJson.get(json);
+        if (id == null) {
+            id = String.valueOf(++nextId);
+            idsByJson.put(json, id);
+            jsonById.put(id, json);
+            useCounts.put(id, 1);
+            styles.put(id, (JsonObject) JsonValues.toJsonValue(tree));
+        } else {
+            useCounts.put(id, useCounts.get(id) + 1);
+        }
+        return id;
+    }
+
+    /**
+     * Releases a use of the style with the given id, the style is removed
+     * from the styles map when it is no longer used.
+     */
+    void release(String id, Map<String, JsonObject> styles) {
+        Integer count = useCounts.get(id);
+        if (count == null) {
+            return;
+        }
+        if (count > 1) {
+            useCounts.put(id, count - 1);
+        } else {
+            useCounts.remove(id);
+            idsByJson.remove(jsonById.remove(id));
+            styles.remove(id);
+        }
+    }
+}
@@ -1,55 +1,378 @@
 package org.vaadin.vol;
 
-import com.google.gson.Gson;
 import com.vaadin.ui.AbstractComponent;
 
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
 import org.vaadin.vol.client.Attributes;
+import org.vaadin.vol.client.GeometryCodec;
+import org.vaadin.vol.client.GeometryPatch;
 import org.vaadin.vol.client.Point;
 import org.vaadin.vol.client.Style;
 import org.vaadin.vol.client.StyleMap;
+import org.vaadin.vol.client.VectorClientRpc;
 import org.vaadin.vol.client.VectorState;
 
 public abstract class Vector extends AbstractComponent {
 
     private Style customStyle;
+    // id of the custom style in the style registry of styleLayer
+    private String styleId;
+    private VectorLayer styleLayer;
+    private boolean styleChanged = true;
+    private boolean attributesChanged = true;
     private Attributes attributes;
+    private final CoordinateBuffer coordinates = new CoordinateBuffer();
+    // true if the whole geometry needs to be sent to the client
+    private boolean geometryChanged = true;
+    private int encodedPrecision;
+    // changes made with the patch API since the last response
+    private final List<Splice> pendingSplices = new ArrayList<Splice>();
+    // simplified coordinates by zoom level, null values mean no vertices
+    // could be removed. Cleared when the geometry changes.
+    private HashMap<Integer, double[]> simplified;
+    // zoom level of the simplified geometry on the client, -1 if the client
+    // has the full geometry
+    private int sentLevel = -1;
 
     @Override
     public VectorState getState() {
         return (VectorState)super.getState();
     }
 
+    @Override
+    protected VectorState getState(boolean markAsDirty) {
+        return (VectorState)super.getState(markAsDirty);
+    }
+
     @Override
     public void beforeClientResponse(boolean initial) {
         super.beforeClientResponse(initial);
-        Gson gson = new Gson();
-        getState().styleJson = gson.toJson(customStyle);
-        getState().attributesJson = gson.toJson(attributes);
+        if (initial || styleChanged || customStyle != null && styleId == null) {
+            updateStyleId();
+            styleChanged = false;
+        }
+        if (initial || attributesChanged) {
+            getState().attributes = JsonValues.toJsonObject(JsonValues.GSON, attributes);
+            attributesChanged = false;
+        }
+        int precision = GeometryCodec.getPrecision(getProjection());
+        int level = getSimplificationLevel();
+        double[] simplifiedCoordinates = level < 0 ? null : getSimplifiedCoordinates(level);
+        if (simplifiedCoordinates != null) {
+            if (initial || geometryChanged || !pendingSplices.isEmpty() || precision != encodedPrecision
+              || level != sentLevel) {
+                getState().geometry = GeometryCodec.encode(simplifiedCoordinates, precision);
+            }
+            sentLevel = level;
+            encodedPrecision = precision;
+            geometryChanged = false;
+        } else if (initial || geometryChanged || sentLevel >= 0 || precision != encodedPrecision
+          || isPatchLargerThanGeometry()) {
+            getState().geometry = coordinates.encode(precision);
+            sentLevel = -1;
+            encodedPrecision = precision;
+            geometryChanged = false;
+        } else if (!pendingSplices.isEmpty()) {
+            if (getState(false).geometry != null) {
+                getState().geometry = null;
+            }
+            List<GeometryPatch> patches = new ArrayList<GeometryPatch>(pendingSplices.size());
+            for (Splice splice : pendingSplices) {
+                patches.add(new GeometryPatch(splice.index, splice.removeCount,
+                  GeometryCodec.encode(splice.inserted, precision)));
+            }
+            getRpcProxy(VectorClientRpc.class).patchGeometry(patches);
+        }
+        pendingSplices.clear();
+    }
+
+    /**
+     * Registers the custom style to the style registry of the layer, equal
+     * styles of the vectors and features of the layer are sent to the client
+     * only once.
+     */
+    private void updateStyleId() {
+        String oldStyleId = styleId;
+        VectorLayer oldStyleLayer = styleLayer;
+        if (customStyle != null && getParent() instanceof VectorLayer) {
+            styleLayer = (VectorLayer) getParent();
+            styleId = styleLayer.acquireStyle(customStyle);
+        } else {
+            styleLayer = null;
+            styleId = null;
+        }
+        if (oldStyleId != null) {
+            oldStyleLayer.releaseStyle(oldStyleId);
+        }
+        if (styleId == null ? getState(false).styleId != null : !styleId.equals(getState(false).styleId)) {
+            getState().styleId = styleId;
+        }
     }
 
+    @Override
+    public void detach() {
+        if (styleId != null) {
+            styleLayer.releaseStyle(styleId);
+            styleId = null;
+            styleLayer = null;
+        }
+        // the client side geometry is discarded, resend all of it when
+        // attached again instead of collecting splices meanwhile
+        geometryChanged = true;
+        pendingSplices.clear();
+        super.detach();
+    }
+
+    /**
+     * @return the zoom level the geometry should be simplified for or -1 if
+     *         the full geometry should be sent
+     */
+    private int getSimplificationLevel() {
+        if (getParent() instanceof VectorLayer) {
+            return ((VectorLayer) getParent()).getSimplificationLevel(this);
+        }
+        return -1;
+    }
+
+    /**
+     * @return the coordinates simplified for the given zoom level, computed
+     *         once per level, or null if the simplification would not remove
+     *         any vertices
+     */
+    private double[] getSimplifiedCoordinates(int level) {
+        if (simplified == null) {
+            simplified = new HashMap<Integer, double[]>();
+        }
+        if (!simplified.containsKey(level)) {
+            double[] full = coordinates.toArray();
+            double[] result = simplify(full, ((VectorLayer) getParent()).getSimplificationToleranceInMapUnits());
+            simplified.put(level, result.length < full.length ? result : null);
+        }
+        return simplified.get(level);
+    }
+
+    /**
+     * Simplifies the geometry for low zoom levels, see
+     * {@link VectorLayer#setSimplificationTolerance(double)}. By default the
+     * coordinates are returned as such.
+     *
+     * @param coordinates
+     *            the packed coordinates of the vector, must not be modified
+     * @param tolerance
+     *            the maximum allowed displacement in the units of the
+     *            projection
+     * @return the simplified coordinates
+     */
+    protected double[] simplify(double[] coordinates, double tolerance) {
+        return coordinates;
+    }
+
+    /**
+     * Called by the layer when the zoom level or the simplification settings
+     * have changed.
+     */
+    void simplificationChanged(boolean settingsChanged) {
+        if (settingsChanged) {
+            simplified = null;
+        }
+        int level = getSimplificationLevel();
+        if (level >= 0 && getSimplifiedCoordinates(level) == null) {
+            level = -1;
+        }
+        if (settingsChanged || level != sentLevel) {
+            markAsDirty();
+        }
+    }
+
+    /**
+     * @return true if the vertices form a ring, whose closing vertex is not
+     *         included in the vertex indexes of patches made on the client
+     */
+    boolean isRing() {
+        return false;
+    }
+
+    private boolean isPatchLargerThanGeometry() {
+        int inserted = 0;
+        for (Splice splice : pendingSplices) {
+            inserted += splice.inserted.length;
+        }
+        return inserted >= coordinates.size();
+    }
+
+    /**
+     * Sets the vertices of this vector. Nothing is sent to the client if the
+     * coordinates equal to the current ones. The rings of {@link Area}s are
+     * closed implicitly, a last vertex equal to the first one is dropped.
+     */
     public void setPoints(Point... points) {
-        setPointsWithoutRepaint(points);
-        markAsDirty();
+        setCoordinates(Coordinates.pack(points));
+    }
+
+    /**
+     * Sets the vertices of this vector as a packed array where longitudes and
+     * latitudes are interleaved: {@code [lon0, lat0, lon1, lat1, ...]}. The
+     * array is used as such, it should not be modified afterwards. Nothing is
+     * sent to the client if the coordinates equal to the current ones. As
+     * with {@link #setPoints(Point...)}, a closing vertex of an {@link Area}
+     * is dropped.
+     */
+    public void setCoordinates(double... coordinates) {
+        if (setCoordinatesWithoutRepaint(coordinates)) {
+            markAsDirty();
+        }
     }
 
     protected void setPointsWithoutRepaint(Point... points) {
-        this.getState().points = points;
+        setCoordinatesWithoutRepaint(Coordinates.pack(points));
+    }
+
+    /**
+     * @return true if the coordinates were changed
+     */
+    protected boolean setCoordinatesWithoutRepaint(double... coordinates) {
+        coordinates = Coordinates.checkCoordinates(coordinates);
+        if (isRing()) {
+            // the client closes rings itself and leaves the closing vertex
+            // out of the indexes of splices, so keep the same indexes here
+            coordinates = Coordinates.openRing(coordinates);
+        }
+        if (this.coordinates.contentEquals(coordinates)) {
+            return false;
+        }
+        this.coordinates.set(coordinates);
+        geometryChanged = true;
+        pendingSplices.clear();
+        simplified = null;
+        return true;
     }
 
+    /**
+     * Appends vertices to the end of this vector. Only the new vertices are
+     * sent to the client.
+     */
+    public void appendPoints(Point... points) {
+        insertPoints(getPointCount(), points);
+    }
+
+    /**
+     * Inserts vertices before the vertex at the given index. Only the new
+     * vertices are sent to the client.
+     */
+    public void insertPoints(int index, Point... points) {
+        spliceCoordinates(index, 0, Coordinates.pack(points));
+    }
+
+    /**
+     * Moves the vertex at the given index. Only the moved vertex is sent to
+     * the client.
+     */
+    public void movePoint(int index, Point point) {
+        spliceCoordinates(index, 1, Coordinates.pack(point));
+    }
+
+    /**
+     * Removes count vertices starting from the given index.
+     */
+    public void removePoints(int index, int count) {
+        spliceCoordinates(index, count, Coordinates.EMPTY);
+    }
+
+    /**
+     * Replaces removeCount vertices starting from index with the given
+     * coordinates. Unless the whole geometry is sent anyway, only the change
+     * is sent to the client, which updates the existing OpenLayers geometry in
+     * place. Appending and removing vertices from the beginning take time
+     * proportional to the number of affected vertices only.
+     *
+     * @param inserted
+     *            interleaved lon/lat pairs to insert
+     */
+    public void spliceCoordinates(int index, int removeCount, double... inserted) {
+        inserted = Coordinates.checkCoordinates(inserted);
+        coordinates.splice(index, removeCount, inserted);
+        simplified = null;
+        if (!geometryChanged) {
+            pendingSplices.add(new Splice(index, removeCount, inserted));
+        }
+        markAsDirty();
+    }
+
+    /**
+     * Applies a modification made on the client side, which already shows the
+     * modified geometry.
+     */
+    void applyClientPatch(GeometryPatch patch, int precision) {
+        if (isRing()) {
+            coordinates.set(patch.applyToRing(coordinates.toArray(), precision));
+        } else {
+            coordinates.splice(patch.index, patch.removeCount, GeometryCodec.decode(patch.geometry, precision));
+        }
+        simplified = null;
+        if (!pendingSplices.isEmpty()) {
+            // conflicting changes, resend everything
+            geometryChanged = true;
+            pendingSplices.clear();
+        } else if (getState(false).geometry != null) {
+            // the client side geometry no longer matches the encoded one
+            getState().geometry = null;
+        }
+    }
+
+    /**
+     * Returns the vertices of this vector. The points are a read only view to
+     * the coordinates: modifying them does not change the vector, use
+     * {@link #setPoints(Point...)} instead.
+     */
     public Point[] getPoints() {
-        return getState().points;
+        return coordinates.toPoints();
+    }
+
+    /**
+     * @return a copy of the packed coordinates of this vector
+     * @see #setCoordinates(double...)
+     */
+    public double[] getCoordinates() {
+        return coordinates.toArray();
+    }
+
+    public Point getPoint(int index) {
+        return coordinates.getPoint(index);
+    }
+
+    public int getPointCount() {
+        return coordinates.getPointCount();
+    }
+
+    private static class Splice implements Serializable {
+        private final int index;
+        private final int removeCount;
+        private final double[] inserted;
+
+        Splice(int index, int removeCount, double[] inserted) {
+            this.index = index;
+            this.removeCount = removeCount;
+            this.inserted = inserted;
+        }
     }
 
     public void setProjection(String projection) {
         this.getState().projection = projection;
+        geometryChanged = true;
+        pendingSplices.clear();
+        simplified = null;
     }
 
     public String getProjection() {
-        if (getState().projection == null && getUI() != null) {
+        if (getState(false).projection == null && getUI() != null) {
             OpenLayersMap parent2 = (OpenLayersMap)getParent().getParent();
             return parent2.getApiProjection();
         }
-        return getState().projection;
+        return getState(false).projection;
     }
 
     /**
@@ -62,10 +385,12 @@ public abstract class Vector extends AbstractComponent {
     /**
      * @param style
      *            the custom style declaration to be used for rendering this
-     *            Vector
+     *            Vector. The style is sent to the client when set, call this
+     *            method again after modifying the style.
      */
     public void setCustomStyle(Style style) {
         this.customStyle = style;
+        styleChanged = true;
         markAsDirty();
     }
 
@@ -113,10 +438,14 @@ public abstract class Vector extends AbstractComponent {
 
     /**
      * @param attributes
-     *            the vectAttributes to set
+     *            the vectAttributes to set. The attributes are sent to the
+     *            client when set, call this method again after modifying
+     *            them.
      */
     public void setAttributes(Attributes attributes) {
         this.attributes = attributes;
+        attributesChanged = true;
+        markAsDirty();
     }
 
 }
@@ -4,11 +4,14 @@
 package org.vaadin.vol;
 
 import com.google.gson.Gson;
+import com.vaadin.server.ClientConnector;
 import com.vaadin.shared.Connector;
 import com.vaadin.ui.AbstractComponentContainer;
 import com.vaadin.ui.Component;
 import com.vaadin.util.ReflectTools;
 
+import elemental.json.JsonObject;
+
 import java.lang.reflect.Method;
 import java.util.*;
 import java.util.logging.Logger;
@@ -17,15 +20,47 @@ import org.vaadin.vol.client.*;
 
 public class VectorLayer extends AbstractComponentContainer implements Layer {
 
+    private static final String CLUSTER_ID_PREFIX = "cluster:";
+
     private StyleMap styleMap;
+    private boolean styleMapChanged;
+
+    private final LinkedHashSet<Vector> vectors = new LinkedHashSet<Vector>();
+    // true if vectors have changed since the state was last updated
+    private boolean vectorsChanged;
+
+    private final LinkedHashMap<String, Feature> features = new LinkedHashMap<String, Feature>();
+    private final LinkedHashSet<Feature> dirtyFeatures = new LinkedHashSet<Feature>();
+    private final LinkedHashSet<String> removedFeatureIds = new LinkedHashSet<String>();
+    private boolean featuresReset;
+
+    private final ViewportSync viewportSync = new ViewportSync();
+    private OpenLayersMap.ExtentChangeListener extentChangeListener;
+
+    private final Clustering<Feature> clustering = new Clustering<Feature>();
+    // clusters currently on the client by their feature id
+    private final HashMap<String, Cluster<Feature>> visibleClusters = new HashMap<String, Cluster<Feature>>();
+    // size and position of the clusters on the client, to detect changes
+    private final HashMap<String, String> sentClusters = new HashMap<String, String>();
+    private Style clusterStyle;
+    // id of the cluster style in the style registry while clustering
+    private String clusterStyleId;
+
+    private final StyleRegistry styleRegistry = new StyleRegistry();
+    private final AttributeTable attributeTable = new AttributeTable();
+    private final IncrementalLoading incrementalLoading;
+
+    private double simplificationTolerance;
+    private int simplifiedZoom = -1;
 
     public VectorLayer() {
+        incrementalLoading = new IncrementalLoading(this, getState(false).incrementalLoading);
         registerRpc(new VectorLayerServerRpc() {
-            public void draw(String[] vertices, VectorLayerState.DrawingMode drawingMode) {
-                drawVector(vertices, drawingMode);
+            public void draw(String geometry, VectorLayerState.DrawingMode drawingMode) {
+                drawVector(geometry, drawingMode);
             }
-            public void modify(String[] vertices, String connectorId) {
-                modifyVector(vertices, connectorId);
+            public void modify(GeometryPatch patch, String connectorId) {
+                modifyVector(patch, connectorId);
             }
             public void select(String connectorId) {
                 selectVector(connectorId);
@@ -33,12 +68,38 @@ public class VectorLayer extends AbstractComponentContainer implements Layer {
             public void unselect(String connectorId) {
                 unselectVector(connectorId);
             }
+            public void modifyFeature(GeometryPatch patch, String featureId) {
+                VectorLayer.this.modifyFeature(patch, featureId);
+            }
+            public void selectFeature(String featureId) {
+                VectorLayer.this.selectFeature(featureId);
+            }
+            public void unselectFeature(String featureId) {
+                VectorLayer.this.unselectFeature(featureId);
+            }
         });
+        registerRpc(incrementalLoading);
     }
 
     @Override
     public void beforeClientResponse(boolean initial) {
         super.beforeClientResponse(initial);
+        if (vectorsChanged) {
+            getState().vectors = new ArrayList<Connector>(vectors);
+            vectorsChanged = false;
+        }
+        if (styleMapChanged) {
+            updateStyleMapState();
+            styleMapChanged = false;
+        }
+        sendFeatures(initial);
+    }
+
+    /**
+     * Converts the style map to the state, only when it has been set as
+     * converting all of its styles and rules on every response is costly.
+     */
+    private void updateStyleMapState() {
         if (styleMap != null) {
             Map<String, String> map = new HashMap<String, String>();
             List<String> uniqueValueRules = new ArrayList<String>();
@@ -54,12 +115,218 @@ public class VectorLayer extends AbstractComponentContainer implements Layer {
             }
             getState().styleMap = map;
             getState().uniqueValueRules = uniqueValueRules;
+            getState().styleRules = toJson(styleMap.getRules());
             getState().extendDefault = styleMap.isExtendDefault();
         } else {
             getState().styleMap = null;
             getState().uniqueValueRules = null;
+            getState().styleRules = null;
+        }
+    }
+
+    private static List<JsonObject> toJson(Map<String, List<StyleRule>> rules) {
+        List<JsonObject> result = new ArrayList<JsonObject>();
+        for (Map.Entry<String, List<StyleRule>> e : rules.entrySet()) {
+            for (StyleRule rule : e.getValue()) {
+                JsonObject json = JsonValues.toJsonObject(JsonValues.STYLE_GSON, rule);
+                json.put("intent", e.getKey());
+                result.add(json);
+            }
+        }
+        return result;
+    }
+
+    private void sendFeatures(boolean initial) {
+        if (isViewportMode()) {
+            sendFeaturesInViewport(initial);
+            return;
+        }
+        VectorLayerClientRpc rpc = getRpcProxy(VectorLayerClientRpc.class);
+        if (initial || featuresReset) {
+            if (!initial) {
+                rpc.removeAllFeatures();
+            }
+            if (!features.isEmpty()) {
+                sendFeatureData(rpc, features.values());
+            }
+        } else {
+            if (!removedFeatureIds.isEmpty()) {
+                rpc.removeFeatures(new ArrayList<String>(removedFeatureIds));
+            }
+            if (!dirtyFeatures.isEmpty()) {
+                sendFeatureData(rpc, dirtyFeatures);
+            }
+        }
+        featuresReset = false;
+        removedFeatureIds.clear();
+        dirtyFeatures.clear();
+    }
+
+    /**
+     * Synchronizes the features intersecting the current extent of the map
+     * when viewport culling is enabled and the point clusters in the extent
+     * when clustering is enabled, plus the selected feature. Features that
+     * have left the area are removed from the client.
+     */
+    private void sendFeaturesInViewport(boolean initial) {
+        VectorLayerClientRpc rpc = getRpcProxy(VectorLayerClientRpc.class);
+        if (initial || featuresReset) {
+            if (viewportSync.reset() && !initial) {
+                rpc.removeAllFeatures();
+            }
+            sentClusters.clear();
+        }
+        double[] area = viewportSync.getArea(this);
+        Map<String, Feature> visible = null;
+        Collection<Feature> changed = dirtyFeatures;
+        if (viewportSync.isViewportChanged()) {
+            visible = getFeaturesToSync(area);
+            sentClusters.keySet().retainAll(visible.keySet());
+            changed = getChangedFeatures(visible);
+        }
+        ViewportSync.Changes changes = viewportSync.sync(visible, changed, removedFeatureIds, area,
+          getState(false).selectedFeature);
+        if (!changes.removed.isEmpty()) {
+            rpc.removeFeatures(changes.removed);
+        }
+        if (!changes.added.isEmpty()) {
+            sendFeatureData(rpc, changes.added);
+        }
+        featuresReset = false;
+        removedFeatureIds.clear();
+        dirtyFeatures.clear();
+    }
+
+    /**
+     * @return the features and cluster representatives that should be on the
+     *         client, by id
+     */
+    private Map<String, Feature> getFeaturesToSync(double[] area) {
+        LinkedHashMap<String, Feature> visible = new LinkedHashMap<String, Feature>();
+        for (Feature feature : viewportSync.getFeatures(features.values(), area)) {
+            if (!isClustered(feature)) {
+                visible.put(feature.getId(), feature);
+            }
+        }
+        visibleClusters.clear();
+        for (Cluster<Feature> cluster : clustering.getClusters(this, area)) {
+            if (cluster.getSize() == 1) {
+                Feature feature = cluster.getMembers().get(0);
+                visible.put(feature.getId(), feature);
+            } else {
+                String id = CLUSTER_ID_PREFIX + cluster.getId();
+                visibleClusters.put(id, cluster);
+                visible.put(id, createClusterFeature(id, cluster));
+            }
+        }
+        Feature selected = getSelectedFeature();
+        if (selected != null) {
+            visible.put(selected.getId(), selected);
+        }
+        return visible;
+    }
+
+    /**
+     * @return the dirty features plus the visible cluster representatives
+     *         whose cluster has changed since it was last sent
+     */
+    private Collection<Feature> getChangedFeatures(Map<String, Feature> visible) {
+        if (visibleClusters.isEmpty()) {
+            return dirtyFeatures;
+        }
+        HashSet<Feature> changed = new HashSet<Feature>(dirtyFeatures);
+        for (String id : visibleClusters.keySet()) {
+            if (isClusterChanged(id)) {
+                changed.add(visible.get(id));
+            }
         }
+        return changed;
+    }
+
+    private boolean isClustered(Feature feature) {
+        return clustering.getIndex() != null && feature.getType() == GeometryType.POINT;
+    }
+
+    private void indexCluster(Feature feature) {
+        double[] coordinates = feature.getCoordinates();
+        if (coordinates.length >= 2) {
+            clustering.getIndex().put(feature, coordinates[0], coordinates[1]);
+        } else {
+            clustering.getIndex().remove(feature);
+        }
+    }
+
+    private Feature createClusterFeature(String id, Cluster<Feature> cluster) {
+        Feature feature = new Feature(id, GeometryType.POINT, cluster.getCenter());
+        Attributes attributes = new Attributes();
+        attributes.setLabel(String.valueOf(cluster.getSize()));
+        attributes.setPointRadius((int) Math.min(30, 6 + 2 * Math.sqrt(cluster.getSize())));
+        feature.setAttributes(attributes);
+        feature.setStyleId(clusterStyleId);
+        return feature;
+    }
 
+    /**
+     * @return true if the visible cluster has changed since it was last sent
+     */
+    private boolean isClusterChanged(String id) {
+        Cluster<Feature> cluster = visibleClusters.get(id);
+        String key = cluster.getSize() + "@" + cluster.getCenterX() + "," + cluster.getCenterY();
+        return !key.equals(sentClusters.put(id, key));
+    }
+
+    /**
+     * Registers a use of the given custom style by a vector or feature of this
+     * layer.
+     *
+     * @return the id of the style in {@link VectorLayerState#styles}
+     */
+    String acquireStyle(Style style) {
+        Map<String, JsonObject> styles = getState(false).styles;
+        int size = styles.size();
+        String styleId = styleRegistry.acquire(style, styles);
+        if (styles.size() != size) {
+            markAsDirty();
+        }
+        return styleId;
+    }
+
+    /**
+     * Releases a use of the custom style with the given id, the style is
+     * removed from the client when no longer used.
+     */
+    void releaseStyle(String styleId) {
+        Map<String, JsonObject> styles = getState(false).styles;
+        int size = styles.size();
+        styleRegistry.release(styleId, styles);
+        if (styles.size() != size) {
+            markAsDirty();
+        }
+    }
+
+    private void sendFeatureData(VectorLayerClientRpc rpc, Collection<Feature> features) {
+        rpc.addFeatures(toFeatureData(features), attributeTable.toJson(AttributeTable.getRows(features)));
+    }
+
+    private List<FeatureData> toFeatureData(Collection<Feature> features) {
+        int precision = getPrecision();
+        List<FeatureData> data = new ArrayList<FeatureData>(features.size());
+        for (Feature feature : features) {
+            data.add(feature.toData(precision));
+        }
+        return data;
+    }
+
+    /**
+     * @return the number of decimals geometries are encoded with, derived
+     *         from the api projection of the map
+     */
+    private int getPrecision() {
+        String projection = null;
+        if (getParent() instanceof OpenLayersMap) {
+            projection = ((OpenLayersMap) getParent()).getApiProjection();
+        }
+        return GeometryCodec.getPrecision(projection);
     }
 
     @Override
@@ -67,6 +334,11 @@ public class VectorLayer extends AbstractComponentContainer implements Layer {
         return (VectorLayerState)super.getState();
     }
 
+    @Override
+    protected VectorLayerState getState(boolean markAsDirty) {
+        return (VectorLayerState)super.getState(markAsDirty);
+    }
+
     public void addVector(Vector m) {
         addComponent(m);
     }
@@ -78,88 +350,619 @@ public class VectorLayer extends AbstractComponentContainer implements Layer {
 
     @Override
     public int getComponentCount() {
-        return getState().vectors.size();
+        return vectors.size();
     }
 
     public Iterator<Component> iterator() {
-        List<Component> list = new ArrayList<Component>(getState().vectors.size());
-        for (Connector connector : getState().vectors) {
-            list.add((Vector)connector);
-        }
-        return list.iterator();
+        return new ArrayList<Component>(vectors).iterator();
     }
 
     @Override
     public void addComponent(Component c) {
         if (c instanceof Vector) {
-            getState().vectors.add(c);
             super.addComponent(c);
-            markAsDirty();
+            vectors.add((Vector) c);
+            vectorsChanged();
         } else {
             throw new IllegalArgumentException(
                     "VectorLayer supports only Vectors");
         }
     }
 
-    @SuppressWarnings("SuspiciousMethodCalls")
     @Override
     public void removeComponent(Component c) {
-        getState().vectors.remove(c);
-        super.removeComponent(c);
-        if (getState().selectedVector == c) {
-            getState().selectedVector = null;
-            fireEvent(new VectorUnSelectedEvent(this, (Vector) c));
+        if (vectors.remove(c)) {
+            super.removeComponent(c);
+            if (getState(false).selectedVector == c) {
+                getState().selectedVector = null;
+                fireEvent(new VectorUnSelectedEvent(this, (Vector) c));
+            }
+            vectorsChanged();
+        }
+    }
+
+    /**
+     * Adds the given vectors to this layer. The client side receives all of
+     * them in a single hierarchy change.
+     */
+    public void addVectors(final Collection<? extends Vector> vectors) {
+        batch(new Runnable() {
+            public void run() {
+                for (Vector vector : vectors) {
+                    addComponent(vector);
+                }
+            }
+        });
+    }
+
+    /**
+     * Removes the given vectors from this layer. The client side removes all
+     * of them from the OpenLayers layer at once.
+     */
+    public void removeVectors(final Collection<? extends Vector> vectors) {
+        batch(new Runnable() {
+            public void run() {
+                for (Vector vector : vectors) {
+                    removeComponent(vector);
+                }
+            }
+        });
+    }
+
+    /**
+     * Removes all vectors from this layer. Lightweight features are not
+     * affected, see {@link #removeAllFeatures()}.
+     */
+    public void removeAllVectors() {
+        removeVectors(new ArrayList<Vector>(vectors));
+    }
+
+    /**
+     * Runs the given changes to the vectors of this layer as one update. The
+     * session is locked for the duration, so with server push or from a
+     * background thread the client receives all of the changes in one
+     * response and handles them in a single hierarchy change.
+     */
+    public void batch(Runnable changes) {
+        Batch.run(this, changes);
+    }
+
+    private void vectorsChanged() {
+        vectorsChanged = true;
+        markAsDirty();
+    }
+
+    /**
+     * Declares an attribute of the features of this layer. Attribute values
+     * set with {@link Feature#setAttribute(String, Object)} are stored
+     * column-wise per attribute and sent to the client as arrays, and end up
+     * in the attributes of the OpenLayers features. They can drive styles
+     * through templates like <code>${name}</code> and unique value rules of
+     * the {@link StyleMap}, so a single style map can style any number of
+     * features.
+     *
+     * @throws IllegalArgumentException
+     *             if the attribute is already declared with another type
+     */
+    public void addAttribute(String name, AttributeType type) {
+        attributeTable.addColumn(name, type);
+        getState().attributeNames = attributeTable.getColumnNames();
+    }
+
+    /**
+     * @return the names of the declared feature attributes
+     */
+    public List<String> getAttributeNames() {
+        return attributeTable.getColumnNames();
+    }
+
+    /**
+     * @return the type of the declared feature attribute or null if the
+     *         attribute is not declared
+     */
+    public AttributeType getAttributeType(String name) {
+        return attributeTable.getColumnType(name);
+    }
+
+    AttributeTable getAttributeTable() {
+        return attributeTable;
+    }
+
+    /**
+     * Adds a lightweight feature to this layer. A feature with the same id is
+     * replaced.
+     *
+     * @throws IllegalArgumentException
+     *             if the feature has values for attributes not declared on
+     *             this layer
+     * @see Feature
+     */
+    public void addFeature(Feature feature) {
+        attributeTable.validate(feature.getAttributeValues());
+        if (feature.getLayer() != null && feature.getLayer() != this) {
+            feature.getLayer().removeFeature(feature);
+        }
+        Feature old = features.put(feature.getId(), feature);
+        if (old != null && old != feature) {
+            old.setLayer(null);
+            dirtyFeatures.remove(old);
+            viewportSync.featureRemoved(old);
+            if (clustering.getIndex() != null) {
+                clustering.getIndex().remove(old);
+            }
+        }
+        feature.setLayer(this);
+        removedFeatureIds.remove(feature.getId());
+        featureChanged(feature);
+    }
+
+    /**
+     * Adds the given features to this layer, features with already existing
+     * ids are replaced.
+     */
+    public void addFeatures(Collection<Feature> features) {
+        for (Feature feature : features) {
+            addFeature(feature);
+        }
+    }
+
+    public void removeFeature(Feature feature) {
+        if (features.get(feature.getId()) == feature) {
+            removeFeature(feature.getId());
+        }
+    }
+
+    public void removeFeature(String featureId) {
+        Feature feature = features.remove(featureId);
+        if (feature != null) {
+            feature.setLayer(null);
+            dirtyFeatures.remove(feature);
+            removedFeatureIds.add(featureId);
+            viewportSync.featureRemoved(feature);
+            if (isClustered(feature)) {
+                clustering.getIndex().remove(feature);
+                viewportSync.viewportChanged();
+            }
+            if (featureId.equals(getState().selectedFeature)) {
+                getState().selectedFeature = null;
+                fireEvent(new FeatureUnSelectedEvent(this, feature));
+            }
+            markAsDirty();
+        }
+    }
+
+    public void removeAllFeatures() {
+        if (features.isEmpty()) {
+            return;
+        }
+        Feature selected = getSelectedFeature();
+        for (Feature feature : features.values()) {
+            feature.setLayer(null);
+        }
+        features.clear();
+        attributeTable.clearRows();
+        viewportSync.allFeaturesRemoved();
+        if (clustering.getIndex() != null) {
+            clustering.getIndex().clear();
+        }
+        dirtyFeatures.clear();
+        removedFeatureIds.clear();
+        featuresReset = true;
+        if (selected != null) {
+            getState().selectedFeature = null;
+            fireEvent(new FeatureUnSelectedEvent(this, selected));
+        }
+        markAsDirty();
+    }
+
+    /**
+     * @return the feature with the given id or null if there is no such feature
+     *         in this layer
+     */
+    public Feature getFeature(String featureId) {
+        return features.get(featureId);
+    }
+
+    /**
+     * @return an unmodifiable view to the features of this layer
+     */
+    public Collection<Feature> getFeatures() {
+        return Collections.unmodifiableCollection(features.values());
+    }
+
+    public int getFeatureCount() {
+        return features.size();
+    }
+
+    /**
+     * Enables or disables viewport culling of features. When enabled, only the
+     * features intersecting the current extent of the map, extended with the
+     * {@link #setViewportMargin(double) margin}, are sent to the client.
+     * Features are added and evicted on the client as the map is moved. The
+     * layer keeps its features in a spatial index to find the visible ones
+     * efficiently.
+     * <p>
+     * Culling applies to lightweight {@link Feature}s only, {@link Vector}
+     * components are always sent. The selected feature is always sent.
+     */
+    public void setViewportCulling(boolean viewportCulling) {
+        boolean wasViewportMode = isViewportMode();
+        if (!viewportSync.setCulling(viewportCulling, features.values())) {
+            return;
+        }
+        viewportModeChanged(wasViewportMode);
+    }
+
+    public boolean isViewportCulling() {
+        return viewportSync.isCulling();
+    }
+
+    /**
+     * Enables or disables clustering of point features. When enabled, point
+     * {@link Feature}s closer than the given distance to each other at the
+     * current zoom level are grouped and shown as a single point feature. The
+     * clusters are computed on the server once per zoom level and only the
+     * clusters within the current extent of the map, extended with the
+     * {@link #setViewportMargin(double) margin}, are sent to the client.
+     * Zooming in splits clusters into smaller ones.
+     * <p>
+     * The cluster representatives have the number of points as their
+     * {@link Attributes#getLabel() label} attribute and a matching
+     * {@link Attributes#getPointRadius() point radius}, so they can be styled
+     * with <code>${label}</code> and <code>${pointRadius}</code>, see also
+     * {@link #setClusterStyle(Style)}. Selecting a cluster on the client fires
+     * a {@link ClusterClickEvent} with its members and, by default, zooms the
+     * map to the cluster. Clicks are reported when the layer has a
+     * {@link #setSelectionMode(VectorLayerState.SelectionMode) selection
+     * mode}.
+     *
+     * @param pixels
+     *            the size of the clustering grid cells in screen pixels, 0 (the
+     *            default) disables clustering
+     */
+    public void setClusterDistance(int pixels) {
+        boolean wasViewportMode = isViewportMode();
+        if (!clustering.setDistance(pixels)) {
+            return;
+        }
+        visibleClusters.clear();
+        for (Feature feature : features.values()) {
+            if (isClustered(feature)) {
+                indexCluster(feature);
+            }
+        }
+        updateClusterStyleId();
+        viewportModeChanged(wasViewportMode);
+    }
+
+    public int getClusterDistance() {
+        return clustering.getDistance();
+    }
+
+    /**
+     * Sets a custom style for the cluster representatives.
+     *
+     * @see #setClusterDistance(int)
+     */
+    public void setClusterStyle(Style clusterStyle) {
+        this.clusterStyle = clusterStyle;
+        updateClusterStyleId();
+        sentClusters.clear();
+        viewportSync.viewportChanged();
+        markAsDirty();
+    }
+
+    public Style getClusterStyle() {
+        return clusterStyle;
+    }
+
+    /**
+     * Acquires the cluster style once for all cluster representatives while
+     * clustering is enabled and releases it otherwise.
+     */
+    private void updateClusterStyleId() {
+        String oldStyleId = clusterStyleId;
+        clusterStyleId = clusterStyle != null && clustering.getDistance() > 0 ? acquireStyle(clusterStyle) : null;
+        if (oldStyleId != null) {
+            releaseStyle(oldStyleId);
+        }
+    }
+
+    /**
+     * Sets whether the map is zoomed to the extent of a cluster when the
+     * cluster is clicked. The default is true.
+     */
+    public void setZoomToClusterOnClick(boolean zoomToClusterOnClick) {
+        clustering.setZoomToClusterOnClick(zoomToClusterOnClick);
+    }
+
+    public boolean isZoomToClusterOnClick() {
+        return clustering.isZoomToClusterOnClick();
+    }
+
+    /**
+     * @return true if features are synchronized based on the map extent
+     */
+    private boolean isViewportMode() {
+        return viewportSync.isCulling() || clustering.getDistance() > 0;
+    }
+
+    /**
+     * Called after viewport culling or clustering has been toggled.
+     */
+    private void viewportModeChanged(boolean wasViewportMode) {
+        if (!wasViewportMode && isViewportMode()) {
+            // everything may be on the client already
+            Set<String> featureIds = new HashSet<String>(features.keySet());
+            featureIds.removeAll(removedFeatureIds);
+            viewportSync.start(featureIds);
+        } else if (wasViewportMode && !isViewportMode()) {
+            viewportSync.reset();
+            sentClusters.clear();
+            featuresReset = true;
+        }
+        viewportSync.viewportChanged();
+        updateExtentChangeListener();
+        markAsDirty();
+    }
+
+    /**
+     * Sets the margin added around the map extent when deciding which
+     * features to send to the client in viewport culling mode. The margin is
+     * relative to the size of the extent, 0.5 (the default) extends the area
+     * by half of the viewport width and height in every direction so that
+     * features are ready when the map is panned.
+     */
+    public void setViewportMargin(double viewportMargin) {
+        viewportSync.setMargin(viewportMargin);
+        markAsDirty();
+    }
+
+    public double getViewportMargin() {
+        return viewportSync.getMargin();
+    }
+
+    /**
+     * Enables zoom dependent simplification of {@link PolyLine}s and
+     * {@link Area}s. At each zoom level the vectors are simplified with the
+     * Douglas-Peucker algorithm so that no removed vertex is farther than the
+     * given number of screen pixels from the sent geometry. Areas never
+     * collapse to less than a triangle. Simplified geometries are computed
+     * once per zoom level and cached until the geometry changes.
+     * <p>
+     * The full geometry is sent when zooming in far enough for the
+     * simplification to have no effect, and always in
+     * {@link VectorLayerState.DrawingMode#MODIFY} mode. Vectors with an
+     * explicit projection differing from the api projection of the map are
+     * not simplified.
+     *
+     * @param pixels
+     *            the tolerance in screen pixels, 0 (the default) disables
+     *            simplification. 0.5 - 1 is a good value for visually
+     *            lossless results.
+     */
+    public void setSimplificationTolerance(double pixels) {
+        if (pixels < 0) {
+            throw new IllegalArgumentException("Simplification tolerance must not be negative");
+        }
+        if (simplificationTolerance != pixels) {
+            simplificationTolerance = pixels;
+            updateExtentChangeListener();
+            updateSimplification(true);
+        }
+    }
+
+    public double getSimplificationTolerance() {
+        return simplificationTolerance;
+    }
+
+    /**
+     * @return the zoom level the given vector is to be simplified for or -1
+     *         if its full geometry should be sent
+     */
+    int getSimplificationLevel(Vector vector) {
+        if (simplificationTolerance <= 0 || getState(false).drawingMode == VectorLayerState.DrawingMode.MODIFY
+          || !(getParent() instanceof OpenLayersMap)) {
+            return -1;
+        }
+        OpenLayersMap map = (OpenLayersMap) getParent();
+        String projection = vector.getState(false).projection;
+        if (map.getResolution() <= 0 || projection != null && !projection.equals(map.getApiProjection())) {
+            return -1;
+        }
+        return map.getZoom();
+    }
+
+    /**
+     * @return the simplification tolerance at the current zoom level in the
+     *         units of the api projection
+     */
+    double getSimplificationToleranceInMapUnits() {
+        return simplificationTolerance * ((OpenLayersMap) getParent()).getResolution();
+    }
+
+    private void updateSimplification(boolean settingsChanged) {
+        for (Vector vector : vectors) {
+            vector.simplificationChanged(settingsChanged);
+        }
+    }
+
+    @Override
+    public void attach() {
+        super.attach();
+        updateExtentChangeListener();
+        viewportSync.viewportChanged();
+    }
+
+    @Override
+    public void detach() {
+        unregisterExtentChangeListener();
+        super.detach();
+    }
+
+    /**
+     * Listens to the extent of the map while viewport culling, clustering or
+     * simplification is enabled.
+     */
+    private void updateExtentChangeListener() {
+        if ((isViewportMode() || simplificationTolerance > 0) && isAttached()) {
+            registerExtentChangeListener();
+        } else {
+            unregisterExtentChangeListener();
+        }
+    }
+
+    private void registerExtentChangeListener() {
+        if (extentChangeListener != null || !(getParent() instanceof OpenLayersMap)) {
+            return;
+        }
+        extentChangeListener = new OpenLayersMap.ExtentChangeListener() {
+            public void extentChanged(OpenLayersMap.ExtentChangeEvent event) {
+                if (isViewportMode()) {
+                    viewportSync.viewportChanged();
+                    markAsDirty();
+                }
+                int zoom = event.getComponent().getZoom();
+                if (simplificationTolerance > 0 && zoom != simplifiedZoom) {
+                    simplifiedZoom = zoom;
+                    updateSimplification(false);
+                }
+            }
+        };
+        ((OpenLayersMap) getParent()).addExtentChangeListener(extentChangeListener);
+    }
+
+    private void unregisterExtentChangeListener() {
+        if (extentChangeListener != null) {
+            if (getParent() instanceof OpenLayersMap) {
+                ((OpenLayersMap) getParent()).removeExtentChangeListener(extentChangeListener);
+            }
+            extentChangeListener = null;
+        }
+    }
+
+    void featureChanged(Feature feature) {
+        viewportSync.featureChanged(feature);
+        if (isClustered(feature)) {
+            indexCluster(feature);
+            // the cluster of the feature needs to be updated
+            viewportSync.viewportChanged();
+        }
+        if (!featuresReset) {
+            dirtyFeatures.add(feature);
         }
         markAsDirty();
     }
 
+    public Feature getSelectedFeature() {
+        String selected = getState().selectedFeature;
+        return selected != null ? features.get(selected) : null;
+    }
+
+    public void setSelectedFeature(Feature selectedFeature) {
+        Feature current = getSelectedFeature();
+        if (current != selectedFeature) {
+            if (current != null) {
+                fireEvent(new FeatureUnSelectedEvent(this, current));
+            }
+            getState().selectedFeature = selectedFeature != null ? selectedFeature.getId() : null;
+            if (selectedFeature != null) {
+                fireEvent(new FeatureSelectedEvent(this, selectedFeature));
+            }
+            // the selected feature is synchronized even outside the viewport
+            viewportSync.viewportChanged();
+            markAsDirty();
+        }
+    }
+
     public void setDrawingMode(VectorLayerState.DrawingMode drawingMode) {
         this.getState().drawingMode = drawingMode;
         markAsDirty();
+        if (simplificationTolerance > 0) {
+            // full geometries are needed for modifying
+            updateSimplification(false);
+        }
     }
 
     public VectorLayerState.DrawingMode getDrawingMode() {
         return getState().drawingMode;
     }
 
-    private void drawVector(String[] vertices, VectorLayerState.DrawingMode drawingMode) {
-        if (vertices != null && vertices.length > 0) {
-            Point[] points = getPoints(vertices);
+    private void drawVector(String geometry, VectorLayerState.DrawingMode drawingMode) {
+        double[] coordinates = GeometryCodec.decode(geometry, getPrecision());
+        if (coordinates.length > 0) {
             if (drawingMode == VectorLayerState.DrawingMode.LINE) {
                 PolyLine polyline = new PolyLine();
-                polyline.setPoints(points);
+                polyline.setCoordinates(coordinates);
                 newVectorPainted(polyline);
             } else if (drawingMode == VectorLayerState.DrawingMode.AREA
               || drawingMode == VectorLayerState.DrawingMode.RECTANGLE
               || drawingMode == VectorLayerState.DrawingMode.CIRCLE) {
                 Area area = new Area();
-                area.setPoints(points);
+                area.setCoordinates(coordinates);
                 newVectorPainted(area);
             } else if (drawingMode == VectorLayerState.DrawingMode.POINT) {
-                PointVector point = new PointVector(points[0]);
+                PointVector point = new PointVector(coordinates[0], coordinates[1]);
                 newVectorPainted(point);
             }
         }
     }
 
-    private Point[] getPoints(String[] vertices) {
-        Point[] points = new Point[vertices.length];
-        for (int i = 0; i < points.length; i++) {
-            points[i] = Point.valueOf(vertices[i]);
-        }
-        return points;
-    }
-
-    private void modifyVector(String[] vertices, String connectorId) {
+    private void modifyVector(GeometryPatch patch, String connectorId) {
         Vector vector = getVector(connectorId);
         if (vector != null) {
-            vector.setPointsWithoutRepaint(getPoints(vertices));
+            vector.applyClientPatch(patch, getPrecision());
             vectorModified(vector);
         } else {
             Logger.getLogger(getClass().getName()).severe("Vector modified event didn't provide related vector!?");
         }
     }
 
+    private void modifyFeature(GeometryPatch patch, String featureId) {
+        Feature feature = features.get(featureId);
+        if (feature != null) {
+            double[] coordinates = feature.getCoordinates();
+            feature.setCoordinatesWithoutRepaint(feature.getType() == GeometryType.AREA
+              ? patch.applyToRing(coordinates, getPrecision()) : patch.apply(coordinates, getPrecision()));
+            fireEvent(new FeatureModifiedEvent(this, feature));
+        } else {
+            Logger.getLogger(getClass().getName()).severe("Feature modified event didn't provide related feature!?");
+        }
+    }
+
+    private void selectFeature(String featureId) {
+        Feature feature = features.get(featureId);
+        Cluster<Feature> cluster = visibleClusters.get(featureId);
+        if (feature == null && cluster != null) {
+            clusterClicked(cluster);
+        } else if (feature != null) {
+            this.getState().selectedFeature = featureId;
+            fireEvent(new FeatureSelectedEvent(this, feature));
+        } else {
+            Logger.getLogger(getClass().getName()).severe("Feature selected event didn't provide related feature!?");
+        }
+    }
+
+    private void unselectFeature(String featureId) {
+        Feature feature = features.get(featureId);
+        if (feature == null && featureId.startsWith(CLUSTER_ID_PREFIX)) {
+            // clusters are never selected on the server
+            return;
+        } else if (feature != null) {
+            if (featureId.equals(this.getState().selectedFeature)) {
+                this.getState().selectedFeature = null;
+            }
+            fireEvent(new FeatureUnSelectedEvent(this, feature));
+        } else {
+            Logger.getLogger(getClass().getName()).severe("Feature un-selected event didn't provide related feature!?");
+        }
+    }
+
+    private void clusterClicked(Cluster<Feature> cluster) {
+        fireEvent(new ClusterClickEvent(this, cluster));
+        clustering.clicked(this, cluster);
+    }
+
     private void selectVector(String connectorId) {
         Vector vector = getVector(connectorId);
         if (vector != null) {
@@ -184,11 +987,17 @@ public class VectorLayer extends AbstractComponentContainer implements Layer {
         }
     }
 
+    /**
+     * Finds a child vector by its connector id using the id index of the
+     * connector tracker.
+     */
     private Vector getVector(String connectorId) {
-        for (Connector c : this.getState().vectors) {
-            if (Objects.equals(c.getConnectorId(), connectorId)) {
-                return (Vector)c;
-            }
+        if (connectorId == null || getUI() == null) {
+            return null;
+        }
+        ClientConnector connector = getUI().getConnectorTracker().getConnector(connectorId);
+        if (connector instanceof Vector && connector.getParent() == this) {
+            return (Vector) connector;
         }
         return null;
     }
@@ -256,11 +1065,15 @@ public class VectorLayer extends AbstractComponentContainer implements Layer {
     }
 
     /**
+     * Sets the style map of the layer. The style map is sent to the client
+     * when it is set, so set it again after changing it.
+     *
      * @param stylemap
      *            the styleMap to set
      */
     public void setStyleMap(StyleMap stylemap) {
         this.styleMap = stylemap;
+        styleMapChanged = true;
         markAsDirty();
     }
 
@@ -281,6 +1094,81 @@ public class VectorLayer extends AbstractComponentContainer implements Layer {
         return getState().selectionMode;
     }
 
+    /**
+     * Enables adding vectors and features to the map on the client side in
+     * chunks, yielding to the browser between them. With tens of thousands
+     * of features the map can be panned and zoomed while the layer fills up,
+     * a {@link FeaturesLoadedListener} is notified when all of them have been
+     * added.
+     */
+    public void setIncrementalLoading(boolean incrementalLoading) {
+        this.incrementalLoading.setEnabled(incrementalLoading);
+    }
+
+    public boolean isIncrementalLoading() {
+        return incrementalLoading.isEnabled();
+    }
+
+    /**
+     * Sets the time spent adding features at a time with incremental loading,
+     * 20 milliseconds by default.
+     */
+    public void setLoadingTimeBudget(int millis) {
+        incrementalLoading.setTimeBudget(millis);
+    }
+
+    public int getLoadingTimeBudget() {
+        return incrementalLoading.getTimeBudget();
+    }
+
+    /**
+     * Sets the renderers OpenLayers tries for the layer, in order of
+     * preference. The first one supported by the browser is used, e.g.
+     * {@link Renderer#CANVAS} before {@link Renderer#SVG} draws and pans dense
+     * point layers considerably faster. Without renderers the OpenLayers
+     * default is used. The renderer is chosen when the layer is created on
+     * the client side, so the renderers must be set before the layer is
+     * attached.
+     *
+     * @throws IllegalStateException
+     *             if the layer is attached
+     */
+    public void setRenderers(Renderer... renderers) {
+        Renderers.checkNotAttached(this);
+        getState().renderers = Renderers.toClassNames(renderers);
+    }
+
+    public List<Renderer> getRenderers() {
+        return Renderers.fromClassNames(getState(false).renderers);
+    }
+
+    /**
+     * Sets the options passed to the OpenLayers renderer as such, e.g.
+     * zIndexing or yOrdering for SVG. Like the renderers, the options are used
+     * when the layer is created on the client side. The hitDetection option
+     * of Canvas is off by default, features under the mouse are found with a
+     * spatial index instead.
+     *
+     * @throws IllegalStateException
+     *             if the layer is attached
+     */
+    public void setRendererOptions(JsonObject rendererOptions) {
+        Renderers.checkNotAttached(this);
+        getState().rendererOptions = rendererOptions;
+    }
+
+    public JsonObject getRendererOptions() {
+        return getState(false).rendererOptions;
+    }
+
+    public void addFeaturesLoadedListener(FeaturesLoadedListener listener) {
+        incrementalLoading.addListener(listener);
+    }
+
+    public void removeFeaturesLoadedListener(FeaturesLoadedListener listener) {
+        incrementalLoading.removeListener(listener);
+    }
+
     public class VectorDrawnEvent extends Event {
 
         private Vector vector;
@@ -419,4 +1307,152 @@ public class VectorLayer extends AbstractComponentContainer implements Layer {
 
     }
 
+    public interface FeatureSelectedListener {
+
+        String EVENT_ID = "fsel";
+
+        Method method = ReflectTools.findMethod(
+                FeatureSelectedListener.class, "featureSelected",
+                FeatureSelectedEvent.class);
+
+        void featureSelected(FeatureSelectedEvent event);
+
+    }
+
+    public void addFeatureSelectedListener(FeatureSelectedListener listener) {
+        addListener(FeatureSelectedListener.EVENT_ID, FeatureSelectedEvent.class,
+                listener, FeatureSelectedListener.method);
+    }
+
+    public void removeFeatureSelectedListener(FeatureSelectedListener listener) {
+        removeListener(FeatureSelectedListener.EVENT_ID,
+                FeatureSelectedEvent.class, listener);
+    }
+
+    public interface FeatureUnSelectedListener {
+
+        String EVENT_ID = "fusel";
+
+        Method method = ReflectTools.findMethod(
+                FeatureUnSelectedListener.class, "featureUnSelected",
+                FeatureUnSelectedEvent.class);
+
+        void featureUnSelected(FeatureUnSelectedEvent event);
+
+    }
+
+    public void addFeatureUnSelectedListener(FeatureUnSelectedListener listener) {
+        addListener(FeatureUnSelectedListener.EVENT_ID,
+                FeatureUnSelectedEvent.class, listener,
+                FeatureUnSelectedListener.method);
+    }
+
+    public void removeFeatureUnSelectedListener(FeatureUnSelectedListener listener) {
+        removeListener(FeatureUnSelectedListener.EVENT_ID,
+                FeatureUnSelectedEvent.class, listener);
+    }
+
+    public interface FeatureModifiedListener {
+
+        Method method = ReflectTools.findMethod(
+                FeatureModifiedListener.class, "featureModified",
+                FeatureModifiedEvent.class);
+
+        void featureModified(FeatureModifiedEvent event);
+
+    }
+
+    public void addFeatureModifiedListener(FeatureModifiedListener listener) {
+        addListener("featureModified", FeatureModifiedEvent.class, listener,
+                FeatureModifiedListener.method);
+    }
+
+    public void removeFeatureModifiedListener(FeatureModifiedListener listener) {
+        removeListener(FeatureModifiedEvent.class, listener,
+                FeatureModifiedListener.method);
+    }
+
+    public interface ClusterClickListener {
+
+        String EVENT_ID = "cclick";
+
+        Method method = ReflectTools.findMethod(
+                ClusterClickListener.class, "clusterClicked",
+                ClusterClickEvent.class);
+
+        void clusterClicked(ClusterClickEvent event);
+
+    }
+
+    public void addClusterClickListener(ClusterClickListener listener) {
+        addListener(ClusterClickListener.EVENT_ID, ClusterClickEvent.class,
+                listener, ClusterClickListener.method);
+    }
+
+    public void removeClusterClickListener(ClusterClickListener listener) {
+        removeListener(ClusterClickListener.EVENT_ID,
+                ClusterClickEvent.class, listener);
+    }
+
+    public class ClusterClickEvent extends Event {
+
+        private final Cluster<Feature> cluster;
+
+        public ClusterClickEvent(Component source, Cluster<Feature> cluster) {
+            super(source);
+            this.cluster = cluster;
+        }
+
+        public Cluster<Feature> getCluster() {
+            return cluster;
+        }
+
+        /**
+         * @return the features in the clicked cluster
+         */
+        public List<Feature> getFeatures() {
+            return cluster.getMembers();
+        }
+
+    }
+
+    public class FeatureEvent extends Event {
+
+        private final Feature feature;
+
+        public FeatureEvent(Component source, Feature feature) {
+            super(source);
+            this.feature = feature;
+        }
+
+        public Feature getFeature() {
+            return feature;
+        }
+
+    }
+
+    public class FeatureSelectedEvent extends FeatureEvent {
+
+        public FeatureSelectedEvent(Component source, Feature feature) {
+            super(source, feature);
+        }
+
+    }
+
+    public class FeatureUnSelectedEvent extends FeatureEvent {
+
+        public FeatureUnSelectedEvent(Component source, Feature feature) {
+            super(source, feature);
+        }
+
+    }
+
+    public class FeatureModifiedEvent extends FeatureEvent {
+
+        public FeatureModifiedEvent(Component source, Feature feature) {
+            super(source, feature);
+        }
+
+    }
+
 }
@@ -0,0 +1,226 @@
+package org.vaadin.vol;
+
+import com.vaadin.ui.Component;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.vaadin.vol.client.SpatialIndex;
+
+/**
+ * The viewport culling settings and spatial index of a {@link VectorLayer},
+ * and the features on the client while they are synchronized based on the
+ * extent of the map.
+ */
+@SuppressWarnings("serial")
+class ViewportSync implements Serializable {
+
+    private boolean culling;
+    private double margin = 0.5;
+    // null while culling is disabled
+    private SpatialIndex<Feature> index;
+    // ids of the features currently on the client
+    private final HashSet<String> sentFeatureIds = new HashSet<String>();
+    private boolean viewportChanged;
+
+    /**
+     * Features to remove from and add to the client.
+     */
+    static class Changes {
+        final List<String> removed = new ArrayList<String>();
+        final List<Feature> added = new ArrayList<Feature>();
+    }
+
+    /**
+     * Enables culling with the given features in the index or disables it.
+     *
+     * @return true if culling was toggled
+     */
+    boolean setCulling(boolean culling, Collection<Feature> features) {
+        if (this.culling == culling) {
+            return false;
+        }
+        this.culling = culling;
+        if (culling) {
+            index = new SpatialIndex<Feature>();
+            for (Feature feature : features) {
+                feature.index(index);
+            }
+        } else {
+            index = null;
+        }
+        viewportChanged = true;
+        return true;
+    }
+
+    boolean isCulling() {
+        return culling;
+    }
+
+    void setMargin(double margin) {
+        if (margin < 0) {
+            throw new IllegalArgumentException("Viewport margin must not be negative");
+        }
+        this.margin = margin;
+        viewportChanged = true;
+    }
+
+    double getMargin() {
+        return margin;
+    }
+
+    /**
+     * Updates the feature in the index after it was added or changed.
+     */
+    void featureChanged(Feature feature) {
+        if (index != null) {
+            feature.index(index);
+        }
+    }
+
+    void featureRemoved(Feature feature) {
+        if (index != null) {
+            index.remove(feature);
+        }
+    }
+
+    void allFeaturesRemoved() {
+        if (index != null) {
+            index.clear();
+        }
+    }
+
+    /**
+     * Marks the features on the client to be recomputed on the next
+     * {@link #sync}, after the extent or the visible clusters may have
+     * changed.
+     */
+    void viewportChanged() {
+        viewportChanged = true;
+    }
+
+    boolean isViewportChanged() {
+        return viewportChanged;
+    }
+
+    /**
+     * Starts tracking the features on the client when the layer switches to
+     * synchronizing based on the extent.
+     *
+     * @param featureIds
+     *            the features that may be on the client already
+     */
+    void start(Collection<String> featureIds) {
+        sentFeatureIds.addAll(featureIds);
+        viewportChanged = true;
+    }
+
+    /**
+     * Forgets the features on the client, when all of them have been removed
+     * or the client is initialized.
+     *
+     * @return true if there were features on the client
+     */
+    boolean reset() {
+        boolean wasEmpty = sentFeatureIds.isEmpty();
+        sentFeatureIds.clear();
+        viewportChanged = true;
+        return !wasEmpty;
+    }
+
+    /**
+     * @return the current extent of the map of the layer extended with the
+     *         margin as minX, minY, maxX, maxY or null if the extent is not
+     *         yet known
+     */
+    double[] getArea(Component layer) {
+        if (!(layer.getParent() instanceof OpenLayersMap)) {
+            return null;
+        }
+        return ((OpenLayersMap) layer.getParent()).getExtentWithMargin(margin);
+    }
+
+    /**
+     * @param area
+     *            minX, minY, maxX, maxY or null if not known
+     * @return the features intersecting the area while culling, none if the
+     *         area is not known, all of the given features otherwise
+     */
+    Collection<Feature> getFeatures(Collection<Feature> features, double[] area) {
+        if (!culling) {
+            return features;
+        }
+        if (area == null) {
+            return Collections.emptyList();
+        }
+        return index.search(area[0], area[1], area[2], area[3]);
+    }
+
+    /**
+     * Computes the changes to send to the client and records their result as
+     * the features on the client.
+     *
+     * @param visible
+     *            the features and cluster representatives that should be on
+     *            the client by id, computed by the caller when
+     *            {@link #isViewportChanged()} and null otherwise
+     * @param dirty
+     *            the changed features, resent if they are to be on the client
+     * @param removedFeatureIds
+     *            the features removed from the layer
+     * @param area
+     *            the area from {@link #getArea(Component)}
+     * @param selectedFeatureId
+     *            the selected feature, sent even outside the area, or null
+     */
+    Changes sync(Map<String, Feature> visible, Collection<Feature> dirty, Collection<String> removedFeatureIds,
+      double[] area, String selectedFeatureId) {
+        Changes changes = new Changes();
+        for (String featureId : removedFeatureIds) {
+            if (sentFeatureIds.remove(featureId)) {
+                changes.removed.add(featureId);
+            }
+        }
+        if (visible != null) {
+            for (Iterator<String> it = sentFeatureIds.iterator(); it.hasNext();) {
+                String featureId = it.next();
+                if (!visible.containsKey(featureId)) {
+                    it.remove();
+                    changes.removed.add(featureId);
+                }
+            }
+            for (Feature feature : visible.values()) {
+                if (sentFeatureIds.add(feature.getId()) || dirty.contains(feature)) {
+                    changes.added.add(feature);
+                }
+            }
+        } else {
+            for (Feature feature : dirty) {
+                if (isInArea(feature, area, selectedFeatureId)) {
+                    sentFeatureIds.add(feature.getId());
+                    changes.added.add(feature);
+                } else if (sentFeatureIds.remove(feature.getId())) {
+                    changes.removed.add(feature.getId());
+                }
+            }
+        }
+        viewportChanged = false;
+        return changes;
+    }
+
+    private boolean isInArea(Feature feature, double[] area, String selectedFeatureId) {
+        if (!culling || feature.getId().equals(selectedFeatureId)) {
+            return true;
+        }
+        if (area == null) {
+            return false;
+        }
+        return feature.intersects(area[0], area[1], area[2], area[3]);
+    }
+}
@@ -6,9 +6,12 @@ import org.vaadin.vol.client.WellKnownTextLayerState;
 
 public class WellKnownTextLayer extends AbstractAutoPopulatedVectorLayer implements Layer {
 
+    private final IncrementalLoading incrementalLoading;
 
     public WellKnownTextLayer() {
         setDisplayName("WKT");
+        incrementalLoading = new IncrementalLoading(this, getState(false).incrementalLoading);
+        registerRpc(incrementalLoading);
     }
 
     public WellKnownTextLayer(String wkt) {
@@ -21,6 +24,11 @@ public class WellKnownTextLayer extends AbstractAutoPopulatedVectorLayer impleme
         return (WellKnownTextLayerState)super.getState();
     }
 
+    @Override
+    protected WellKnownTextLayerState getState(boolean markAsDirty) {
+        return (WellKnownTextLayerState)super.getState(markAsDirty);
+    }
+
     public void setWellKnownText(String wkt) {
         if (!Objects.equals(getState().wkt, wkt)) {
             getState().wkt = wkt;
@@ -32,4 +40,34 @@ public class WellKnownTextLayer extends AbstractAutoPopulatedVectorLayer impleme
         return getState().wkt;
     }
 
+    /**
+     * @see VectorLayer#setIncrementalLoading(boolean)
+     */
+    public void setIncrementalLoading(boolean incrementalLoading) {
+        this.incrementalLoading.setEnabled(incrementalLoading);
+    }
+
+    public boolean isIncrementalLoading() {
+        return incrementalLoading.isEnabled();
+    }
+
+    /**
+     * @see VectorLayer#setLoadingTimeBudget(int)
+     */
+    public void setLoadingTimeBudget(int millis) {
+        incrementalLoading.setTimeBudget(millis);
+    }
+
+    public int getLoadingTimeBudget() {
+        return incrementalLoading.getTimeBudget();
+    }
+
+    public void addFeaturesLoadedListener(FeaturesLoadedListener listener) {
+        incrementalLoading.addListener(listener);
+    }
+
+    public void removeFeaturesLoadedListener(FeaturesLoadedListener listener) {
+        incrementalLoading.removeListener(listener);
+    }
+
 }
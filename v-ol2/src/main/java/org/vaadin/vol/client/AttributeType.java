@@ -0,0 +1,9 @@
+package org.vaadin.vol.client;
+
+/**
+ * Types of the attribute columns declared on a vector layer, see
+ * {@link VectorLayerState#attributeNames}.
+ */
+public enum AttributeType {
+    NUMBER, STRING, BOOLEAN
+}
@@ -1,5 +1,11 @@
 package org.vaadin.vol.client;
 
+import com.vaadin.shared.annotations.DelegateToWidget;
+
+import elemental.json.JsonObject;
+
+import java.util.List;
+
 public class AutoPopulatedVectorLayerState extends LayerBaseState {
 
     public StyleMap styleMap;
@@ -18,4 +24,13 @@ public class AutoPopulatedVectorLayerState extends LayerBaseState {
      */
     public String selectionCtrlId;
 
+    /**
+     * Class names of the OpenLayers renderers in order of preference, null
+     * for the OpenLayers default. Used when the layer is created.
+     */
+    @DelegateToWidget
+    public List<String> renderers;
+    @DelegateToWidget
+    public JsonObject rendererOptions;
+
 }
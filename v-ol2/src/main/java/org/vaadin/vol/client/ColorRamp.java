@@ -0,0 +1,48 @@
+package org.vaadin.vol.client;
+
+/**
+ * Helpers for graduated colors, see
+ * {@link StyleMap#addGraduatedRules(RenderIntent, String, double[], String...)}.
+ */
+public class ColorRamp {
+
+    private ColorRamp() {
+    }
+
+    /**
+     * @param startColor
+     *            the first color as #rrggbb
+     * @param endColor
+     *            the last color as #rrggbb
+     * @param count
+     *            the number of colors, at least 2
+     * @return colors interpolated linearly from the start color to the end
+     *         color
+     */
+    public static String[] interpolate(String startColor, String endColor, int count) {
+        if (count < 2) {
+            throw new IllegalArgumentException("Color ramp needs at least 2 colors");
+        }
+        int start = parse(startColor);
+        int end = parse(endColor);
+        String[] colors = new String[count];
+        for (int i = 0; i < count; i++) {
+            double t = i / (double) (count - 1);
+            int color = 0;
+            for (int shift = 16; shift >= 0; shift -= 8) {
+                int a = (start >> shift) & 0xff;
+                int b = (end >> shift) & 0xff;
+                color |= ((int) Math.round(a + (b - a) * t)) << shift;
+            }
+            colors[i] = "#" + Integer.toHexString(0x1000000 | color).substring(1);
+        }
+        return colors;
+    }
+
+    private static int parse(String color) {
+        if (color == null || !color.matches("#[0-9a-fA-F]{6}")) {
+            throw new IllegalArgumentException("Color must be given as #rrggbb: " + color);
+        }
+        return Integer.parseInt(color.substring(1), 16);
+    }
+}
@@ -4,4 +4,8 @@ public class Constants {
 
     public static final String CONTEXT_MENU_ICON_RESOURCE_KEY = "contextmenuicon_";
 
+    public static final String MARKER_ICON_RESOURCE_KEY = "markericon_";
+
+    public static final String MARKER_ICON_SPRITE_RESOURCE_KEY = "markericonsprite";
+
 }
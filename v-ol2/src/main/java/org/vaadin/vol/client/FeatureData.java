@@ -0,0 +1,31 @@
+package org.vaadin.vol.client;
+
+import elemental.json.JsonObject;
+
+import java.io.Serializable;
+
+/**
+ * Transfer object for a single lightweight feature of a vector layer. Unlike
+ * vectors, features are not components of their own, they are synchronized to
+ * the client as plain data addressed by the feature id.
+ */
+public class FeatureData implements Serializable {
+
+    public String id;
+    public GeometryType type;
+    /**
+     * Vertices encoded with {@link GeometryCodec}, precision derived from the
+     * api projection of the map
+     */
+    public String geometry;
+    public String intent;
+
+    /**
+     * Id of the custom style in {@link VectorLayerState#styles}
+     */
+    public String styleId;
+    /**
+     * The {@link Attributes} of the feature, passed to OpenLayers as such
+     */
+    public JsonObject attributes;
+}
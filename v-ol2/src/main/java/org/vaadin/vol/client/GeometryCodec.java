@@ -0,0 +1,153 @@
+package org.vaadin.vol.client;
+
+/**
+ * Compact string encoding for packed coordinate arrays, used for geometries
+ * passed between the server and the client in both directions.
+ * <p>
+ * The format follows the Google encoded polyline algorithm: each coordinate is
+ * quantized to a fixed number of decimals, stored as a delta to the previous
+ * value of the same axis, zig-zag encoded and written as variable length
+ * groups of five bits mapped to printable ASCII characters. Typical vertices
+ * take 2-6 characters per axis instead of a full JSON double.
+ * <p>
+ * Both ends derive the precision from the projection of the coordinates with
+ * {@link #getPrecision(String)}, so it doesn't need to be transferred.
+ */
+public class GeometryCodec {
+
+    /**
+     * Decimals kept for geographic projections, about 0.1 m at the equator.
+     */
+    public static final int DEGREE_PRECISION = 6;
+
+    /**
+     * Decimals kept for projections with metric units, 1 cm.
+     */
+    public static final int METRIC_PRECISION = 2;
+
+    private static final double[] EMPTY = new double[0];
+
+    private GeometryCodec() {
+    }
+
+    /**
+     * @param projection
+     *            projection code like "EPSG:4326", null means the default
+     *            EPSG:4326
+     * @return the number of decimals coordinates in given projection are
+     *         quantized to
+     */
+    public static int getPrecision(String projection) {
+        if (projection == null) {
+            return DEGREE_PRECISION;
+        }
+        String code = projection.toUpperCase();
+        if (code.equals("EPSG:4326") || code.equals("CRS:84") || code.equals("EPSG:4258")
+          || code.equals("EPSG:4269") || code.equals("EPSG:4230")) {
+            return DEGREE_PRECISION;
+        }
+        return METRIC_PRECISION;
+    }
+
+    /**
+     * @param coordinates
+     *            interleaved lon/lat pairs
+     * @param precision
+     *            number of decimals to keep
+     * @return the encoded geometry
+     */
+    public static String encode(double[] coordinates, int precision) {
+        if (coordinates == null) {
+            return "";
+        }
+        return encode(coordinates, 0, coordinates.length, precision);
+    }
+
+    /**
+     * Encodes length values of the coordinates starting from offset.
+     *
+     * @see #encode(double[], int)
+     */
+    public static String encode(double[] coordinates, int offset, int length, int precision) {
+        if (length == 0) {
+            return "";
+        }
+        double factor = Math.pow(10, precision);
+        StringBuilder sb = new StringBuilder(length * 4);
+        double previousX = 0;
+        double previousY = 0;
+        for (int i = offset; i + 1 < offset + length; i += 2) {
+            double x = quantize(coordinates[i], factor);
+            double y = quantize(coordinates[i + 1], factor);
+            encodeValue(x - previousX, sb);
+            encodeValue(y - previousY, sb);
+            previousX = x;
+            previousY = y;
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @param encoded
+     *            geometry encoded with {@link #encode(double[], int)}
+     * @param precision
+     *            the precision used to encode the geometry
+     * @return interleaved lon/lat pairs
+     */
+    public static double[] decode(String encoded, int precision) {
+        if (encoded == null || encoded.length() == 0) {
+            return EMPTY;
+        }
+        double factor = Math.pow(10, precision);
+        int length = encoded.length();
+        // each value takes at least one character
+        double[] buffer = new double[length];
+        int count = 0;
+        double x = 0;
+        double y = 0;
+        int index = 0;
+        while (index < length) {
+            double value = 0;
+            double multiplier = 1;
+            int b;
+            do {
+                b = encoded.charAt(index++) - 63;
+                value += (b & 0x1f) * multiplier;
+                multiplier *= 32;
+            } while (b >= 0x20 && index < length);
+            double delta = value % 2 != 0 ? -(value + 1) / 2 : value / 2;
+            if (count % 2 == 0) {
+                x += delta;
+                buffer[count++] = x / factor;
+            } else {
+                y += delta;
+                buffer[count++] = y / factor;
+            }
+        }
+        if (count % 2 != 0) {
+            throw new IllegalArgumentException("Encoded geometry has an odd number of values");
+        }
+        double[] coordinates = new double[count];
+        System.arraycopy(buffer, 0, coordinates, 0, count);
+        return coordinates;
+    }
+
+    /*
+     * The values are integers kept in doubles, long arithmetic is emulated in
+     * GWT compiled code. Quantized coordinates, their deltas and the zig-zag
+     * encoded deltas stay well below 2^53, so the doubles are exact.
+     */
+
+    private static double quantize(double coordinate, double factor) {
+        return Math.floor(coordinate * factor + 0.5);
+    }
+
+    private static void encodeValue(double value, StringBuilder sb) {
+        double v = value < 0 ? -2 * value - 1 : 2 * value;
+        while (v >= 0x20) {
+            sb.append((char) ((0x20 | (int) (v % 0x20)) + 63));
+            v = Math.floor(v / 0x20);
+        }
+        sb.append((char) ((int) v + 63));
+    }
+}
@@ -0,0 +1,127 @@
+package org.vaadin.vol.client;
+
+import java.io.Serializable;
+
+/**
+ * An incremental change to the vertices of a geometry: {@link #removeCount}
+ * vertices starting from {@link #index} are replaced with the vertices in
+ * {@link #geometry}. Inserting, moving, removing and appending vertices can
+ * all be expressed as a patch.
+ */
+public class GeometryPatch implements Serializable {
+
+    /**
+     * Index of the first affected vertex
+     */
+    public int index;
+
+    /**
+     * Number of vertices removed from {@link #index}, values larger than the
+     * number of remaining vertices remove all of them
+     */
+    public int removeCount;
+
+    /**
+     * Vertices inserted at {@link #index}, encoded with {@link GeometryCodec}
+     */
+    public String geometry;
+
+    public GeometryPatch() {
+    }
+
+    public GeometryPatch(int index, int removeCount, String geometry) {
+        this.index = index;
+        this.removeCount = removeCount;
+        this.geometry = geometry;
+    }
+
+    /**
+     * Applies the patch to packed coordinates.
+     *
+     * @return new coordinates, the given array is not modified
+     */
+    public double[] apply(double[] coordinates, int precision) {
+        return splice(coordinates, index, removeCount, GeometryCodec.decode(geometry, precision));
+    }
+
+    /**
+     * Applies a patch made to a ring on the client side. OpenLayers rings
+     * don't list their closing vertex, so if the given coordinates repeat the
+     * first vertex at the end, the patch is applied without it and the
+     * closing vertex is rewritten from the patched first vertex.
+     *
+     * @return new coordinates, the given array is not modified
+     */
+    public double[] applyToRing(double[] coordinates, int precision) {
+        int count = coordinates.length / 2;
+        if (count < 2 || coordinates[0] != coordinates[count * 2 - 2]
+          || coordinates[1] != coordinates[count * 2 - 1]) {
+            return apply(coordinates, precision);
+        }
+        double[] open = new double[coordinates.length - 2];
+        System.arraycopy(coordinates, 0, open, 0, open.length);
+        double[] patched = apply(open, precision);
+        if (patched.length == 0) {
+            return patched;
+        }
+        double[] closed = new double[patched.length + 2];
+        System.arraycopy(patched, 0, closed, 0, patched.length);
+        closed[patched.length] = patched[0];
+        closed[patched.length + 1] = patched[1];
+        return closed;
+    }
+
+    /**
+     * Replaces removeCount vertices starting from index with the inserted
+     * ones.
+     *
+     * @param coordinates
+     *            interleaved lon/lat pairs
+     * @param inserted
+     *            interleaved lon/lat pairs to insert
+     * @return new coordinates, the given arrays are not modified
+     */
+    public static double[] splice(double[] coordinates, int index, int removeCount, double[] inserted) {
+        int count = coordinates.length / 2;
+        if (index < 0 || index > count) {
+            throw new IndexOutOfBoundsException("Vertex index " + index + " out of bounds, vertex count " + count);
+        }
+        removeCount = Math.max(0, Math.min(removeCount, count - index));
+        double[] result = new double[coordinates.length - removeCount * 2 + inserted.length];
+        System.arraycopy(coordinates, 0, result, 0, index * 2);
+        System.arraycopy(inserted, 0, result, index * 2, inserted.length);
+        System.arraycopy(coordinates, (index + removeCount) * 2, result, index * 2 + inserted.length,
+          coordinates.length - (index + removeCount) * 2);
+        return result;
+    }
+
+    /**
+     * Creates a patch that turns the old coordinates into the new ones by
+     * replacing the range of vertices between their common prefix and suffix.
+     *
+     * @return the patch or null if the coordinates are equal
+     */
+    public static GeometryPatch diff(double[] oldCoordinates, double[] newCoordinates, int precision) {
+        int oldCount = oldCoordinates.length / 2;
+        int newCount = newCoordinates.length / 2;
+        int prefix = 0;
+        while (prefix < oldCount && prefix < newCount && sameVertex(oldCoordinates, prefix, newCoordinates, prefix)) {
+            prefix++;
+        }
+        if (prefix == oldCount && prefix == newCount) {
+            return null;
+        }
+        int suffix = 0;
+        while (suffix < oldCount - prefix && suffix < newCount - prefix
+          && sameVertex(oldCoordinates, oldCount - 1 - suffix, newCoordinates, newCount - 1 - suffix)) {
+            suffix++;
+        }
+        double[] inserted = new double[(newCount - prefix - suffix) * 2];
+        System.arraycopy(newCoordinates, prefix * 2, inserted, 0, inserted.length);
+        return new GeometryPatch(prefix, oldCount - prefix - suffix, GeometryCodec.encode(inserted, precision));
+    }
+
+    private static boolean sameVertex(double[] a, int i, double[] b, int j) {
+        return a[i * 2] == b[j * 2] && a[i * 2 + 1] == b[j * 2 + 1];
+    }
+}
@@ -0,0 +1,9 @@
+package org.vaadin.vol.client;
+
+/**
+ * Geometry types of the lightweight features a vector layer can hold, see
+ * {@link FeatureData}.
+ */
+public enum GeometryType {
+    POINT, LINE, AREA
+}
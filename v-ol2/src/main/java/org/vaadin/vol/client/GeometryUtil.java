@@ -0,0 +1,106 @@
+package org.vaadin.vol.client;
+
+import com.google.gwt.core.client.JsArray;
+
+import org.vaadin.vol.client.wrappers.Projection;
+import org.vaadin.vol.client.wrappers.geometry.Geometry;
+import org.vaadin.vol.client.wrappers.geometry.LineString;
+import org.vaadin.vol.client.wrappers.geometry.LinearRing;
+
+/**
+ * Helpers to build OpenLayers geometries from shared state.
+ */
+public class GeometryUtil {
+
+    /**
+     * Creates OpenLayers points of interleaved lon/lat pairs, transforming all
+     * of them with a single pass, see
+     * {@link Projection#transform(double[], Projection, Projection)}.
+     */
+    public static JsArray<org.vaadin.vol.client.wrappers.geometry.Point> createPoints(double[] coordinates,
+            Projection sourceProjection, Projection targetProjection) {
+        return createPoints(Projection.transform(coordinates, sourceProjection, targetProjection));
+    }
+
+    private static native JsArray<org.vaadin.vol.client.wrappers.geometry.Point> createPoints(double[] coordinates)
+    /*-{
+        var points = [];
+        for (var i = 0; i + 1 < coordinates.length; i += 2) {
+            points.push(new $wnd.OpenLayers.Geometry.Point(coordinates[i], coordinates[i + 1]));
+        }
+        return points;
+    }-*/;
+
+    public static org.vaadin.vol.client.wrappers.geometry.Point createPoint(double lon, double lat,
+            Projection sourceProjection, Projection targetProjection) {
+        return createPoints(new double[] { lon, lat }, sourceProjection, targetProjection).get(0);
+    }
+
+    /**
+     * Reads the vertices of an OpenLayers geometry into interleaved lon/lat
+     * pairs. The given points are not modified.
+     */
+    public static double[] getCoordinates(JsArray<org.vaadin.vol.client.wrappers.geometry.Point> vertices,
+            Projection sourceProjection, Projection targetProjection) {
+        double[] coordinates = new double[vertices.length() * 2];
+        readCoordinates(vertices, coordinates);
+        return Projection.transform(coordinates, sourceProjection, targetProjection);
+    }
+
+    private static native void readCoordinates(JsArray<org.vaadin.vol.client.wrappers.geometry.Point> vertices,
+            double[] coordinates)
+    /*-{
+        for (var i = 0; i < vertices.length; i++) {
+            coordinates[i * 2] = vertices[i].x;
+            coordinates[i * 2 + 1] = vertices[i].y;
+        }
+    }-*/;
+
+    public static Geometry createGeometry(GeometryType type, double[] coordinates,
+            Projection sourceProjection, Projection targetProjection) {
+        switch (type) {
+            case POINT:
+                return createPoint(coordinates[0], coordinates[1], sourceProjection, targetProjection);
+            case LINE:
+                return LineString.create(createPoints(coordinates, sourceProjection, targetProjection));
+            case AREA:
+                return LinearRing.create(createPoints(coordinates, sourceProjection, targetProjection));
+            default:
+                throw new IllegalArgumentException("Unsupported geometry type " + type);
+        }
+    }
+
+    /**
+     * Replaces removeCount vertices of the geometry starting from index with
+     * the given points, modifying the geometry in place. For point geometries
+     * the first given point is used as the new location.
+     */
+    public static native void splice(Geometry geometry, int index, int removeCount,
+            JsArray<org.vaadin.vol.client.wrappers.geometry.Point> points)
+    /*-{
+        if (geometry.CLASS_NAME == "OpenLayers.Geometry.Point") {
+            if (points.length > 0) {
+                geometry.x = points[0].x;
+                geometry.y = points[0].y;
+                geometry.clearBounds();
+            }
+            return;
+        }
+        var components = geometry.components;
+        var ring = geometry.CLASS_NAME == "OpenLayers.Geometry.LinearRing";
+        if (ring && components.length > 1) {
+            // drop the closing point, it is the first one
+            components.pop();
+        }
+        var args = [index, removeCount];
+        for (var i = 0; i < points.length; i++) {
+            points[i].parent = geometry;
+            args.push(points[i]);
+        }
+        Array.prototype.splice.apply(components, args);
+        if (ring && components.length > 0) {
+            components.push(components[0]);
+        }
+        geometry.clearBounds();
+    }-*/;
+}
@@ -0,0 +1,25 @@
+package org.vaadin.vol.client;
+
+import java.io.Serializable;
+
+/**
+ * Incremental loading settings of a layer, shared by the vector layer and the
+ * well known text layer.
+ */
+@SuppressWarnings("serial")
+public class IncrementalLoadingState implements Serializable {
+
+    /**
+     * True to add the features to the map in chunks, spending at most
+     * {@link #timeBudget} milliseconds at a time
+     */
+    public boolean enabled;
+
+    public int timeBudget = 20;
+
+    /**
+     * True if the server has listeners to be notified when all features have
+     * been added
+     */
+    public boolean reportLoaded;
+}
@@ -0,0 +1,48 @@
+package org.vaadin.vol.client;
+
+import com.google.gwt.core.client.JavaScriptObject;
+import com.google.gwt.core.client.JsArrayString;
+
+import elemental.json.JsonValue;
+
+/**
+ * Helpers to pass JSON values of shared state to OpenLayers.
+ */
+public class JsonUtil {
+
+    /**
+     * @return the JSON value as a JavaScript object, the value itself in
+     *         compiled code
+     */
+    public static native JavaScriptObject toJavaScriptObject(JsonValue value)
+    /*-{
+        return value;
+    }-*/;
+
+    /**
+     * Copies the values of a row of column-wise attribute values to the
+     * target object, skipping null values.
+     *
+     * @param columns
+     *            an array of value arrays, one per name
+     */
+    public static native void putColumnValues(JavaScriptObject target, JsArrayString names, JsonValue columns,
+      int row)
+    /*-{
+        for (var i = 0; i < names.length; i++) {
+            var value = columns[i][row];
+            if (value !== null && value !== undefined) {
+                target[names[i]] = value;
+            }
+        }
+    }-*/;
+
+    /**
+     * @return a shallow copy of the JSON object, which can be modified without
+     *         affecting the state
+     */
+    public static native JavaScriptObject copy(JsonValue value)
+    /*-{
+        return $wnd.OpenLayers.Util.extend({}, value);
+    }-*/;
+}
@@ -4,6 +4,7 @@ import com.google.gwt.core.client.JsArray;
 import com.google.gwt.dom.client.EventTarget;
 import com.google.gwt.event.dom.client.ContextMenuEvent;
 import com.google.gwt.event.dom.client.ContextMenuHandler;
+import com.google.gwt.event.shared.HandlerRegistration;
 import com.vaadin.client.MouseEventDetailsBuilder;
 import com.vaadin.client.communication.RpcProxy;
 import com.vaadin.client.communication.StateChangeEvent;
@@ -14,6 +15,7 @@ import com.vaadin.shared.MouseEventDetails;
 import com.vaadin.shared.ui.Connect;
 
 import org.vaadin.vol.Marker;
+import org.vaadin.vol.client.ui.MarkerIconRegistry;
 import org.vaadin.vol.client.ui.VMarker;
 import org.vaadin.vol.client.wrappers.GwtOlHandler;
 import org.vaadin.vol.client.wrappers.LonLat;
@@ -27,6 +29,10 @@ public class MarkerConnector extends AbstractComponentConnector {
     private final MarkerServerRpc markerServerRpc = RpcProxy.create(MarkerServerRpc.class, this);
 
     private boolean rightMouseButtonDown = false;
+    // the markers the handlers have been registered to
+    private org.vaadin.vol.client.wrappers.Marker clickHandlerMarker;
+    private org.vaadin.vol.client.wrappers.Marker rightMouseButtonHandlerMarker;
+    private HandlerRegistration contextMenuHandlerRegistration;
 
     @Override
     public VMarker getWidget() {
@@ -41,11 +47,39 @@ public class MarkerConnector extends AbstractComponentConnector {
     @Override
     public void onStateChanged(StateChangeEvent stateChangeEvent) {
         super.onStateChanged(stateChangeEvent);
+        updateMarker();
+    }
 
-        Icon icon = getIcon();
-        getWidget().updateFromStateChange(getState(), icon);
-        if (hasEventListener(EventId.CLICK_EVENT_IDENTIFIER)) {
-            getWidget().getMarker().addClickHandler(new GwtOlHandler() {
+    /**
+     * Updates the marker from the state and the icons of the layer.
+     */
+    void updateMarker() {
+        String iconName = getState().iconName;
+        String iconUrl = null;
+        MarkerIconRegistry registry = null;
+        if (iconName != null && getParent() instanceof MarkerLayerConnector) {
+            registry = ((MarkerLayerConnector) getParent()).getIconRegistry();
+            // null while the sprite sheet is loading, the layer updates the
+            // markers when it is ready
+            iconUrl = registry.getUrl(iconName);
+        }
+        if (iconUrl != null) {
+            getWidget().updateFromStateChange(getState(), iconUrl, registry.getIcon(iconName));
+        } else {
+            Icon icon = getIcon();
+            getWidget().updateFromStateChange(getState(), icon);
+        }
+        // the marker is normally kept over state changes, handlers are
+        // registered again only if it has been recreated
+        org.vaadin.vol.client.wrappers.Marker marker = getWidget().getMarker();
+        if (isEventsDelegated()) {
+            // the layer handles the events of all of its markers
+            marker.setMarkerId(getConnectorId());
+            return;
+        }
+        if (hasEventListener(EventId.CLICK_EVENT_IDENTIFIER) && clickHandlerMarker != marker) {
+            clickHandlerMarker = marker;
+            marker.addClickHandler(new GwtOlHandler() {
                 public void onEvent(JsArray arguments) {
                     markerServerRpc.markerClicked();
                 }
@@ -53,35 +87,45 @@ public class MarkerConnector extends AbstractComponentConnector {
         }
 
         if (hasEventListener(EventId.CONTEXT_CLICK)) {
-            getWidget().getMarker().addRightMouseButtonDownHandler(new GwtOlHandler() {
-                @Override
-                public void onEvent(JsArray arguments) {
-                    rightMouseButtonDown = true;
-                }
-            });
-
-            getWidget().addDomHandler(new ContextMenuHandler() {
-                @Override
-                public void onContextMenu(ContextMenuEvent event) {
-                    if (!rightMouseButtonDown) {
-                        return;
+            if (rightMouseButtonHandlerMarker != marker) {
+                rightMouseButtonHandlerMarker = marker;
+                marker.addRightMouseButtonDownHandler(new GwtOlHandler() {
+                    @Override
+                    public void onEvent(JsArray arguments) {
+                        rightMouseButtonDown = true;
                     }
-                    rightMouseButtonDown = false;
+                });
+            }
 
-                    final MouseEventDetails mouseEventDetails = MouseEventDetailsBuilder.buildMouseEventDetails(
-                            event.getNativeEvent(), getWidget()
-                                    .getElement());
+            if (contextMenuHandlerRegistration == null) {
+                contextMenuHandlerRegistration = getWidget().addDomHandler(new ContextMenuHandler() {
+                    @Override
+                    public void onContextMenu(ContextMenuEvent event) {
+                        if (!rightMouseButtonDown) {
+                            return;
+                        }
+                        rightMouseButtonDown = false;
 
-                    event.preventDefault();
-                    event.stopPropagation();
-                    sendContextClickEvent(mouseEventDetails, event
-                            .getNativeEvent().getEventTarget());
+                        final MouseEventDetails mouseEventDetails = MouseEventDetailsBuilder.buildMouseEventDetails(
+                                event.getNativeEvent(), getWidget()
+                                        .getElement());
 
-                }
-            }, ContextMenuEvent.getType());
+                        event.preventDefault();
+                        event.stopPropagation();
+                        sendContextClickEvent(mouseEventDetails, event
+                                .getNativeEvent().getEventTarget());
+
+                    }
+                }, ContextMenuEvent.getType());
+            }
         }
     }
 
+    private boolean isEventsDelegated() {
+        return getParent() instanceof MarkerLayerConnector
+          && ((MarkerLayerConnector) getParent()).isEventsDelegated();
+    }
+
     @Override
     protected void sendContextClickEvent(MouseEventDetails details, EventTarget eventTarget) {
         Map map = MapUtil.getMap(getWidget().getParent());
@@ -0,0 +1,38 @@
+package org.vaadin.vol.client;
+
+import java.io.Serializable;
+
+/**
+ * An icon in the icon registry of a marker layer, see
+ * {@link MarkerLayerState#icons}. The image is the resource
+ * {@link Constants#MARKER_ICON_RESOURCE_KEY} + name of the layer or, if
+ * packed, a part of the sprite sheet
+ * {@link Constants#MARKER_ICON_SPRITE_RESOURCE_KEY}.
+ */
+public class MarkerIcon implements Serializable {
+
+    public int width;
+    public int height;
+    public int xOffset = Integer.MIN_VALUE; // Integer.MIN_VALUE means ignore explicit offset
+    public int yOffset = Integer.MIN_VALUE; // Integer.MIN_VALUE means ignore explicit offset
+
+    /**
+     * True if the image is in the sprite sheet, at the given location and
+     * with its original size
+     */
+    public boolean packed;
+    public int spriteX;
+    public int spriteY;
+    public int spriteWidth;
+    public int spriteHeight;
+
+    public MarkerIcon() {
+    }
+
+    public MarkerIcon(int width, int height, int xOffset, int yOffset) {
+        this.width = width;
+        this.height = height;
+        this.xOffset = xOffset;
+        this.yOffset = yOffset;
+    }
+}
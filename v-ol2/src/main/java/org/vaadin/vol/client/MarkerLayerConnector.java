@@ -1,18 +1,48 @@
 package org.vaadin.vol.client;
 
+import com.google.gwt.core.client.JsArray;
+import com.google.gwt.dom.client.NativeEvent;
+import com.google.gwt.user.client.Command;
+import com.google.gwt.user.client.ui.Widget;
 import com.vaadin.client.ComponentConnector;
 import com.vaadin.client.ConnectorHierarchyChangeEvent;
+import com.vaadin.client.MouseEventDetailsBuilder;
 import com.vaadin.client.Profiler;
+import com.vaadin.client.communication.RpcProxy;
 import com.vaadin.client.communication.StateChangeEvent;
 import com.vaadin.client.ui.AbstractComponentContainerConnector;
+import com.vaadin.shared.MouseEventDetails;
 import com.vaadin.shared.ui.Connect;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+
 import org.vaadin.vol.MarkerLayer;
+import org.vaadin.vol.client.ui.MarkerIconRegistry;
+import org.vaadin.vol.client.ui.VMarker;
 import org.vaadin.vol.client.ui.VMarkerLayer;
+import org.vaadin.vol.client.wrappers.GwtOlHandler;
+import org.vaadin.vol.client.wrappers.JsObject;
+import org.vaadin.vol.client.wrappers.LonLat;
+import org.vaadin.vol.client.wrappers.Map;
+import org.vaadin.vol.client.wrappers.Pixel;
+import org.vaadin.vol.client.wrappers.Projection;
 
 @Connect(MarkerLayer.class)
 public class MarkerLayerConnector extends AbstractComponentContainerConnector {
 
+    private final MarkerLayerServerRpc markerLayerServerRpc = RpcProxy.create(MarkerLayerServerRpc.class, this);
+
+    private boolean delegatedHandlersRegistered;
+
+    private final MarkerIconRegistry iconRegistry = new MarkerIconRegistry(new Command() {
+        public void execute() {
+            updateMarkersWithRegisteredIcons();
+        }
+    });
+
     @Override
     public VMarkerLayer getWidget() {
         return (VMarkerLayer)super.getWidget();
@@ -21,16 +51,102 @@ public class MarkerLayerConnector extends AbstractComponentContainerConnector {
     @Override
     public void onStateChanged(StateChangeEvent stateChangeEvent) {
         super.onStateChanged(stateChangeEvent);
+        getWidget().setCanvasRendering(getState().canvasRendering);
         this.getWidget().attachLayerToMap();
+
+        if (stateChangeEvent.hasPropertyChanged("icons") || stateChangeEvent.hasPropertyChanged("resources")) {
+            HashMap<String, String> imageUrls = new HashMap<String, String>();
+            for (String name : getState().icons.keySet()) {
+                imageUrls.put(name, getResourceUrl(Constants.MARKER_ICON_RESOURCE_KEY + name));
+            }
+            iconRegistry.update(getState().icons, imageUrls,
+              getResourceUrl(Constants.MARKER_ICON_SPRITE_RESOURCE_KEY));
+            // markers may have been updated before the layer
+            updateMarkersWithRegisteredIcons();
+        }
+
+        if (isEventsDelegated() && !delegatedHandlersRegistered) {
+            delegatedHandlersRegistered = true;
+            for (ComponentConnector child : getChildComponents()) {
+                VMarker marker = (VMarker) child.getWidget();
+                if (marker.getMarker() != null) {
+                    marker.getMarker().setMarkerId(child.getConnectorId());
+                }
+            }
+            getWidget().addMarkerEventHandler("click", new GwtOlHandler() {
+                @SuppressWarnings("rawtypes")
+                public void onEvent(JsArray arguments) {
+                    JsObject markerEvent = arguments.get(0).cast();
+                    NativeEvent event = markerEvent.getFieldByName("event").cast();
+                    markerLayerServerRpc.markerClicked(markerEvent.getPropertyAsString("markerId"),
+                      getMouseEventDetails(event));
+                }
+            });
+            getWidget().addMarkerEventHandler("contextmenu", new GwtOlHandler() {
+                @SuppressWarnings("rawtypes")
+                public void onEvent(JsArray arguments) {
+                    JsObject markerEvent = arguments.get(0).cast();
+                    NativeEvent event = markerEvent.getFieldByName("event").cast();
+                    MouseEventDetails details = getMouseEventDetails(event);
+                    markerLayerServerRpc.markerContextClicked(markerEvent.getPropertyAsString("markerId"), details,
+                      getPoint(details));
+                }
+            });
+        }
+    }
+
+    /**
+     * @return the icons the markers of this layer may refer to by name
+     */
+    MarkerIconRegistry getIconRegistry() {
+        return iconRegistry;
+    }
+
+    private void updateMarkersWithRegisteredIcons() {
+        for (ComponentConnector child : getChildComponents()) {
+            if (child instanceof MarkerConnector && ((MarkerConnector) child).getState().iconName != null) {
+                ((MarkerConnector) child).updateMarker();
+            }
+        }
+    }
+
+    /**
+     * @return true if the layer handles the events of its markers
+     */
+    boolean isEventsDelegated() {
+        return getState().delegatedEvents || getState().canvasRendering;
+    }
+
+    /**
+     * @return the details of the event, relative to the map
+     */
+    private MouseEventDetails getMouseEventDetails(NativeEvent event) {
+        return MouseEventDetailsBuilder.buildMouseEventDetails(event, MapUtil.getMap(getWidget()).getElement());
+    }
+
+    /**
+     * @return the location of the event in the api projection of the map
+     */
+    private Point getPoint(MouseEventDetails details) {
+        Map map = MapUtil.getMap(getWidget());
+        LonLat lonLat = map.getLonLatFromPixel(Pixel.create(details.getRelativeX(), details.getRelativeY()));
+        if (map.getBaseLayer() != null) {
+            Projection projection = map.getBaseLayer().getProjection();
+            lonLat.transform(projection, MapUtil.getVMap(getWidget()).getProjection());
+        }
+        return new Point(lonLat.getLon(), lonLat.getLat());
     }
 
     @Override
     public void onConnectorHierarchyChange(ConnectorHierarchyChangeEvent event) {
         Profiler.enter("MarkerLayerConnector.onConnectorHierarchyChange");
+        // the children are added to the layer before the state change event
+        getWidget().setCanvasRendering(getState().canvasRendering);
         Profiler.enter("MarkerLayerConnector.onConnectorHierarchyChange add children");
 
+        HashSet<ComponentConnector> oldChildren = new HashSet<ComponentConnector>(event.getOldChildren());
         for (ComponentConnector child : getChildComponents()) {
-            if (!event.getOldChildren().contains(child)) {
+            if (!oldChildren.contains(child)) {
                 getWidget().add(child.getWidget());
             }
         }
@@ -38,13 +154,15 @@ public class MarkerLayerConnector extends AbstractComponentContainerConnector {
 
         // Detach old child widgets and possibly their caption
         Profiler.enter("MarkerLayerConnector.onConnectorHierarchyChange remove old children");
+        List<Widget> removed = new ArrayList<Widget>();
         for (ComponentConnector child : event.getOldChildren()) {
-            if (child.getParent() == this) {
+            if (child.getParent() == this || child.getWidget().getParent() != getWidget()) {
                 // Skip current children
                 continue;
             }
-            getWidget().remove(child.getWidget());
+            removed.add(child.getWidget());
         }
+        getWidget().removeMarkers(removed);
         Profiler.leave("MarkerLayerConnector.onConnectorHierarchyChange remove old children");
         Profiler.leave("MarkerLayerConnector.onConnectorHierarchyChange");
     }
@@ -0,0 +1,16 @@
+package org.vaadin.vol.client;
+
+import com.vaadin.shared.MouseEventDetails;
+import com.vaadin.shared.communication.ServerRpc;
+
+/**
+ * Marker events delegated to the layer, see
+ * {@link MarkerLayerState#delegatedEvents}. Markers are identified with their
+ * connector id.
+ */
+public interface MarkerLayerServerRpc extends ServerRpc {
+
+    void markerClicked(String markerId, MouseEventDetails details);
+
+    void markerContextClicked(String markerId, MouseEventDetails details, Point point);
+}
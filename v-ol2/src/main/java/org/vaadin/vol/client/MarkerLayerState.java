@@ -3,8 +3,25 @@ package org.vaadin.vol.client;
 import com.vaadin.shared.AbstractComponentState;
 import com.vaadin.shared.annotations.DelegateToWidget;
 
+import java.util.HashMap;
+import java.util.Map;
+
 public class MarkerLayerState extends AbstractComponentState {
 
     @DelegateToWidget
     public String displayName = "Markers";
+    /**
+     * True if the layer handles the events of all of its markers with one
+     * handler and {@link MarkerLayerServerRpc}, instead of each marker.
+     */
+    public boolean delegatedEvents;
+    /**
+     * True if the markers are drawn as point features on a Canvas rendered
+     * vector layer. Implies {@link #delegatedEvents}.
+     */
+    public boolean canvasRendering;
+    /**
+     * The icons markers refer to with {@link MarkerState#iconName}
+     */
+    public Map<String, MarkerIcon> icons = new HashMap<String, MarkerIcon>();
 }
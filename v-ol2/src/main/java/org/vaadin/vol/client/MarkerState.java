@@ -11,4 +11,9 @@ public class MarkerState extends AbstractComponentState {
     public int iconHeight;
     public int iconXOffset = Integer.MIN_VALUE; // Integer.MIN_VALUE means ignore explicit offset
     public int iconYOffset = Integer.MIN_VALUE; // Integer.MIN_VALUE means ignore explicit offset
+    /**
+     * Name of an icon in {@link MarkerLayerState#icons}, used instead of the
+     * icon of the marker
+     */
+    public String iconName;
 }
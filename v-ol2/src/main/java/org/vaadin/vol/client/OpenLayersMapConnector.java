@@ -155,10 +155,17 @@ public class OpenLayersMapConnector extends AbstractComponentContainerConnector
                           new Point(extent.getLeft(), extent.getBottom()),
                           new Point(extent.getRight(), extent.getTop())
                         );
-                        openLayersMapServerRpc.extentChanged(b, zoom);
+                        int width = map.getOffsetWidth();
+                        double resolution = width > 0 ? (extent.getRight() - extent.getLeft()) / width : 0;
+                        openLayersMapServerRpc.extentChanged(b, zoom, resolution);
                     }
                 };
                 getWidget().getMap().registerEventHandler("moveend", extentChangeListener);
+                if (initialized) {
+                    // the initial moveend has already passed, report the
+                    // current extent to the new listener
+                    extentChangeListener.onEvent(null);
+                }
             }
         }
 
@@ -5,7 +5,11 @@ import com.vaadin.shared.communication.ServerRpc;
 public interface OpenLayersMapServerRpc extends ServerRpc {
 
     void mapClicked(PointInformation pointInformation);
-    void extentChanged(Bounds bounds, int zoom);
+    /**
+     * @param resolution
+     *            the size of a screen pixel in the units of the api projection
+     */
+    void extentChanged(Bounds bounds, int zoom, double resolution);
     void baseLayerChanged(String connectorId);
     // for older Action based context menu
     void contextMenuClicked(String key, Point point);
@@ -0,0 +1,21 @@
+package org.vaadin.vol.client;
+
+import com.vaadin.shared.communication.ClientRpc;
+
+/**
+ * The points are passed encoded with {@link GeometryCodec}. The coordinates
+ * use the precision of their projection, the colors (0xRRGGBB) and sizes are
+ * encoded as pairs too, padded with a value when the number of points is odd.
+ */
+public interface PointCloudClientRpc extends ClientRpc {
+
+    /**
+     * @param colors
+     *            the colors of the points with precision 0, null for the
+     *            color of the layer
+     * @param sizes
+     *            the sizes of the points with precision 1, null for the size
+     *            of the layer
+     */
+    void setPoints(String coordinates, int precision, String colors, String sizes);
+}
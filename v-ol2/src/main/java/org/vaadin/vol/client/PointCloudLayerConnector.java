@@ -0,0 +1,77 @@
+package org.vaadin.vol.client;
+
+import com.google.gwt.core.client.JavaScriptObject;
+import com.google.gwt.core.client.JsArray;
+import com.vaadin.client.communication.RpcProxy;
+import com.vaadin.client.communication.StateChangeEvent;
+import com.vaadin.shared.ui.Connect;
+
+import org.vaadin.vol.PointCloudLayer;
+import org.vaadin.vol.client.ui.VPointCloudLayer;
+import org.vaadin.vol.client.wrappers.GwtOlHandler;
+import org.vaadin.vol.client.wrappers.JsObject;
+import org.vaadin.vol.client.wrappers.Map;
+import org.vaadin.vol.client.wrappers.Pixel;
+
+@Connect(PointCloudLayer.class)
+public class PointCloudLayerConnector extends LayerBaseConnector {
+
+    private final PointCloudServerRpc pointCloudServerRpc = RpcProxy.create(PointCloudServerRpc.class, this);
+
+    // the map the click listener is registered to
+    private Map clickMap;
+    private JavaScriptObject clickListener;
+
+    @Override
+    protected void init() {
+        super.init();
+        registerRpc(PointCloudClientRpc.class, new PointCloudClientRpc() {
+            public void setPoints(String coordinates, int precision, String colors, String sizes) {
+                getWidget().setPoints(GeometryCodec.decode(coordinates, precision),
+                  colors != null ? GeometryCodec.decode(colors, 0) : null,
+                  sizes != null ? GeometryCodec.decode(sizes, 1) : null);
+            }
+        });
+    }
+
+    @Override
+    public VPointCloudLayer getWidget() {
+        return (VPointCloudLayer)super.getWidget();
+    }
+
+    @Override
+    public PointCloudLayerState getState() {
+        return (PointCloudLayerState)super.getState();
+    }
+
+    @Override
+    public void onStateChanged(StateChangeEvent stateChangeEvent) {
+        super.onStateChanged(stateChangeEvent);
+
+        if (hasEventListener("pclick") && clickListener == null) {
+            GwtOlHandler clickHandler = new GwtOlHandler() {
+                @SuppressWarnings("rawtypes")
+                public void onEvent(JsArray arguments) {
+                    JsObject event = arguments.get(0).cast();
+                    Pixel pixel = event.getFieldByName("xy").cast();
+                    int index = getWidget().pick(pixel.getX(), pixel.getY());
+                    if (index >= 0) {
+                        pointCloudServerRpc.pointClicked(index);
+                    }
+                }
+            };
+            clickMap = getWidget().getMap();
+            clickListener = clickMap.registerEventHandler("click", clickHandler);
+        }
+    }
+
+    @Override
+    public void onUnregister() {
+        if (clickListener != null) {
+            clickMap.unregisterEventHandler("click", clickListener);
+            clickMap = null;
+            clickListener = null;
+        }
+        super.onUnregister();
+    }
+}
@@ -0,0 +1,13 @@
+package org.vaadin.vol.client;
+
+import com.vaadin.shared.annotations.DelegateToWidget;
+
+public class PointCloudLayerState extends LayerBaseState {
+
+    @DelegateToWidget
+    public String pointColor = "#ee9900";
+    @DelegateToWidget
+    public double pointSize = 2;
+    @DelegateToWidget
+    public int pickTolerance = 4;
+}
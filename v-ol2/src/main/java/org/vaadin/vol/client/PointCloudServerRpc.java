@@ -0,0 +1,8 @@
+package org.vaadin.vol.client;
+
+import com.vaadin.shared.communication.ServerRpc;
+
+public interface PointCloudServerRpc extends ServerRpc {
+
+    void pointClicked(int index);
+}
@@ -0,0 +1,35 @@
+package org.vaadin.vol.client;
+
+/**
+ * OpenLayers renderers a vector layer can draw its features with. SVG is the
+ * OpenLayers default, Canvas draws large numbers of features considerably
+ * faster and VML is for old versions of Internet Explorer.
+ */
+public enum Renderer {
+    SVG("SVG"), CANVAS("Canvas"), VML("VML");
+
+    private final String className;
+
+    private Renderer(String className) {
+        this.className = className;
+    }
+
+    /**
+     * @return the name of the renderer class in OpenLayers.Renderer
+     */
+    public String getClassName() {
+        return className;
+    }
+
+    /**
+     * @return the renderer with the given class name, null if none
+     */
+    public static Renderer forClassName(String className) {
+        for (Renderer renderer : values()) {
+            if (renderer.className.equals(className)) {
+                return renderer;
+            }
+        }
+        return null;
+    }
+}
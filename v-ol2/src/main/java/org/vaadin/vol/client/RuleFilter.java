@@ -0,0 +1,143 @@
+package org.vaadin.vol.client;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A filter on feature attributes used by {@link StyleRule}s, compiled to an
+ * OpenLayers.Filter.Comparison or OpenLayers.Filter.Logical on the client.
+ * Filters are created with the static factory methods.
+ */
+@SuppressWarnings("serial")
+public class RuleFilter implements Serializable {
+
+    // OpenLayers filter types
+    private static final String EQUAL_TO = "==";
+    private static final String NOT_EQUAL_TO = "!=";
+    private static final String LESS_THAN = "<";
+    private static final String GREATER_THAN = ">";
+    private static final String LESS_THAN_OR_EQUAL_TO = "<=";
+    private static final String GREATER_THAN_OR_EQUAL_TO = ">=";
+    private static final String BETWEEN = "..";
+    private static final String LIKE = "~";
+    private static final String IS_NULL = "NULL";
+    private static final String AND = "&&";
+    private static final String OR = "||";
+    private static final String NOT = "!";
+
+    private String type;
+    private String property;
+    private Object value;
+    private Object lowerBoundary;
+    private Object upperBoundary;
+    private List<RuleFilter> filters;
+
+    private RuleFilter(String type) {
+        this.type = type;
+    }
+
+    private static RuleFilter comparison(String type, String property, Object value) {
+        if (property == null) {
+            throw new IllegalArgumentException("Filter property must not be null");
+        }
+        RuleFilter filter = new RuleFilter(type);
+        filter.property = property;
+        filter.value = value;
+        return filter;
+    }
+
+    private static RuleFilter logical(String type, RuleFilter... filters) {
+        if (filters.length == 0) {
+            throw new IllegalArgumentException("Logical filter needs at least one filter");
+        }
+        RuleFilter filter = new RuleFilter(type);
+        filter.filters = Arrays.asList(filters);
+        return filter;
+    }
+
+    public static RuleFilter equalTo(String property, Object value) {
+        return comparison(EQUAL_TO, property, value);
+    }
+
+    public static RuleFilter notEqualTo(String property, Object value) {
+        return comparison(NOT_EQUAL_TO, property, value);
+    }
+
+    public static RuleFilter lessThan(String property, Number value) {
+        return comparison(LESS_THAN, property, value);
+    }
+
+    public static RuleFilter lessThanOrEqualTo(String property, Number value) {
+        return comparison(LESS_THAN_OR_EQUAL_TO, property, value);
+    }
+
+    public static RuleFilter greaterThan(String property, Number value) {
+        return comparison(GREATER_THAN, property, value);
+    }
+
+    public static RuleFilter greaterThanOrEqualTo(String property, Number value) {
+        return comparison(GREATER_THAN_OR_EQUAL_TO, property, value);
+    }
+
+    /**
+     * @return a filter matching values from lower to upper, both inclusive
+     */
+    public static RuleFilter between(String property, Number lower, Number upper) {
+        RuleFilter filter = comparison(BETWEEN, property, null);
+        filter.lowerBoundary = lower;
+        filter.upperBoundary = upper;
+        return filter;
+    }
+
+    /**
+     * @param pattern
+     *            the pattern the whole value must match, case insensitively.
+     *            '*' matches any characters, '.' a single character and all
+     *            other characters themselves
+     */
+    public static RuleFilter like(String property, String pattern) {
+        if (pattern == null) {
+            throw new IllegalArgumentException("Pattern must not be null");
+        }
+        return comparison(LIKE, property, toRegex(pattern));
+    }
+
+    /**
+     * OpenLayers evaluates a like filter by testing its value as an unanchored
+     * regular expression, so the pattern is converted to an anchored one.
+     */
+    static String toRegex(String pattern) {
+        StringBuilder regex = new StringBuilder("^");
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c == '*') {
+                regex.append(".*");
+            } else if (c == '.') {
+                regex.append('.');
+            } else {
+                if ("\\^$|?+()[]{}/".indexOf(c) >= 0) {
+                    regex.append('\\');
+                }
+                regex.append(c);
+            }
+        }
+        return regex.append('$').toString();
+    }
+
+    public static RuleFilter isNull(String property) {
+        return comparison(IS_NULL, property, null);
+    }
+
+    public static RuleFilter and(RuleFilter... filters) {
+        return logical(AND, filters);
+    }
+
+    public static RuleFilter or(RuleFilter... filters) {
+        return logical(OR, filters);
+    }
+
+    public static RuleFilter not(RuleFilter filter) {
+        return logical(NOT, filter);
+    }
+}
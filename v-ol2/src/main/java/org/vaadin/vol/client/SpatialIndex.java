@@ -0,0 +1,380 @@
+package org.vaadin.vol.client;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * An R-tree of items and their bounding boxes, used to find the items that
+ * intersect a given area without testing all of them. Inserting, removing and
+ * querying take logarithmic time on average.
+ * <p>
+ * Each item can be in the index once, inserting it again replaces its bounding
+ * box. Items are compared with equals and hashCode.
+ * <p>
+ * The class is shared by the server and the client side.
+ */
+@SuppressWarnings("serial")
+public class SpatialIndex<T> implements Serializable {
+
+    private static final int MAX_ENTRIES = 16;
+    private static final int MIN_ENTRIES = 6;
+
+    private Node<T> root = new Node<T>(true);
+    private final HashMap<T, Entry<T>> entries = new HashMap<T, Entry<T>>();
+
+    /**
+     * Adds the item with the given bounding box to the index, replacing its
+     * previous bounding box if the item is already indexed.
+     */
+    public void insert(T item, double minX, double minY, double maxX, double maxY) {
+        remove(item);
+        Entry<T> entry = new Entry<T>(item, minX, minY, maxX, maxY);
+        entries.put(item, entry);
+        insert(entry);
+    }
+
+    /**
+     * Adds the items with the given bounding boxes to the index. The boxes
+     * are given as minX, minY, maxX and maxY of each item in turn. When the
+     * items outnumber the ones already indexed, the whole tree is rebuilt
+     * with sort-tile-recursive packing, which gives fuller nodes with less
+     * overlap, and so faster searches, than inserting the items one by one.
+     */
+    public void insertAll(List<T> items, double[] boxes) {
+        if (boxes.length != items.size() * 4) {
+            throw new IllegalArgumentException("Expected four coordinates per item");
+        }
+        if (items.size() <= entries.size()) {
+            for (int i = 0; i < items.size(); i++) {
+                insert(items.get(i), boxes[i * 4], boxes[i * 4 + 1], boxes[i * 4 + 2], boxes[i * 4 + 3]);
+            }
+            return;
+        }
+        for (int i = 0; i < items.size(); i++) {
+            T item = items.get(i);
+            entries.put(item, new Entry<T>(item, boxes[i * 4], boxes[i * 4 + 1], boxes[i * 4 + 2], boxes[i * 4 + 3]));
+        }
+        build(new ArrayList<Entry<T>>(entries.values()));
+    }
+
+    /**
+     * @return true if the item was in the index
+     */
+    public boolean remove(T item) {
+        Entry<T> entry = entries.remove(item);
+        if (entry == null) {
+            return false;
+        }
+        Node<T> leaf = entry.leaf;
+        leaf.entries.remove(entry);
+        entry.leaf = null;
+        condense(leaf);
+        return true;
+    }
+
+    public boolean contains(T item) {
+        return entries.containsKey(item);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public void clear() {
+        root = new Node<T>(true);
+        entries.clear();
+    }
+
+    /**
+     * @return the items whose bounding box intersects the given area
+     */
+    public List<T> search(double minX, double minY, double maxX, double maxY) {
+        List<T> result = new ArrayList<T>();
+        search(minX, minY, maxX, maxY, result);
+        return result;
+    }
+
+    /**
+     * Adds the items whose bounding box intersects the given area to the
+     * result.
+     */
+    public void search(double minX, double minY, double maxX, double maxY, Collection<? super T> result) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        ArrayList<Node<T>> stack = new ArrayList<Node<T>>();
+        stack.add(root);
+        while (!stack.isEmpty()) {
+            Node<T> node = stack.remove(stack.size() - 1);
+            if (node.leaf) {
+                for (Entry<T> entry : node.entries) {
+                    if (entry.intersects(minX, minY, maxX, maxY)) {
+                        result.add(entry.item);
+                    }
+                }
+            } else {
+                for (Node<T> child : node.children) {
+                    if (child.intersects(minX, minY, maxX, maxY)) {
+                        stack.add(child);
+                    }
+                }
+            }
+        }
+    }
+
+    private void insert(Entry<T> entry) {
+        Node<T> node = root;
+        while (!node.leaf) {
+            node.extend(entry);
+            node = chooseChild(node, entry);
+        }
+        node.entries.add(entry);
+        entry.leaf = node;
+        node.extend(entry);
+        while (node != null && node.size() > MAX_ENTRIES) {
+            Node<T> parent = node.parent;
+            Node<T> sibling = split(node);
+            if (parent == null) {
+                parent = new Node<T>(false);
+                parent.add(node);
+                root = parent;
+            }
+            parent.add(sibling);
+            node = parent;
+        }
+    }
+
+    /**
+     * Replaces the tree with one packed from the given entries.
+     */
+    private void build(List<Entry<T>> all) {
+        List<Node<T>> nodes = new ArrayList<Node<T>>();
+        for (List<Entry<T>> group : tile(all)) {
+            Node<T> leaf = new Node<T>(true);
+            for (Entry<T> entry : group) {
+                leaf.entries.add(entry);
+                entry.leaf = leaf;
+                leaf.extend(entry);
+            }
+            nodes.add(leaf);
+        }
+        while (nodes.size() > 1) {
+            List<Node<T>> parents = new ArrayList<Node<T>>();
+            for (List<Node<T>> group : tile(nodes)) {
+                Node<T> parent = new Node<T>(false);
+                for (Node<T> child : group) {
+                    parent.add(child);
+                }
+                parents.add(parent);
+            }
+            nodes = parents;
+        }
+        root = nodes.isEmpty() ? new Node<T>(true) : nodes.get(0);
+        root.parent = null;
+    }
+
+    /**
+     * Groups the boxes to groups of at most MAX_ENTRIES, by sorting them to
+     * vertical slices by x and each slice by y.
+     */
+    private <B extends Box> List<List<B>> tile(List<B> boxes) {
+        List<List<B>> groups = new ArrayList<List<B>>();
+        int groupCount = (boxes.size() + MAX_ENTRIES - 1) / MAX_ENTRIES;
+        int sliceSize = (int) Math.ceil(Math.sqrt(groupCount)) * MAX_ENTRIES;
+        List<B> sorted = new ArrayList<B>(boxes);
+        Collections.sort(sorted, getComparator(true));
+        for (int i = 0; i < sorted.size(); i += sliceSize) {
+            List<B> slice = new ArrayList<B>(sorted.subList(i, Math.min(i + sliceSize, sorted.size())));
+            Collections.sort(slice, getComparator(false));
+            for (int j = 0; j < slice.size(); j += MAX_ENTRIES) {
+                groups.add(new ArrayList<B>(slice.subList(j, Math.min(j + MAX_ENTRIES, slice.size()))));
+            }
+        }
+        return groups;
+    }
+
+    private static Comparator<Box> getComparator(final boolean horizontal) {
+        return new Comparator<Box>() {
+            public int compare(Box a, Box b) {
+                double ca = horizontal ? a.minX + a.maxX : a.minY + a.maxY;
+                double cb = horizontal ? b.minX + b.maxX : b.minY + b.maxY;
+                return ca < cb ? -1 : ca > cb ? 1 : 0;
+            }
+        };
+    }
+
+    private Node<T> chooseChild(Node<T> node, Box box) {
+        Node<T> best = null;
+        double bestEnlargement = Double.POSITIVE_INFINITY;
+        double bestArea = Double.POSITIVE_INFINITY;
+        for (Node<T> child : node.children) {
+            double area = child.area();
+            double enlargement = child.enlargedArea(box) - area;
+            if (enlargement < bestEnlargement || enlargement == bestEnlargement && area < bestArea) {
+                best = child;
+                bestEnlargement = enlargement;
+                bestArea = area;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Splits the node in two halves along the axis the node is longer in,
+     * keeps the first half and returns a new node with the second.
+     */
+    private Node<T> split(Node<T> node) {
+        Comparator<Box> comparator = getComparator(node.maxX - node.minX >= node.maxY - node.minY);
+        Node<T> sibling = new Node<T>(node.leaf);
+        if (node.leaf) {
+            List<Entry<T>> all = new ArrayList<Entry<T>>(node.entries);
+            Collections.sort(all, comparator);
+            node.entries.clear();
+            node.reset();
+            int half = all.size() / 2;
+            for (int i = 0; i < all.size(); i++) {
+                Entry<T> entry = all.get(i);
+                Node<T> target = i < half ? node : sibling;
+                target.entries.add(entry);
+                entry.leaf = target;
+                target.extend(entry);
+            }
+        } else {
+            List<Node<T>> all = new ArrayList<Node<T>>(node.children);
+            Collections.sort(all, comparator);
+            node.children.clear();
+            node.reset();
+            int half = all.size() / 2;
+            for (int i = 0; i < all.size(); i++) {
+                (i < half ? node : sibling).add(all.get(i));
+            }
+        }
+        return sibling;
+    }
+
+    /**
+     * Removes underfull nodes on the path from the given node to the root,
+     * reinserting their entries, and shrinks the bounding boxes on the path.
+     */
+    private void condense(Node<T> node) {
+        List<Entry<T>> orphans = new ArrayList<Entry<T>>();
+        while (node.parent != null) {
+            Node<T> parent = node.parent;
+            if (node.size() < MIN_ENTRIES) {
+                parent.children.remove(node);
+                node.parent = null;
+                collectEntries(node, orphans);
+            } else {
+                node.recalculate();
+            }
+            node = parent;
+        }
+        node.recalculate();
+        while (!root.leaf && root.children.size() == 1) {
+            root = root.children.get(0);
+            root.parent = null;
+        }
+        if (!root.leaf && root.children.isEmpty()) {
+            root = new Node<T>(true);
+        }
+        for (Entry<T> entry : orphans) {
+            insert(entry);
+        }
+    }
+
+    private void collectEntries(Node<T> node, List<Entry<T>> result) {
+        if (node.leaf) {
+            result.addAll(node.entries);
+        } else {
+            for (Node<T> child : node.children) {
+                collectEntries(child, result);
+            }
+        }
+    }
+
+    private static class Box implements Serializable {
+        double minX = Double.POSITIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+
+        boolean intersects(double minX, double minY, double maxX, double maxY) {
+            return this.minX <= maxX && this.maxX >= minX && this.minY <= maxY && this.maxY >= minY;
+        }
+
+        void extend(Box box) {
+            minX = Math.min(minX, box.minX);
+            minY = Math.min(minY, box.minY);
+            maxX = Math.max(maxX, box.maxX);
+            maxY = Math.max(maxY, box.maxY);
+        }
+
+        void reset() {
+            minX = Double.POSITIVE_INFINITY;
+            minY = Double.POSITIVE_INFINITY;
+            maxX = Double.NEGATIVE_INFINITY;
+            maxY = Double.NEGATIVE_INFINITY;
+        }
+
+        double area() {
+            return (maxX - minX) * (maxY - minY);
+        }
+
+        double enlargedArea(Box box) {
+            return (Math.max(maxX, box.maxX) - Math.min(minX, box.minX))
+              * (Math.max(maxY, box.maxY) - Math.min(minY, box.minY));
+        }
+    }
+
+    private static class Entry<T> extends Box {
+        final T item;
+        Node<T> leaf;
+
+        Entry(T item, double minX, double minY, double maxX, double maxY) {
+            this.item = item;
+            this.minX = Math.min(minX, maxX);
+            this.minY = Math.min(minY, maxY);
+            this.maxX = Math.max(minX, maxX);
+            this.maxY = Math.max(minY, maxY);
+        }
+    }
+
+    private static class Node<T> extends Box {
+        final boolean leaf;
+        Node<T> parent;
+        final List<Node<T>> children = new ArrayList<Node<T>>();
+        final List<Entry<T>> entries = new ArrayList<Entry<T>>();
+
+        Node(boolean leaf) {
+            this.leaf = leaf;
+        }
+
+        int size() {
+            return leaf ? entries.size() : children.size();
+        }
+
+        void add(Node<T> child) {
+            children.add(child);
+            child.parent = this;
+            extend(child);
+        }
+
+        void recalculate() {
+            reset();
+            if (leaf) {
+                for (Entry<T> entry : entries) {
+                    extend(entry);
+                }
+            } else {
+                for (Node<T> child : children) {
+                    extend(child);
+                }
+            }
+        }
+    }
+}
@@ -125,7 +125,7 @@ public class Style implements Serializable {
     private String contextJs;
 
     public Style() {
-        name = "Style" + String.valueOf(++idx);
+        name = "Style" + String.valueOf(nextIdx());
         init();
     }
 
@@ -134,6 +134,10 @@ public class Style implements Serializable {
         init();
     }
 
+    private static synchronized long nextIdx() {
+        return ++idx;
+    }
+
     public String getName() {
         return name;
     }
@@ -1,7 +1,11 @@
 package org.vaadin.vol.client;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * StyleMaps are collections of Styles (aka renderer intents). Styles are mapped
@@ -18,6 +22,8 @@ public class StyleMap implements Serializable {
 
     private boolean extendDefault = false;
 
+    private final HashMap<String, List<StyleRule>> rules = new HashMap<String, List<StyleRule>>();
+
     /**
      * Creates a StyleMap setting the same style for all renderer intents.
      * <p>
@@ -171,4 +177,60 @@ public class StyleMap implements Serializable {
         }
     }
 
+    /**
+     * Adds a rule to the style of the given render intent. The rules are
+     * compiled to OpenLayers.Rules on the client once per style map and
+     * evaluated there for each feature.
+     */
+    public void addRule(RenderIntent intent, StyleRule rule) {
+        List<StyleRule> intentRules = rules.get(intent.getValue());
+        if (intentRules == null) {
+            intentRules = new ArrayList<StyleRule>();
+            rules.put(intent.getValue(), intentRules);
+        }
+        intentRules.add(rule);
+    }
+
+    /**
+     * Adds rules coloring features by ranges of a numeric attribute. Features
+     * with a value from breaks[i] (inclusive) to breaks[i + 1] (exclusive, for
+     * the last range inclusive) are filled with colors[i].
+     *
+     * @param breaks
+     *            the boundaries of the ranges in ascending order
+     * @param colors
+     *            one color per range, see {@link ColorRamp}
+     */
+    public void addGraduatedRules(RenderIntent intent, String property, double[] breaks, String... colors) {
+        if (breaks.length < 2 || colors.length != breaks.length - 1) {
+            throw new IllegalArgumentException("Graduated rules need one color per range between breaks");
+        }
+        for (int i = 0; i < colors.length; i++) {
+            RuleFilter filter;
+            if (i == colors.length - 1) {
+                filter = RuleFilter.between(property, breaks[i], breaks[i + 1]);
+            } else {
+                filter = RuleFilter.and(RuleFilter.greaterThanOrEqualTo(property, breaks[i]),
+                  RuleFilter.lessThan(property, breaks[i + 1]));
+            }
+            Style symbolizer = new Style();
+            symbolizer.setFillColor(colors[i]);
+            addRule(intent, new StyleRule(filter, symbolizer));
+        }
+    }
+
+    /**
+     * Removes the rules of the given render intent.
+     */
+    public void clearRules(RenderIntent intent) {
+        rules.remove(intent.getValue());
+    }
+
+    /**
+     * @return the rules of the style map by render intent
+     */
+    public Map<String, List<StyleRule>> getRules() {
+        return Collections.unmodifiableMap(rules);
+    }
+
 }
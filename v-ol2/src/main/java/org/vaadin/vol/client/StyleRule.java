@@ -0,0 +1,84 @@
+package org.vaadin.vol.client;
+
+import java.io.Serializable;
+
+/**
+ * A rule of a {@link StyleMap} style: the symbolizer of the rule is applied on
+ * top of the style of the render intent to the features matching the filter.
+ * Rules are evaluated on the client for each feature, so thematic styling by
+ * feature attributes needs no per-feature styles.
+ *
+ * @see StyleMap#addRule(RenderIntent, StyleRule)
+ */
+@SuppressWarnings("serial")
+public class StyleRule implements Serializable {
+
+    private RuleFilter filter;
+    private Style symbolizer;
+    private boolean elseFilter;
+    private Double minScaleDenominator;
+    private Double maxScaleDenominator;
+    private Integer minZoom;
+    private Integer maxZoom;
+
+    /**
+     * @param filter
+     *            the filter features must match, null matches all features
+     * @param symbolizer
+     *            the style properties applied to the matching features
+     */
+    public StyleRule(RuleFilter filter, Style symbolizer) {
+        this.filter = filter;
+        this.symbolizer = symbolizer;
+    }
+
+    /**
+     * @return a rule applied to the features that no other rule of the style
+     *         applies to
+     */
+    public static StyleRule elseRule(Style symbolizer) {
+        StyleRule rule = new StyleRule(null, symbolizer);
+        rule.elseFilter = true;
+        return rule;
+    }
+
+    public RuleFilter getFilter() {
+        return filter;
+    }
+
+    public Style getSymbolizer() {
+        return symbolizer;
+    }
+
+    public boolean isElseRule() {
+        return elseFilter;
+    }
+
+    /**
+     * Limits the rule to the given scale range.
+     *
+     * @param minScaleDenominator
+     *            the minimum scale denominator (inclusive), null for no limit
+     * @param maxScaleDenominator
+     *            the maximum scale denominator (exclusive), null for no limit
+     */
+    public StyleRule setScaleRange(Double minScaleDenominator, Double maxScaleDenominator) {
+        this.minScaleDenominator = minScaleDenominator;
+        this.maxScaleDenominator = maxScaleDenominator;
+        return this;
+    }
+
+    /**
+     * Limits the rule to the given zoom levels of the map.
+     *
+     * @param minZoom
+     *            the minimum zoom level (inclusive), null for no limit
+     * @param maxZoom
+     *            the maximum zoom level (inclusive), null for no limit
+     */
+    public StyleRule setZoomRange(Integer minZoom, Integer maxZoom) {
+        this.minZoom = minZoom;
+        this.maxZoom = maxZoom;
+        return this;
+    }
+}
@@ -0,0 +1,15 @@
+package org.vaadin.vol.client;
+
+import com.vaadin.shared.communication.ClientRpc;
+
+import java.util.List;
+
+public interface VectorClientRpc extends ClientRpc {
+
+    /**
+     * Applies incremental changes to the geometry, in the given order. While
+     * the geometry is maintained with patches {@link VectorState#geometry} is
+     * null.
+     */
+    void patchGeometry(List<GeometryPatch> patches);
+}
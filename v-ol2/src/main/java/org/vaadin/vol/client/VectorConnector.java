@@ -1,9 +1,11 @@
 package org.vaadin.vol.client;
 
-import com.vaadin.client.Util;
 import com.vaadin.client.annotations.OnStateChange;
 import com.vaadin.client.communication.StateChangeEvent;
 import com.vaadin.client.ui.AbstractComponentConnector;
+
+import java.util.List;
+
 import org.vaadin.vol.client.ui.VAbstractVector;
 import org.vaadin.vol.client.ui.VVectorLayer;
 import org.vaadin.vol.client.wrappers.Projection;
@@ -22,18 +24,32 @@ public abstract class VectorConnector<E extends VectorState> extends AbstractCom
         return (VAbstractVector<E>)super.getWidget();
     }
 
+    @Override
+    protected void init() {
+        super.init();
+        getWidget().setConnectorId(getConnectorId());
+        registerRpc(VectorClientRpc.class, new VectorClientRpc() {
+            public void patchGeometry(List<GeometryPatch> patches) {
+                getWidget().applyPatches(patches);
+                ((VVectorLayer)getWidget().getParent()).vectorUpdated(getWidget());
+            }
+        });
+    }
+
     @Override
     public void onStateChanged(StateChangeEvent stateChangeEvent) {
         super.onStateChanged(stateChangeEvent);
 
         boolean update = getWidget().getVector() != null;
-        if (update) {
-            // temporary remove erase the vector
+        if (update && getWidget().isGeometryChanged(stateChangeEvent, getState())) {
+            // erase the rendered geometry before it is replaced, other
+            // changes are rendered by the redraw
             getWidget().getLayer().eraseFeature(getWidget().getVector());
         }
 
-        if (stateChangeEvent.hasPropertyChanged("attributesJson")) {
-            getWidget().setAttributes(Util.parse(getState().attributesJson));
+        if (stateChangeEvent.hasPropertyChanged("attributes")) {
+            getWidget().setAttributes(getState().attributes != null
+              ? JsonUtil.toJavaScriptObject(getState().attributes) : null);
         }
 
         getWidget().createOrUpdateVector(stateChangeEvent, getState());
@@ -43,14 +59,18 @@ public abstract class VectorConnector<E extends VectorState> extends AbstractCom
             getWidget().getVector().setRenderIntent(getState().intent);
         }
 
-        if (stateChangeEvent.hasPropertyChanged("styleJson")) {
-            getWidget().getVector().setStyle(Util.parse(getState().styleJson));
+        if (stateChangeEvent.hasPropertyChanged("styleId")
+          || stateChangeEvent.hasPropertyChanged("attributes")) {
+            VectorLayerConnector layer = (VectorLayerConnector) getParent();
+            getWidget().getVector().setStyle(
+              layer.getWidget().getStyle(layer.getState().styles, getState().styleId, getWidget().getVector()));
         }
 
         if (update) {
             ((VVectorLayer)getWidget().getParent()).vectorUpdated(getWidget());
         } else {
-            getWidget().getLayer().addFeature(getWidget().getVector());
+            getWidget().getVector().setConnectorId(getConnectorId());
+            ((VVectorLayer)getWidget().getParent()).vectorAdded(getWidget());
         }
     }
 
@@ -0,0 +1,23 @@
+package org.vaadin.vol.client;
+
+import com.vaadin.shared.communication.ClientRpc;
+
+import elemental.json.JsonArray;
+
+import java.util.List;
+
+public interface VectorLayerClientRpc extends ClientRpc {
+
+    /**
+     * Adds the given features to the layer, features with an already known id
+     * are updated in place.
+     *
+     * @param attributes
+     *            the values of the attributes in
+     *            {@link VectorLayerState#attributeNames}, one array per
+     *            attribute with a value or null for each feature
+     */
+    void addFeatures(List<FeatureData> features, JsonArray attributes);
+    void removeFeatures(List<String> featureIds);
+    void removeAllFeatures();
+}
@@ -1,5 +1,6 @@
 package org.vaadin.vol.client;
 
+import com.google.gwt.user.client.ui.Widget;
 import com.vaadin.client.ComponentConnector;
 import com.vaadin.client.ConnectorHierarchyChangeEvent;
 import com.vaadin.client.Profiler;
@@ -8,6 +9,12 @@ import com.vaadin.client.communication.StateChangeEvent;
 import com.vaadin.client.ui.AbstractComponentContainerConnector;
 import com.vaadin.shared.ui.Connect;
 
+import elemental.json.JsonArray;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
 import org.vaadin.vol.VectorLayer;
 import org.vaadin.vol.client.ui.VVectorLayer;
 
@@ -15,6 +22,26 @@ import org.vaadin.vol.client.ui.VVectorLayer;
 public class VectorLayerConnector extends AbstractComponentContainerConnector {
 
     private final VectorLayerServerRpc vectorLayerServerRpc = RpcProxy.create(VectorLayerServerRpc.class, this);
+    private final IncrementalLoadingServerRpc incrementalLoadingServerRpc = RpcProxy.create(
+      IncrementalLoadingServerRpc.class, this);
+
+    @Override
+    protected void init() {
+        super.init();
+        registerRpc(VectorLayerClientRpc.class, new VectorLayerClientRpc() {
+            public void addFeatures(List<FeatureData> features, JsonArray attributes) {
+                getWidget().addFeatures(features, attributes);
+            }
+
+            public void removeFeatures(List<String> featureIds) {
+                getWidget().removeFeatures(featureIds);
+            }
+
+            public void removeAllFeatures() {
+                getWidget().removeAllFeatures();
+            }
+        });
+    }
 
     @Override
     public VVectorLayer getWidget() {
@@ -24,24 +51,29 @@ public class VectorLayerConnector extends AbstractComponentContainerConnector {
     @Override
     public void onStateChanged(StateChangeEvent stateChangeEvent) {
         super.onStateChanged(stateChangeEvent);
-        this.getWidget().update(getState(), this.vectorLayerServerRpc);
+        this.getWidget().update(getState(), this.vectorLayerServerRpc, this.incrementalLoadingServerRpc);
     }
 
     @Override
     public void onConnectorHierarchyChange(ConnectorHierarchyChangeEvent event) {
         Profiler.enter("VectorLayerConnector.onConnectorHierarchyChange");
         Profiler.enter("VectorLayerConnector.onConnectorHierarchyChange add children");
+        HashSet<ComponentConnector> oldChildren = new HashSet<ComponentConnector>(event.getOldChildren());
         for (ComponentConnector child : getChildComponents()) {
-            if (child.getParent() != this) {
+            if (!oldChildren.contains(child)) {
                 getWidget().add(child.getWidget());
             }
         }
+        Profiler.leave("VectorLayerConnector.onConnectorHierarchyChange add children");
+        Profiler.enter("VectorLayerConnector.onConnectorHierarchyChange remove old children");
+        List<Widget> removed = new ArrayList<Widget>();
         for (ComponentConnector child : event.getOldChildren()) {
-            if (child.getParent() != this) {
-                getWidget().remove(child.getWidget());
+            if (child.getParent() != this && child.getWidget().getParent() == getWidget()) {
+                removed.add(child.getWidget());
             }
         }
-        Profiler.leave("VectorLayerConnector.onConnectorHierarchyChange add children");
+        getWidget().removeVectors(removed);
+        Profiler.leave("VectorLayerConnector.onConnectorHierarchyChange remove old children");
         Profiler.leave("VectorLayerConnector.onConnectorHierarchyChange");
     }
 
@@ -2,10 +2,17 @@ package org.vaadin.vol.client;
 
 import com.vaadin.shared.communication.ServerRpc;
 
+/**
+ * Geometries are passed encoded with {@link GeometryCodec}, using the
+ * precision of the api projection of the map.
+ */
 public interface VectorLayerServerRpc extends ServerRpc {
 
-    void draw(String[] vertices, VectorLayerState.DrawingMode drawingMode);
-    void modify(String[] vertices, String connectorId);
+    void draw(String geometry, VectorLayerState.DrawingMode drawingMode);
+    void modify(GeometryPatch patch, String connectorId);
     void select(String connectorId);
     void unselect(String connectorId);
+    void modifyFeature(GeometryPatch patch, String featureId);
+    void selectFeature(String featureId);
+    void unselectFeature(String featureId);
 }
@@ -3,6 +3,10 @@ package org.vaadin.vol.client;
 import com.vaadin.shared.AbstractComponentState;
 import com.vaadin.shared.Connector;
 
+import elemental.json.JsonObject;
+
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -21,11 +25,30 @@ public class VectorLayerState extends AbstractComponentState {
     }
 
     public Map<String, String> styleMap;
+    /**
+     * {@link StyleRule}s of the style map, with the render intent in the
+     * "intent" property
+     */
+    public List<JsonObject> styleRules;
     public List<String> uniqueValueRules;
     public boolean extendDefault = false;
 
+    /**
+     * Custom styles of the vectors and features as JSON by style id. Equal
+     * styles are sent only once and referenced by id.
+     */
+    public Map<String, JsonObject> styles = new HashMap<String, JsonObject>();
+
+    /**
+     * Names of the attributes declared for the features of the layer, their
+     * values are sent column-wise with the features
+     */
+    public List<String> attributeNames = new ArrayList<String>();
+
     public Connector selectedVector;
 
+    public String selectedFeature;
+
     public String displayName = "Vector layer";
 
     public List<Connector> vectors = new LinkedList<Connector>();
@@ -35,4 +58,13 @@ public class VectorLayerState extends AbstractComponentState {
     public DrawingMode drawingMode = DrawingMode.NONE;
 
     public String selectionCtrlId;             // Common SelectFeature control identifier
+
+    public IncrementalLoadingState incrementalLoading = new IncrementalLoadingState();
+
+    /**
+     * Class names of the OpenLayers renderers in order of preference, null
+     * for the OpenLayers default. Used when the layer is created.
+     */
+    public List<String> renderers;
+    public JsonObject rendererOptions;
 }
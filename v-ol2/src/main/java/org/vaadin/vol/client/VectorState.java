@@ -2,14 +2,25 @@ package org.vaadin.vol.client;
 
 import com.vaadin.shared.AbstractComponentState;
 
+import elemental.json.JsonObject;
+
 public class VectorState extends AbstractComponentState {
 
     public String projection;
-    public Point[] points;
+    /**
+     * Vertices encoded with {@link GeometryCodec}, precision derived from the
+     * projection. Null when the client side geometry has been changed with
+     * {@link GeometryPatch}es since it was last sent.
+     */
+    public String geometry = "";
     public String intent;
 
-    // Styles object as JSON
-    public String styleJson;
-    // Attributes object as JSON
-    public String attributesJson;
+    /**
+     * Id of the custom style in {@link VectorLayerState#styles}
+     */
+    public String styleId;
+    /**
+     * The {@link Attributes} of the vector, passed to OpenLayers as such
+     */
+    public JsonObject attributes;
 }
@@ -1,10 +1,12 @@
 package org.vaadin.vol.client;
 
 import com.google.gwt.core.client.JsArray;
+import com.vaadin.client.communication.RpcProxy;
 import com.vaadin.client.communication.StateChangeEvent;
 import com.vaadin.shared.ui.Connect;
 
 import org.vaadin.vol.WellKnownTextLayer;
+import org.vaadin.vol.client.ui.IncrementalFeatureLoader;
 import org.vaadin.vol.client.ui.VWellKnownTextLayer;
 import org.vaadin.vol.client.wrappers.Projection;
 import org.vaadin.vol.client.wrappers.Vector;
@@ -13,6 +15,15 @@ import org.vaadin.vol.client.wrappers.format.WKT;
 @Connect(WellKnownTextLayer.class)
 public class WellKnownTextLayerConnector extends AutoPopulatedVectorLayerConnector {
 
+    private final IncrementalLoadingServerRpc incrementalLoadingServerRpc = RpcProxy.create(IncrementalLoadingServerRpc.class, this);
+
+    private final IncrementalFeatureLoader loader = new IncrementalFeatureLoader() {
+        @Override
+        protected org.vaadin.vol.client.wrappers.layer.VectorLayer getLayer() {
+            return getWidget().getLayer();
+        }
+    };
+
     @Override
     public WellKnownTextLayerState getState() {
         return (WellKnownTextLayerState)super.getState();
@@ -29,6 +40,7 @@ public class WellKnownTextLayerConnector extends AutoPopulatedVectorLayerConnect
 
         org.vaadin.vol.client.wrappers.layer.VectorLayer lyr = this.getWidget().getLayer();
         lyr.removeAllFeatures();
+        loader.clear();
 
         if (getState().wkt == null || getState().wkt.isEmpty()) {
             return;
@@ -45,10 +57,8 @@ public class WellKnownTextLayerConnector extends AutoPopulatedVectorLayerConnect
         }
         WKT wktFormatter = WKT.create(targetProjection, sourceProjection);
         JsArray<Vector> read = wktFormatter.read(getState().wkt);
-        for(int i = 0; i < read.length(); i++) {
-            Vector vector = read.get(i);
-            lyr.addFeature(vector);
-        }
+        loader.update(getState().incrementalLoading, incrementalLoadingServerRpc);
+        loader.add(read);
 
         this.updateSelectionControl(stateChangeEvent);
     }
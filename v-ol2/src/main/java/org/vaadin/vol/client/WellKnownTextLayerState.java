@@ -3,4 +3,6 @@ package org.vaadin.vol.client;
 public class WellKnownTextLayerState extends AutoPopulatedVectorLayerState {
 
     public String wkt = "";
+
+    public IncrementalLoadingState incrementalLoading = new IncrementalLoadingState();
 }
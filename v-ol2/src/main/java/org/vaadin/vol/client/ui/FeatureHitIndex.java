@@ -0,0 +1,256 @@
+package org.vaadin.vol.client.ui;
+
+import com.google.gwt.core.client.JavaScriptObject;
+import com.google.gwt.core.client.JsArray;
+import com.google.gwt.core.client.JsArrayNumber;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.vaadin.vol.client.SpatialIndex;
+import org.vaadin.vol.client.wrappers.Bounds;
+import org.vaadin.vol.client.wrappers.GwtOlHandler;
+import org.vaadin.vol.client.wrappers.JsObject;
+import org.vaadin.vol.client.wrappers.Vector;
+import org.vaadin.vol.client.wrappers.geometry.Geometry;
+import org.vaadin.vol.client.wrappers.layer.VectorLayer;
+
+/**
+ * Finds the feature under the mouse with an R-tree of the features of a vector
+ * layer instead of asking the renderer. The Canvas renderer would otherwise
+ * draw every feature a second time to a hidden canvas for hit detection.
+ * <p>
+ * The index follows the features added to and removed from the layer and the
+ * ones modified with OpenLayers controls, features changed otherwise must be
+ * passed to {@link #update(Vector)}. Select controls shared by several layers
+ * ask each layer in turn, so they use the index too.
+ */
+class FeatureHitIndex {
+
+    // pixels around the mouse searched for lines and polygons
+    private static final int TOLERANCE = 16;
+
+    private final VectorLayer layer;
+    private final SpatialIndex<Vector> index = new SpatialIndex<Vector>();
+    // the farthest in pixels a point symbol of the indexed features is drawn
+    // from its location, the search area is widened by it
+    private double graphicReach;
+
+    FeatureHitIndex(VectorLayer layer) {
+        this.layer = layer;
+        layer.registerHandler("featuresadded", new GwtOlHandler() {
+            @SuppressWarnings("rawtypes")
+            public void onEvent(JsArray arguments) {
+                JsObject event = arguments.get(0).cast();
+                addAll(event.getFieldByName("features").<JsArray<Vector>> cast());
+            }
+        });
+        layer.registerHandler("featuresremoved", new GwtOlHandler() {
+            @SuppressWarnings("rawtypes")
+            public void onEvent(JsArray arguments) {
+                if (FeatureHitIndex.this.layer.getFeatureCount() == 0) {
+                    index.clear();
+                    graphicReach = 0;
+                    return;
+                }
+                JsObject event = arguments.get(0).cast();
+                JsArray<Vector> features = event.getFieldByName("features").cast();
+                for (int i = 0; i < features.length(); i++) {
+                    index.remove(features.get(i));
+                }
+            }
+        });
+        layer.registerHandler("featuremodified", new GwtOlHandler() {
+            @SuppressWarnings("rawtypes")
+            public void onEvent(JsArray arguments) {
+                JsObject event = arguments.get(0).cast();
+                update(event.getFieldByName("feature").<Vector> cast());
+            }
+        });
+        addAll(layer.getFeatures());
+        install(layer);
+    }
+
+    /**
+     * Updates the bounds of the feature after its geometry or style has
+     * changed.
+     */
+    void update(Vector feature) {
+        Geometry geometry = feature.getGeometry();
+        if (geometry == null || !feature.isInLayer()) {
+            index.remove(feature);
+            return;
+        }
+        Bounds bounds = geometry.getBounds();
+        index.insert(feature, bounds.getLeft(), bounds.getBottom(), bounds.getRight(), bounds.getTop());
+        graphicReach = Math.max(graphicReach, getGraphicReach(layer, feature));
+    }
+
+    /**
+     * Recomputes how far the point symbols reach after the style map of the
+     * layer has changed.
+     */
+    void stylesChanged() {
+        graphicReach = 0;
+        JsArray<Vector> features = layer.getFeatures();
+        for (int i = 0; i < features.length(); i++) {
+            graphicReach = Math.max(graphicReach, getGraphicReach(layer, features.get(i)));
+        }
+    }
+
+    private void addAll(JsArray<Vector> features) {
+        List<Vector> added = new ArrayList<Vector>(features.length());
+        double[] boxes = new double[features.length() * 4];
+        for (int i = 0; i < features.length(); i++) {
+            Vector feature = features.get(i);
+            Geometry geometry = feature.getGeometry();
+            if (geometry != null) {
+                Bounds bounds = geometry.getBounds();
+                int j = added.size() * 4;
+                boxes[j] = bounds.getLeft();
+                boxes[j + 1] = bounds.getBottom();
+                boxes[j + 2] = bounds.getRight();
+                boxes[j + 3] = bounds.getTop();
+                added.add(feature);
+                graphicReach = Math.max(graphicReach, getGraphicReach(layer, feature));
+            }
+        }
+        if (added.size() < features.length()) {
+            double[] trimmed = new double[added.size() * 4];
+            System.arraycopy(boxes, 0, trimmed, 0, trimmed.length);
+            boxes = trimmed;
+        }
+        index.insertAll(added, boxes);
+    }
+
+    /**
+     * @return the topmost feature drawn at the given pixel of the map
+     *         viewport, null if none
+     */
+    Vector getFeatureAt(int x, int y) {
+        JsArrayNumber area = getSearchArea(layer, x, y);
+        if (area == null) {
+            return null;
+        }
+        double lon = area.get(0);
+        double lat = area.get(1);
+        double resolution = area.get(2);
+        double tolerance = Math.max(TOLERANCE, graphicReach) * resolution;
+        Vector hit = null;
+        double hitDistance = Double.MAX_VALUE;
+        for (Vector candidate : index.search(lon - tolerance, lat - tolerance, lon + tolerance, lat + tolerance)) {
+            double distance = getHitDistance(layer, candidate, lon, lat, resolution, TOLERANCE);
+            if (distance >= 0 && distance <= hitDistance) {
+                hit = candidate;
+                hitDistance = distance;
+            }
+        }
+        return hit;
+    }
+
+    private native void install(VectorLayer layer)
+    /*-{
+        var index = this;
+        layer.getFeatureFromEvent = function(evt) {
+            if (!evt.xy) {
+                return null;
+            }
+            return index.@org.vaadin.vol.client.ui.FeatureHitIndex::getFeatureAt(II)(evt.xy.x, evt.xy.y);
+        };
+    }-*/;
+
+    /**
+     * @return lon and lat of the pixel and the resolution of the map, null if
+     *         the layer is not visible
+     */
+    private static native JsArrayNumber getSearchArea(VectorLayer layer, int x, int y)
+    /*-{
+        var map = layer.map;
+        if (!map || !layer.getVisibility() || !layer.inRange) {
+            return null;
+        }
+        var lonLat = map.getLonLatFromPixel(new $wnd.OpenLayers.Pixel(x, y));
+        return lonLat ? [lonLat.lon, lonLat.lat, map.getResolution()] : null;
+    }-*/;
+
+    /**
+     * @return the farthest distance in pixels from its location a point
+     *         feature is drawn at, 0 for other features
+     */
+    private static native double getGraphicReach(VectorLayer layer, Vector feature)
+    /*-{
+        var geometry = feature.geometry;
+        if (!geometry || geometry.CLASS_NAME.indexOf("Point") < 0) {
+            return 0;
+        }
+        var style = feature.style || layer.styleMap.createSymbolizer(feature, feature.renderIntent);
+        if (!style) {
+            return 0;
+        }
+        var box = @org.vaadin.vol.client.ui.FeatureHitIndex::getSymbolBox(Lcom/google/gwt/core/client/JavaScriptObject;)(style);
+        return Math.max(-box[0], -box[1], box[2], box[3]);
+    }-*/;
+
+    /**
+     * @return left, top, right and bottom of the point symbol of the style in
+     *         pixels relative to the location of the point, y growing
+     *         downwards. External graphics are drawn like the OpenLayers
+     *         renderers do, centered unless they have an offset.
+     */
+    private static native JsArrayNumber getSymbolBox(JavaScriptObject style)
+    /*-{
+        if (style.externalGraphic) {
+            var width = Number(style.graphicWidth || style.graphicHeight || 2 * (style.pointRadius || 0));
+            var height = Number(style.graphicHeight || style.graphicWidth || 2 * (style.pointRadius || 0));
+            var left = style.graphicXOffset != undefined ? Number(style.graphicXOffset) : -width / 2;
+            var top = style.graphicYOffset != undefined ? Number(style.graphicYOffset) : -height / 2;
+            return [left, top, left + width, top + height];
+        }
+        var radius = Number(style.pointRadius || 0) + (style.stroke === false ? 0 : Number(style.strokeWidth || 1) / 2);
+        return [-radius, -radius, radius, radius];
+    }-*/;
+
+    /**
+     * @return the distance in pixels from the location to the feature as
+     *         drawn with its style, -1 if the location is not on the feature.
+     *         For points it is the distance to the center of the drawn
+     *         symbol, below the tolerance. Inside a filled polygon the distance is the tolerance,
+     *         so that points and lines on top of it are preferred.
+     */
+    private static native double getHitDistance(VectorLayer layer, Vector feature, double lon, double lat,
+            double resolution, int tolerance)
+    /*-{
+        var geometry = feature.geometry;
+        var style = feature.style || layer.styleMap.createSymbolizer(feature, feature.renderIntent);
+        if (!geometry || !style || style.display == "none") {
+            return -1;
+        }
+        var point = new $wnd.OpenLayers.Geometry.Point(lon, lat);
+        var stroke = style.stroke === false ? 0 : Number(style.strokeWidth || 1) / 2;
+        var distance = geometry.distanceTo(point) / resolution;
+        var className = geometry.CLASS_NAME;
+        if (className.indexOf("Point") >= 0) {
+            var box = @org.vaadin.vol.client.ui.FeatureHitIndex::getSymbolBox(Lcom/google/gwt/core/client/JavaScriptObject;)(style);
+            var centerX = (box[0] + box[2]) / 2;
+            var centerY = (box[1] + box[3]) / 2;
+            var points = geometry.components || [geometry];
+            var hit = -1;
+            for (var i = 0; i < points.length; i++) {
+                var x = (lon - points[i].x) / resolution;
+                var y = (points[i].y - lat) / resolution;
+                if (x >= box[0] && x <= box[2] && y >= box[1] && y <= box[3]) {
+                    var d = Math.min(tolerance - 1, Math.sqrt((x - centerX) * (x - centerX) + (y - centerY) * (y - centerY)));
+                    if (hit < 0 || d < hit) {
+                        hit = d;
+                    }
+                }
+            }
+            return hit;
+        }
+        if (className.indexOf("Polygon") >= 0 && style.fill !== false && geometry.intersects(point)) {
+            return distance <= stroke ? distance : tolerance;
+        }
+        // lines are hard to hit exactly, allow a couple of extra pixels
+        return distance <= stroke + 2 ? distance : -1;
+    }-*/;
+}
@@ -0,0 +1,133 @@
+package org.vaadin.vol.client.ui;
+
+import com.google.gwt.core.client.Duration;
+import com.google.gwt.core.client.JsArray;
+import com.google.gwt.core.client.Scheduler;
+import com.google.gwt.core.client.Scheduler.RepeatingCommand;
+
+import org.vaadin.vol.client.IncrementalLoadingServerRpc;
+import org.vaadin.vol.client.IncrementalLoadingState;
+import org.vaadin.vol.client.wrappers.Vector;
+import org.vaadin.vol.client.wrappers.layer.VectorLayer;
+
+/**
+ * Adds features to an OpenLayers layer in small chunks, spending at most the
+ * time budget per browser event loop turn, so that the map stays responsive
+ * while a large number of features is loaded.
+ */
+public abstract class IncrementalFeatureLoader implements RepeatingCommand {
+
+    // features added with a single call, the time budget is checked between
+    private static final int CHUNK_SIZE = 50;
+
+    private JsArray<Vector> queue = JsArray.createArray().cast();
+    private int position;
+    private boolean running;
+    private IncrementalLoadingState state = new IncrementalLoadingState();
+    private IncrementalLoadingServerRpc rpc;
+
+    public void update(IncrementalLoadingState state, IncrementalLoadingServerRpc rpc) {
+        this.state = state;
+        this.rpc = rpc;
+    }
+
+    /**
+     * Adds the features to the layer, in chunks if incremental loading is
+     * enabled or features are still queued, to keep the order they are added
+     * in.
+     */
+    public void add(JsArray<Vector> features) {
+        if (features.length() == 0) {
+            return;
+        }
+        if (state.enabled || isLoading()) {
+            load(features);
+        } else {
+            addFeatures(features);
+        }
+    }
+
+    /**
+     * Queues the features to be added after the already queued ones.
+     */
+    public void load(JsArray<Vector> features) {
+        for (int i = 0; i < features.length(); i++) {
+            queue.push(features.get(i));
+        }
+        if (!running && queue.length() > 0) {
+            running = true;
+            // an incremental command would be run repeatedly until the
+            // scheduler's own time slice of 100 ms is used up, a fixed delay
+            // command runs once per event loop turn
+            Scheduler.get().scheduleFixedDelay(this, 0);
+        }
+    }
+
+    /**
+     * Drops the features not yet added.
+     */
+    public void clear() {
+        queue = JsArray.createArray().cast();
+        position = 0;
+    }
+
+    public boolean isLoading() {
+        return position < queue.length();
+    }
+
+    /**
+     * @return the number of features still to be added
+     */
+    public int getQueuedCount() {
+        return queue.length() - position;
+    }
+
+    public boolean execute() {
+        Duration duration = new Duration();
+        int timeBudget = Math.max(1, state.timeBudget);
+        while (position < queue.length() && duration.elapsedMillis() < timeBudget) {
+            JsArray<Vector> chunk = JsArray.createArray().cast();
+            int end = Math.min(position + CHUNK_SIZE, queue.length());
+            for (; position < end; position++) {
+                Vector vector = queue.get(position);
+                if (isLoadable(vector)) {
+                    chunk.push(vector);
+                }
+            }
+            if (chunk.length() > 0) {
+                addFeatures(chunk);
+            }
+        }
+        if (position < queue.length()) {
+            return true;
+        }
+        clear();
+        running = false;
+        loaded();
+        return false;
+    }
+
+    /**
+     * @return false if the feature has been removed or added otherwise after
+     *         it was queued
+     */
+    protected boolean isLoadable(Vector vector) {
+        return !vector.isInLayer();
+    }
+
+    protected abstract VectorLayer getLayer();
+
+    protected void addFeatures(JsArray<Vector> features) {
+        getLayer().addFeatures(features);
+    }
+
+    /**
+     * Called when all queued features have been added, reports the number of
+     * features in the layer to the server if it listens to it.
+     */
+    protected void loaded() {
+        if (rpc != null && state.reportLoaded) {
+            rpc.loaded(getLayer().getFeatureCount());
+        }
+    }
+}
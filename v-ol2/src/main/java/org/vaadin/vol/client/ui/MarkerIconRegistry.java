@@ -0,0 +1,139 @@
+package org.vaadin.vol.client.ui;
+
+import com.google.gwt.core.client.JavaScriptObject;
+import com.google.gwt.user.client.Command;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.vaadin.vol.client.MarkerIcon;
+
+/**
+ * The icons shared by the markers of a layer. Packed icons are cut from the
+ * sprite sheet, loaded once, into data URLs, so each distinct icon is fetched
+ * with a single request regardless of the number of markers using it.
+ * Browsers without canvas support use the images of the icons instead.
+ */
+public class MarkerIconRegistry {
+
+    private Map<String, MarkerIcon> icons = new HashMap<String, MarkerIcon>();
+    private Map<String, String> imageUrls = new HashMap<String, String>();
+    private final Map<String, String> urls = new HashMap<String, String>();
+    private String spriteUrl;
+    private JavaScriptObject sprite;
+    private boolean spriteLoaded;
+    private final Command loadedCommand;
+
+    /**
+     * @param loadedCommand
+     *            executed when the sprite sheet has been loaded and the
+     *            packed icons became available
+     */
+    public MarkerIconRegistry(Command loadedCommand) {
+        this.loadedCommand = loadedCommand;
+    }
+
+    /**
+     * Replaces the icons.
+     *
+     * @param imageUrls
+     *            the images of the icons by name
+     * @param spriteUrl
+     *            the sprite sheet the packed icons are in, null if none
+     */
+    public void update(Map<String, MarkerIcon> icons, Map<String, String> imageUrls, String spriteUrl) {
+        this.icons = icons;
+        this.imageUrls = imageUrls;
+        urls.clear();
+        if (spriteUrl == null || !isCanvasSupported()) {
+            this.spriteUrl = null;
+            sprite = null;
+            return;
+        }
+        if (!spriteUrl.equals(this.spriteUrl)) {
+            this.spriteUrl = spriteUrl;
+            spriteLoaded = false;
+            sprite = loadSprite(spriteUrl);
+        } else if (spriteLoaded) {
+            cutIcons();
+        }
+    }
+
+    public MarkerIcon getIcon(String name) {
+        return icons.get(name);
+    }
+
+    /**
+     * @return the URL of the image of the icon, null if the icon is unknown
+     *         or the sprite sheet it is in is still being loaded
+     */
+    public String getUrl(String name) {
+        MarkerIcon icon = icons.get(name);
+        if (icon == null) {
+            return null;
+        }
+        if (icon.packed && spriteUrl != null) {
+            return urls.get(name);
+        }
+        return imageUrls.get(name);
+    }
+
+    private void spriteLoaded(JavaScriptObject image) {
+        if (image != sprite) {
+            // replaced while loading
+            return;
+        }
+        spriteLoaded = true;
+        cutIcons();
+        loadedCommand.execute();
+    }
+
+    private void spriteFailed(JavaScriptObject image) {
+        if (image != sprite) {
+            return;
+        }
+        // use the images of the icons instead
+        spriteUrl = null;
+        sprite = null;
+        loadedCommand.execute();
+    }
+
+    private void cutIcons() {
+        for (Map.Entry<String, MarkerIcon> entry : icons.entrySet()) {
+            MarkerIcon icon = entry.getValue();
+            if (icon.packed) {
+                urls.put(entry.getKey(),
+                  cut(sprite, icon.spriteX, icon.spriteY, icon.spriteWidth, icon.spriteHeight));
+            }
+        }
+    }
+
+    private native JavaScriptObject loadSprite(String url)
+    /*-{
+        var registry = this;
+        var image = $doc.createElement("img");
+        image.onload = $entry(function() {
+            registry.@org.vaadin.vol.client.ui.MarkerIconRegistry::spriteLoaded(Lcom/google/gwt/core/client/JavaScriptObject;)(image);
+        });
+        image.onerror = $entry(function() {
+            registry.@org.vaadin.vol.client.ui.MarkerIconRegistry::spriteFailed(Lcom/google/gwt/core/client/JavaScriptObject;)(image);
+        });
+        image.src = url;
+        return image;
+    }-*/;
+
+    private static native String cut(JavaScriptObject image, int x, int y, int width, int height)
+    /*-{
+        var canvas = $doc.createElement("canvas");
+        canvas.width = width;
+        canvas.height = height;
+        canvas.getContext("2d").drawImage(image, x, y, width, height, 0, 0, width, height);
+        return canvas.toDataURL("image/png");
+    }-*/;
+
+    private static native boolean isCanvasSupported()
+    /*-{
+        var canvas = $doc.createElement("canvas");
+        return !!(canvas.getContext && canvas.getContext("2d") && canvas.toDataURL);
+    }-*/;
+}
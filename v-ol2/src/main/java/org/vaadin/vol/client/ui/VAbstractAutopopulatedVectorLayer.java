@@ -1,5 +1,11 @@
 package org.vaadin.vol.client.ui;
 
+import com.google.gwt.core.client.JavaScriptObject;
+
+import elemental.json.JsonObject;
+
+import java.util.List;
+
 import org.vaadin.vol.client.wrappers.SelectFeatureFactory;
 import org.vaadin.vol.client.wrappers.StyleMap;
 import org.vaadin.vol.client.wrappers.control.SelectFeature;
@@ -10,6 +16,8 @@ public abstract class VAbstractAutopopulatedVectorLayer<T extends VectorLayer> e
     private SelectFeature control;
     private StyleMap styleMap;
     private String selectionCtrlId;
+    private List<String> renderers;
+    private JsonObject rendererOptions;
 
     public VAbstractAutopopulatedVectorLayer() {
         super();
@@ -50,4 +58,27 @@ public abstract class VAbstractAutopopulatedVectorLayer<T extends VectorLayer> e
     public void setSelectionCtrlId(String selectionCtrlId) {
         this.selectionCtrlId = selectionCtrlId;
     }
+
+    public List<String> getRenderers() {
+        return this.renderers;
+    }
+
+    public void setRenderers(List<String> renderers) {
+        this.renderers = renderers;
+    }
+
+    public JsonObject getRendererOptions() {
+        return this.rendererOptions;
+    }
+
+    public void setRendererOptions(JsonObject rendererOptions) {
+        this.rendererOptions = rendererOptions;
+    }
+
+    /**
+     * @return the options of the OpenLayers layer selecting its renderer
+     */
+    protected JavaScriptObject getLayerOptions() {
+        return VectorLayer.createOptions(renderers, rendererOptions);
+    }
 }
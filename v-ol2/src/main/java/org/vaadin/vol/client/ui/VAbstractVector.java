@@ -5,6 +5,11 @@ import com.google.gwt.dom.client.Document;
 import com.google.gwt.user.client.ui.Widget;
 import com.vaadin.client.communication.StateChangeEvent;
 
+import java.util.List;
+
+import org.vaadin.vol.client.GeometryCodec;
+import org.vaadin.vol.client.GeometryPatch;
+import org.vaadin.vol.client.GeometryUtil;
 import org.vaadin.vol.client.MapUtil;
 import org.vaadin.vol.client.VectorState;
 import org.vaadin.vol.client.wrappers.Map;
@@ -18,6 +23,7 @@ public abstract class VAbstractVector<T extends VectorState> extends Widget {
     protected JavaScriptObject vectAttributes;
     private Projection projection;
     private String intent;
+    private String connectorId;
 
     public VAbstractVector() {
         setElement(Document.get().createDivElement());
@@ -43,6 +49,14 @@ public abstract class VAbstractVector<T extends VectorState> extends Widget {
         return projection;
     }
 
+    public String getConnectorId() {
+        return connectorId;
+    }
+
+    public void setConnectorId(String connectorId) {
+        this.connectorId = connectorId;
+    }
+
     public String getIntent() {
         return this.intent;
     }
@@ -51,6 +65,40 @@ public abstract class VAbstractVector<T extends VectorState> extends Widget {
         this.intent = intent;
     }
 
+    /**
+     * @return the vertices of the vector decoded from the state, as
+     *         interleaved lon/lat pairs
+     */
+    protected double[] getCoordinates(VectorState state) {
+        return GeometryCodec.decode(state.geometry, GeometryCodec.getPrecision(getProjection().getCode()));
+    }
+
+    /**
+     * @return true if the OpenLayers geometry needs to be rebuilt from the
+     *         state
+     */
+    public boolean isGeometryChanged(StateChangeEvent event, VectorState state) {
+        // null geometry means the current one has been patched. The geometry
+        // is re-encoded when the projection changes, but the encoded string
+        // may be equal and so left out of the state change
+        return vector == null || state.geometry != null
+          && (event.hasPropertyChanged("geometry") || event.hasPropertyChanged("projection"));
+    }
+
+    /**
+     * Applies incremental changes to the vertices, mutating the existing
+     * OpenLayers geometry in place.
+     */
+    public void applyPatches(List<GeometryPatch> patches) {
+        Projection mapProjection = getMap().getProjection();
+        int precision = GeometryCodec.getPrecision(getProjection().getCode());
+        for (GeometryPatch patch : patches) {
+            double[] inserted = GeometryCodec.decode(patch.geometry, precision);
+            GeometryUtil.splice(vector.getGeometry(), patch.index, patch.removeCount,
+              GeometryUtil.createPoints(inserted, getProjection(), mapProjection));
+        }
+    }
+
     public abstract void createOrUpdateVector(StateChangeEvent event, T state);
 
     public VectorLayer getLayer() {
@@ -64,7 +112,9 @@ public abstract class VAbstractVector<T extends VectorState> extends Widget {
     @Override
     protected void onDetach() {
         super.onDetach();
-        getLayer().removeFeature(vector);
+        if (vector != null && vector.isInLayer()) {
+            getLayer().removeFeature(vector);
+        }
     }
 
     public Vector getVector() {
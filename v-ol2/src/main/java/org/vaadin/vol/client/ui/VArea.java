@@ -3,6 +3,7 @@ package org.vaadin.vol.client.ui;
 import com.google.gwt.core.client.JavaScriptObject;
 import com.google.gwt.core.client.JsArray;
 import com.vaadin.client.communication.StateChangeEvent;
+import org.vaadin.vol.client.GeometryUtil;
 import org.vaadin.vol.client.VectorState;
 import org.vaadin.vol.client.wrappers.Projection;
 import org.vaadin.vol.client.wrappers.Vector;
@@ -11,16 +12,14 @@ import org.vaadin.vol.client.wrappers.geometry.Point;
 
 public class VArea extends VAbstractVector<VectorState> {
 
-    @SuppressWarnings("unchecked")
     @Override
     public void createOrUpdateVector(StateChangeEvent stateChangeEvent, VectorState state) {
-        Projection mapProjection = getMap().getProjection();
-        JsArray<Point> points = (JsArray<Point>) JsArray.createArray();
-        for (int i = 0; i < state.points.length; i++) {
-            Point p = Point.create(state.points[i].getLon(), state.points[i].getLat());
-            p.transform(getProjection(), mapProjection);
-            points.push(p);
+        if (!isGeometryChanged(stateChangeEvent, state)) {
+            vector.setAttributes(getAttributes());
+            return;
         }
+        Projection mapProjection = getMap().getProjection();
+        JsArray<Point> points = GeometryUtil.createPoints(getCoordinates(state), getProjection(), mapProjection);
 
         LinearRing lr = LinearRing.create(points);
 
@@ -3,6 +3,7 @@ package org.vaadin.vol.client.ui;
 import com.google.gwt.dom.client.Document;
 import com.google.gwt.user.client.ui.Widget;
 
+import org.vaadin.vol.client.MarkerIcon;
 import org.vaadin.vol.client.MarkerState;
 import org.vaadin.vol.client.MapUtil;
 import org.vaadin.vol.client.wrappers.Icon;
@@ -12,11 +13,17 @@ import org.vaadin.vol.client.wrappers.Marker;
 import org.vaadin.vol.client.wrappers.Pixel;
 import org.vaadin.vol.client.wrappers.Projection;
 import org.vaadin.vol.client.wrappers.Size;
-import org.vaadin.vol.client.wrappers.layer.MarkerLayer;
 
 public class VMarker extends Widget implements VMarkable {
 
     protected Marker marker;
+    // false after the layer has removed the marker in a batch
+    private boolean markerInLayer;
+    // location and icon the marker was last updated to
+    private double lon;
+    private double lat;
+    private String projection;
+    private String iconKey;
 
     public VMarker() {
         setElement(Document.get().createDivElement());
@@ -30,24 +37,75 @@ public class VMarker extends Widget implements VMarkable {
      * .gwt.client.UIDL, com.vaadin.terminal.gwt.client.ApplicationConnection)
      */
     public <E extends MarkerState> void updateFromStateChange(E state, com.vaadin.client.ui.Icon icon) {
+        updateFromStateChange(state, icon != null ? icon.getUri() : null,
+          new MarkerIcon(state.iconWidth, state.iconHeight, state.iconXOffset, state.iconYOffset));
+    }
 
-        if (marker != null) {
-            getLayer().removeMarker(marker);
-        }
+    /**
+     * @param iconUrl
+     *            the image of the marker, null for the default icon of
+     *            OpenLayers
+     * @param icon
+     *            the size and offset of the image
+     */
+    public <E extends MarkerState> void updateFromStateChange(E state, String iconUrl, MarkerIcon icon) {
+        String newIconKey = getIconKey(iconUrl, icon);
+        if (marker != null && (iconUrl != null || iconKey == null)) {
+            // move and restyle the existing marker, keeping its DOM and the
+            // handlers registered to it
+            boolean changed = false;
+            if (state.lon != lon || state.lat != lat || !state.projection.equals(projection)) {
+                marker.setLonLat(createPoint(state));
+                changed = true;
+            }
+            if (iconUrl != null && !newIconKey.equals(iconKey)) {
+                updateIcon(iconUrl, icon);
+                changed = true;
+            }
+            if (changed && markerInLayer) {
+                getLayer().markerChanged(marker);
+            }
+        } else {
+            // the first update, or the icon was removed and the marker gets
+            // the default icon of OpenLayers
+            if (marker != null && markerInLayer) {
+                getLayer().removeMarker(marker);
+            }
 
-        this.beforeMarkerCreation(state);
+            this.beforeMarkerCreation(state);
 
-        this.marker = this.createMarker(state, icon);
+            this.marker = this.createMarker(state, iconUrl, icon);
 
-        this.afterMarkerCreation(state);
+            this.afterMarkerCreation(state);
 
-        getLayer().addMarker(marker);
+            getLayer().addMarker(marker);
+            markerInLayer = true;
+        }
+        lon = state.lon;
+        lat = state.lat;
+        projection = state.projection;
+        iconKey = newIconKey;
     }
 
-    protected <E extends MarkerState> Marker createMarker(E state, com.vaadin.client.ui.Icon icon) {
+    private String getIconKey(String iconUrl, MarkerIcon icon) {
+        if (iconUrl == null) {
+            return null;
+        }
+        return iconUrl + " " + icon.width + " " + icon.height + " " + icon.xOffset + " " + icon.yOffset;
+    }
+
+    protected void updateIcon(String iconUrl, MarkerIcon icon) {
+        Pixel offset = null;
+        if (hasOffset(icon)) {
+            offset = Pixel.create(icon.xOffset, icon.yOffset);
+        }
+        marker.updateIcon(iconUrl, getSize(icon), offset);
+    }
+
+    protected <E extends MarkerState> Marker createMarker(E state, String iconUrl, MarkerIcon icon) {
         LonLat point = createPoint(state);
 
-        Icon markerIcon = getIcon(state, icon);
+        Icon markerIcon = getIcon(iconUrl, icon);
         return Marker.create(point, markerIcon);
     }
 
@@ -65,20 +123,24 @@ public class VMarker extends Widget implements VMarkable {
         point.transform(projection, projection2);
     }
 
-    protected <E extends MarkerState> Icon getIcon(E state, com.vaadin.client.ui.Icon icon) {
-        if (icon != null) {
-            String url = icon.getUri();
-            int width = state.iconWidth > 0 ? state.iconWidth : 32;
-            int height = state.iconHeight > 0 ? state.iconHeight : 32;
-            if (state.iconXOffset > Integer.MIN_VALUE && state.iconYOffset > Integer.MIN_VALUE) {
-                return Icon.create(url, Size.create(width, height),
-                        Pixel.create(state.iconXOffset, state.iconYOffset));
+    protected Icon getIcon(String iconUrl, MarkerIcon icon) {
+        if (iconUrl != null) {
+            if (hasOffset(icon)) {
+                return Icon.create(iconUrl, getSize(icon), Pixel.create(icon.xOffset, icon.yOffset));
             }
-            return Icon.create(url, Size.create(width, height));
+            return Icon.create(iconUrl, getSize(icon));
         }
         return null;
     }
 
+    private static Size getSize(MarkerIcon icon) {
+        return Size.create(icon.width > 0 ? icon.width : 32, icon.height > 0 ? icon.height : 32);
+    }
+
+    private static boolean hasOffset(MarkerIcon icon) {
+        return icon.xOffset > Integer.MIN_VALUE && icon.yOffset > Integer.MIN_VALUE;
+    }
+
     protected <E extends MarkerState> void beforeMarkerCreation(E state) {
     }
 
@@ -86,8 +148,8 @@ public class VMarker extends Widget implements VMarkable {
 
     }
 
-    protected MarkerLayer getLayer() {
-        return MapUtil.findParent(VMarkerLayer.class, getParent()).getLayer();
+    protected VMarkerLayer getLayer() {
+        return MapUtil.findParent(VMarkerLayer.class, getParent());
     }
 
     protected Map getMap() {
@@ -98,10 +160,18 @@ public class VMarker extends Widget implements VMarkable {
         return marker;
     }
 
+    /**
+     * Called by the layer when it has removed the marker of this widget.
+     */
+    void markerRemoved() {
+        markerInLayer = false;
+    }
+
     @Override
     protected void onDetach() {
-        if (marker != null) {
+        if (marker != null && markerInLayer) {
             getLayer().removeMarker(marker);
+            markerInLayer = false;
         }
         super.onDetach();
     }
@@ -109,8 +179,9 @@ public class VMarker extends Widget implements VMarkable {
     @Override
     protected void onAttach() {
         super.onAttach();
-        if (marker != null) {
+        if (marker != null && !markerInLayer) {
             getLayer().addMarker(marker);
+            markerInLayer = true;
         }
     }
 
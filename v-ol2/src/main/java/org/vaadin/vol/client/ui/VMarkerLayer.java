@@ -1,11 +1,22 @@
 package org.vaadin.vol.client.ui;
 
+import com.google.gwt.core.client.JsArray;
+import com.google.gwt.core.client.Scheduler;
+import com.google.gwt.core.client.Scheduler.ScheduledCommand;
 import com.google.gwt.user.client.ui.FlowPanel;
 import com.google.gwt.user.client.ui.Widget;
 import com.vaadin.client.Profiler;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+
 import org.vaadin.vol.client.MapUtil;
+import org.vaadin.vol.client.wrappers.GwtOlHandler;
 import org.vaadin.vol.client.wrappers.Map;
+import org.vaadin.vol.client.wrappers.Marker;
+import org.vaadin.vol.client.wrappers.layer.Layer;
 import org.vaadin.vol.client.wrappers.layer.MarkerLayer;
+import org.vaadin.vol.client.wrappers.layer.MarkerVectorLayer;
 
 public class VMarkerLayer extends FlowPanel implements VLayer {
 
@@ -13,13 +24,140 @@ public class VMarkerLayer extends FlowPanel implements VLayer {
     private String displayName;
     private boolean layerAdded = false;
 
-    public MarkerLayer getLayer() {
+    // layer drawing the markers as features instead, with Canvas rendering
+    private MarkerVectorLayer markerVectors;
+    private boolean canvasRendering;
+    private FeatureHitIndex hitIndex;
+    // markers added and changed since the last redraw of markerVectors
+    private final LinkedHashSet<Marker> pendingAdded = new LinkedHashSet<Marker>();
+    private final LinkedHashSet<Marker> pendingChanged = new LinkedHashSet<Marker>();
+    private boolean flushScheduled;
+
+    public Layer getLayer() {
+        if (canvasRendering) {
+            if (markerVectors == null) {
+                markerVectors = MarkerVectorLayer.create(displayName);
+                if ("OpenLayers.Renderer.Canvas".equals(markerVectors.getRendererClassName())) {
+                    hitIndex = new FeatureHitIndex(markerVectors);
+                }
+            }
+            return markerVectors;
+        }
         if (markers == null) {
             markers = MarkerLayer.create(displayName);
         }
         return markers;
     }
 
+    public boolean isCanvasRendering() {
+        return canvasRendering;
+    }
+
+    /**
+     * Sets whether the markers are drawn as features of a Canvas rendered
+     * vector layer instead of as elements of their own. Ignored once the
+     * layer has been created.
+     */
+    public void setCanvasRendering(boolean canvasRendering) {
+        if (markers == null && markerVectors == null) {
+            this.canvasRendering = canvasRendering;
+        }
+    }
+
+    public void addMarker(Marker marker) {
+        if (canvasRendering) {
+            getLayer();
+            pendingAdded.add(marker);
+            scheduleFlush();
+        } else {
+            ((MarkerLayer) getLayer()).addMarker(marker);
+        }
+    }
+
+    public void removeMarker(Marker marker) {
+        if (canvasRendering) {
+            pendingChanged.remove(marker);
+            if (!pendingAdded.remove(marker) && markerVectors != null) {
+                markerVectors.removeMarkers(toArray(marker));
+            }
+        } else {
+            ((MarkerLayer) getLayer()).removeMarker(marker);
+        }
+    }
+
+    /**
+     * Called after the location or icon of a marker in the layer has been
+     * changed in place.
+     */
+    public void markerChanged(Marker marker) {
+        if (canvasRendering && !pendingAdded.contains(marker)) {
+            pendingChanged.add(marker);
+            scheduleFlush();
+        }
+    }
+
+    /**
+     * Registers a single DOM event handler for all markers, see
+     * {@link MarkerLayer#addMarkerEventHandler(String, GwtOlHandler)}.
+     */
+    public void addMarkerEventHandler(String type, GwtOlHandler handler) {
+        if (canvasRendering) {
+            ((MarkerVectorLayer) getLayer()).addMarkerEventHandler(type, handler);
+        } else {
+            ((MarkerLayer) getLayer()).addMarkerEventHandler(type, handler);
+        }
+    }
+
+    private void scheduleFlush() {
+        if (!flushScheduled) {
+            flushScheduled = true;
+            Scheduler.get().scheduleFinally(new ScheduledCommand() {
+                public void execute() {
+                    flushScheduled = false;
+                    flushPending();
+                }
+            });
+        }
+    }
+
+    /**
+     * Draws the markers added and changed during the handling of a response
+     * with a single redraw each.
+     */
+    private void flushPending() {
+        if (!pendingChanged.isEmpty()) {
+            JsArray<Marker> changed = toArray(pendingChanged);
+            pendingChanged.clear();
+            markerVectors.updateMarkers(changed);
+            if (hitIndex != null) {
+                for (int i = 0; i < changed.length(); i++) {
+                    hitIndex.update(MarkerVectorLayer.getFeature(changed.get(i)));
+                }
+            }
+        }
+        if (!pendingAdded.isEmpty()) {
+            JsArray<Marker> added = toArray(pendingAdded);
+            pendingAdded.clear();
+            markerVectors.addMarkers(added);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static JsArray<Marker> toArray(Iterable<Marker> markers) {
+        JsArray<Marker> array = (JsArray<Marker>) JsArray.createArray();
+        for (Marker marker : markers) {
+            array.push(marker);
+        }
+        return array;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static JsArray<Marker> toArray(Marker marker) {
+        JsArray<Marker> array = (JsArray<Marker>) JsArray.createArray();
+        array.push(marker);
+        return array;
+    }
+
     public String getDisplayName() {
         return this.displayName;
     }
@@ -29,6 +167,9 @@ public class VMarkerLayer extends FlowPanel implements VLayer {
         if (markers != null) {
             markers.setDisplayName(displayName);
         }
+        if (markerVectors != null) {
+            markerVectors.setDisplayName(displayName);
+        }
     }
 
     /**
@@ -72,6 +213,9 @@ public class VMarkerLayer extends FlowPanel implements VLayer {
         if (this.markers != null) {
             getMap().removeLayer(this.markers);
         }
+        if (this.markerVectors != null) {
+            getMap().removeLayer(this.markerVectors);
+        }
     }
 
     protected Map getMap() {
@@ -79,6 +223,45 @@ public class VMarkerLayer extends FlowPanel implements VLayer {
     }
 
     public boolean hasChildComponent(Widget component) {
-        return getWidgetIndex(component) != -1;
+        return component.getParent() == this;
+    }
+
+    /**
+     * Removes the given marker widgets, removing their OpenLayers markers from
+     * the layer in one pass.
+     */
+    @SuppressWarnings("unchecked")
+    public void removeMarkers(List<Widget> removed) {
+        if (removed.isEmpty()) {
+            return;
+        }
+        if (markers != null || markerVectors != null) {
+            JsArray<Marker> olMarkers = (JsArray<Marker>) JsArray.createArray();
+            for (Widget widget : removed) {
+                if (widget instanceof VMarker) {
+                    VMarker marker = (VMarker) widget;
+                    Marker olMarker = marker.getMarker();
+                    if (olMarker != null) {
+                        pendingChanged.remove(olMarker);
+                        if (!pendingAdded.remove(olMarker)) {
+                            olMarkers.push(olMarker);
+                        }
+                    }
+                    marker.markerRemoved();
+                }
+            }
+            if (markers != null) {
+                markers.removeMarkers(olMarkers);
+            } else {
+                markerVectors.removeMarkers(olMarkers);
+            }
+        }
+        if (removed.size() == getWidgetCount()) {
+            clear();
+        } else {
+            for (Widget widget : removed) {
+                remove(widget);
+            }
+        }
     }
 }
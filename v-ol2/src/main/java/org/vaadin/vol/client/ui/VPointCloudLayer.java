@@ -0,0 +1,92 @@
+package org.vaadin.vol.client.ui;
+
+import org.vaadin.vol.client.MapUtil;
+import org.vaadin.vol.client.wrappers.Projection;
+import org.vaadin.vol.client.wrappers.layer.PointCloudLayer;
+
+public class VPointCloudLayer extends VAbstracMapLayer<PointCloudLayer> {
+
+    private String pointColor = "#ee9900";
+    private double pointSize = 2;
+    private int pickTolerance = 4;
+
+    // points received before the layer was attached to the map, which is
+    // needed for the projection
+    private double[] coordinates;
+    private double[] colors;
+    private double[] sizes;
+
+    @Override
+    PointCloudLayer createLayer() {
+        PointCloudLayer layer = PointCloudLayer.create(getDisplayName());
+        layer.setPointStyle(pointColor, pointSize);
+        return layer;
+    }
+
+    @Override
+    public void attachLayerToMap() {
+        super.attachLayerToMap();
+        if (coordinates != null) {
+            setPoints(coordinates, colors, sizes);
+        }
+    }
+
+    /**
+     * Replaces the points of the layer, see
+     * {@link PointCloudLayer#setPoints(double[], double[], double[])}
+     * . The coordinates are in the projection of the layer or, if not set, in
+     * the api projection of the map.
+     */
+    public void setPoints(double[] coordinates, double[] colors, double[] sizes) {
+        if (!layerAttached) {
+            this.coordinates = coordinates;
+            this.colors = colors;
+            this.sizes = sizes;
+            return;
+        }
+        this.coordinates = null;
+        this.colors = null;
+        this.sizes = null;
+        Projection source = getProjection() != null ? Projection.get(getProjection())
+          : MapUtil.getVMap(this).getProjection();
+        getLayer().setPoints(Projection.transform(coordinates, source, getMap().getProjection()), colors, sizes);
+    }
+
+    /**
+     * @return the index of the point at the given pixel of the map viewport,
+     *         -1 if none
+     */
+    public int pick(int x, int y) {
+        return layer != null ? layer.pick(x, y, pickTolerance) : -1;
+    }
+
+    public String getPointColor() {
+        return pointColor;
+    }
+
+    public void setPointColor(String pointColor) {
+        this.pointColor = pointColor;
+        if (layer != null) {
+            layer.setPointStyle(pointColor, pointSize);
+        }
+    }
+
+    public double getPointSize() {
+        return pointSize;
+    }
+
+    public void setPointSize(double pointSize) {
+        this.pointSize = pointSize;
+        if (layer != null) {
+            layer.setPointStyle(pointColor, pointSize);
+        }
+    }
+
+    public int getPickTolerance() {
+        return pickTolerance;
+    }
+
+    public void setPickTolerance(int pickTolerance) {
+        this.pickTolerance = pickTolerance;
+    }
+}
@@ -2,6 +2,7 @@ package org.vaadin.vol.client.ui;
 
 import com.google.gwt.core.client.JavaScriptObject;
 import com.vaadin.client.communication.StateChangeEvent;
+import org.vaadin.vol.client.GeometryUtil;
 import org.vaadin.vol.client.VectorState;
 import org.vaadin.vol.client.wrappers.Projection;
 import org.vaadin.vol.client.wrappers.Vector;
@@ -11,9 +12,13 @@ public class VPointVector extends VAbstractVector {
 
     @Override
     public void createOrUpdateVector(StateChangeEvent event, VectorState state) {
+        if (!isGeometryChanged(event, state)) {
+            vector.setAttributes(getAttributes());
+            return;
+        }
         Projection mapProjection = getMap().getProjection();
-        Point p = Point.create(state.points[0].getLon(), state.points[0].getLat());
-        p.transform(getProjection(), mapProjection);
+        double[] coordinates = getCoordinates(state);
+        Point p = GeometryUtil.createPoint(coordinates[0], coordinates[1], getProjection(), mapProjection);
 
         if (vector == null) {
             vector = Vector.create(p, getAttributes(), JavaScriptObject.createObject());
@@ -2,6 +2,7 @@ package org.vaadin.vol.client.ui;
 
 import com.google.gwt.core.client.JavaScriptObject;
 import com.google.gwt.core.client.JsArray;
+import com.google.gwt.core.client.JsArrayString;
 import com.google.gwt.core.client.Scheduler;
 import com.google.gwt.core.client.Scheduler.ScheduledCommand;
 import com.google.gwt.user.client.ui.FlowPanel;
@@ -11,10 +12,22 @@ import com.vaadin.client.Util;
 import com.vaadin.client.ValueMap;
 import com.vaadin.shared.Connector;
 
+import elemental.json.JsonArray;
+import elemental.json.JsonObject;
+
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
-
+import java.util.TreeMap;
+
+import org.vaadin.vol.client.FeatureData;
+import org.vaadin.vol.client.GeometryCodec;
+import org.vaadin.vol.client.GeometryPatch;
+import org.vaadin.vol.client.GeometryUtil;
+import org.vaadin.vol.client.IncrementalLoadingServerRpc;
+import org.vaadin.vol.client.JsonUtil;
 import org.vaadin.vol.client.MapUtil;
 import org.vaadin.vol.client.VectorLayerServerRpc;
 import org.vaadin.vol.client.VectorLayerState;
@@ -22,6 +35,7 @@ import org.vaadin.vol.client.wrappers.GwtOlHandler;
 import org.vaadin.vol.client.wrappers.JsObject;
 import org.vaadin.vol.client.wrappers.Map;
 import org.vaadin.vol.client.wrappers.Projection;
+import org.vaadin.vol.client.wrappers.Rule;
 import org.vaadin.vol.client.wrappers.SelectFeatureFactory;
 import org.vaadin.vol.client.wrappers.Style;
 import org.vaadin.vol.client.wrappers.StyleMap;
@@ -50,6 +64,9 @@ public class VVectorLayer extends FlowPanel implements VLayer {
     private VectorLayerState vectorLayerState;
     private String displayName;
     private GwtOlHandler _fModifiedListener;
+    // vertices of the feature being modified, as last sent to the server
+    private Vector snapshotFeature;
+    private double[] snapshotCoordinates;
 
     private Vector lastNewDrawing;
     private boolean added;
@@ -57,11 +74,80 @@ public class VVectorLayer extends FlowPanel implements VLayer {
     private SelectFeature selectFeature;
     private String selectionCtrlId;             // Common SelectFeature control identifier
 
+    // vector widgets by connector id, the id is also stored on their features
+    private final HashMap<String, VAbstractVector> vectorWidgets = new HashMap<String, VAbstractVector>();
+
+    // lightweight features by feature id, and their render intents
+    private final HashMap<String, Vector> features = new HashMap<String, Vector>();
+    private final HashMap<String, String> featureIntents = new HashMap<String, String>();
+
+    // parsed custom styles by style id, symbolizers shared by the features
+    // and OpenLayers.Styles for the ones evaluated per feature
+    private final HashMap<String, JavaScriptObject> symbolizers = new HashMap<String, JavaScriptObject>();
+    private final HashMap<String, Style> evaluatedStyles = new HashMap<String, Style>();
+
+    // content of the style map the current OpenLayers StyleMap was built from
+    private String styleMapKey;
+
+    // vectors to add to and redraw on the OpenLayers layer once the current
+    // response has been handled
+    private final List<VAbstractVector> pendingAdded = new ArrayList<VAbstractVector>();
+    private final LinkedHashSet<Vector> pendingRedraws = new LinkedHashSet<Vector>();
+    private boolean flushScheduled;
+
+    // used to find features under the mouse with the Canvas renderer
+    private FeatureHitIndex hitIndex;
+
+    private final IncrementalFeatureLoader loader = new IncrementalFeatureLoader() {
+        @Override
+        protected boolean isLoadable(Vector vector) {
+            if (vector.isInLayer()) {
+                return false;
+            }
+            VAbstractVector widget = getVectorWidget(vector);
+            return isFeature(vector) || widget != null && widget.getVector() == vector && widget.getParent() == VVectorLayer.this;
+        }
+
+        @Override
+        protected VectorLayer getLayer() {
+            return VVectorLayer.this.getLayer();
+        }
+
+        @Override
+        protected void addFeatures(JsArray<Vector> features) {
+            boolean wasUpdating = updating;
+            updating = true;
+            super.addFeatures(features);
+            updating = wasUpdating;
+        }
+    };
+
     public VectorLayer getLayer() {
         if (vectors == null) {
-            vectors = VectorLayer.create(displayName);
+            if (vectorLayerState != null) {
+                JavaScriptObject options = VectorLayer.createOptions(vectorLayerState.renderers,
+                  vectorLayerState.rendererOptions);
+                // features are found with the hit index instead of drawing
+                // them to a hit detection canvas
+                disableHitDetection(options);
+                vectors = VectorLayer.createWithOptions(displayName, options);
+            } else {
+                vectors = VectorLayer.create(displayName);
+            }
+            if ("OpenLayers.Renderer.Canvas".equals(vectors.getRendererClassName())) {
+                hitIndex = new FeatureHitIndex(vectors);
+            }
             vectors.registerHandler("featureadded", getFeatureAddedListener());
             vectors.registerHandler("featuremodified", getFeatureModifiedListener());
+            vectors.registerHandler("beforefeaturemodified", new GwtOlHandler() {
+                @SuppressWarnings("rawtypes")
+                public void onEvent(JsArray arguments) {
+                    // remember the vertices to send only the modified ones
+                    JsObject event = arguments.get(0).cast();
+                    snapshotFeature = event.getFieldByName("feature").cast();
+                    snapshotCoordinates = getCoordinates(snapshotFeature);
+                }
+            });
             /*vectors.registerHandler("afterfeaturemodified", new GwtOlHandler() {
                 @SuppressWarnings("rawtypes")
                 public void onEvent(JsArray arguments) {
@@ -83,9 +169,13 @@ public class VVectorLayer extends FlowPanel implements VLayer {
                         // side
                         return;
                     }
-                    if (vectorLayerState.registeredEventListeners.contains("vsel")) {
-                        ValueMap javaScriptObject = arguments.get(0).cast();
-                        Vector vector = javaScriptObject.getValueMap("feature").cast();
+                    ValueMap javaScriptObject = arguments.get(0).cast();
+                    Vector vector = javaScriptObject.getValueMap("feature").cast();
+                    if (isFeature(vector)) {
+                        if (vectorLayerState.registeredEventListeners.contains("fsel")) {
+                            vectorLayerServerRpc.selectFeature(vector.getFeatureId());
+                        }
+                    } else if (vectorLayerState.registeredEventListeners.contains("vsel")) {
                         vectorLayerServerRpc.select(getConnectorIdForVector(vector));
                     }
                 }
@@ -96,18 +186,22 @@ public class VVectorLayer extends FlowPanel implements VLayer {
                 public void onEvent(JsArray arguments) {
                     ValueMap javaScriptObject = arguments.get(0).cast();
                     Vector vector = javaScriptObject.getValueMap("feature").cast();
-                    for (Connector c : vectorLayerState.vectors) {
-                        Widget w = ((ComponentConnector)c).getWidget();
-                        VAbstractVector v = (VAbstractVector)w;
-                        if (v.getVector() == vector) {
-                            v.revertDefaultIntent();
-                            // ignore selections that happened during update, those
-                            // should be already known and notified by the server
-                            // side
-                            if (!updating && vectorLayerState.registeredEventListeners.contains("vusel")) {
-                                vectorLayerServerRpc.unselect(c.getConnectorId());
-                                break;
-                            }
+                    if (isFeature(vector)) {
+                        vector.setRenderIntent(getFeatureIntent(vector.getFeatureId()));
+                        vector.redraw();
+                        if (!updating && vectorLayerState.registeredEventListeners.contains("fusel")) {
+                            vectorLayerServerRpc.unselectFeature(vector.getFeatureId());
+                        }
+                        return;
+                    }
+                    VAbstractVector v = getVectorWidget(vector);
+                    if (v != null) {
+                        v.revertDefaultIntent();
+                        // ignore selections that happened during update, those
+                        // should be already known and notified by the server
+                        // side
+                        if (!updating && vectorLayerState.registeredEventListeners.contains("vusel")) {
+                            vectorLayerServerRpc.unselect(v.getConnectorId());
                         }
                     }
                 }
@@ -118,14 +212,71 @@ public class VVectorLayer extends FlowPanel implements VLayer {
     }
 
     private String getConnectorIdForVector(Vector vector) {
-        for (Connector c : vectorLayerState.vectors) {
-            Widget w = ((ComponentConnector)c).getWidget();
-            VAbstractVector v = (VAbstractVector)w;
-            if (v.getVector() == vector) {
-                return c.getConnectorId();
+        VAbstractVector v = getVectorWidget(vector);
+        return v != null ? v.getConnectorId() : null;
+    }
+
+    private VAbstractVector getVectorWidget(Vector vector) {
+        String connectorId = vector.getConnectorId();
+        return connectorId != null ? vectorWidgets.get(connectorId) : null;
+    }
+
+    @Override
+    public void add(Widget w) {
+        super.add(w);
+        vectorWidgets.put(((VAbstractVector) w).getConnectorId(), (VAbstractVector) w);
+    }
+
+    /**
+     * Removes the given vector widgets, removing their OpenLayers features
+     * from the layer in one operation.
+     */
+    @SuppressWarnings("unchecked")
+    public void removeVectors(List<Widget> removed) {
+        if (removed.isEmpty()) {
+            return;
+        }
+        boolean wasUpdating = updating;
+        updating = true;
+        if (vectors != null) {
+            // vectors still waiting to be added are not in the layer
+            JsArray<Vector> features = (JsArray<Vector>) JsArray.createArray();
+            for (Widget widget : removed) {
+                Vector vector = ((VAbstractVector) widget).getVector();
+                if (vector != null && vector.isInLayer()) {
+                    features.push(vector);
+                }
+            }
+            if (features.length() == getLayer().getFeatureCount()) {
+                // nothing else, e.g. lightweight features, in the layer
+                getLayer().removeAllFeatures();
+            } else if (features.length() > 0) {
+                getLayer().removeFeatures(features);
             }
         }
-        return null;
+        if (removed.size() == getWidgetCount()) {
+            clear();
+        } else {
+            for (Widget widget : removed) {
+                remove(widget);
+            }
+        }
+        updating = wasUpdating;
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        vectorWidgets.clear();
+    }
+
+    @Override
+    public boolean remove(Widget w) {
+        boolean removed = super.remove(w);
+        if (removed) {
+            vectorWidgets.remove(((VAbstractVector) w).getConnectorId());
+        }
+        return removed;
     }
 
     private GwtOlHandler getFeatureModifiedListener() {
@@ -135,35 +286,9 @@ public class VVectorLayer extends FlowPanel implements VLayer {
                 @SuppressWarnings("rawtypes")
                 public void onEvent(JsArray arguments) {
                     if (!updating && drawingMode != VectorLayerState.DrawingMode.NONE) {
-                        // use vaadin js object helper to get the actual feature
-                        // from ol event
-                        // TODO improve typing of OL events
-                        JsObject event = arguments.get(0).cast();
-                        Vector feature = event.getFieldByName("feature").cast();
-                        Geometry geometry = feature.getGeometry();
-
-                        boolean isLineString = true; // TODO
-                        if (isLineString) {
-                            LineString ls = geometry.cast();
-                            JsArray<Point> allVertices = ls.getAllVertices();
-                            String[] points = new String[allVertices.length()];
-                            for (int i = 0; i < allVertices.length(); i++) {
-                                Point point = allVertices.get(i);
-                                point = point.nativeClone();
-                                point.transform(getMap().getProjection(), getProjection());
-                                points[i] = point.toString();
-                            }
-                            // VConsole.log("modified");
-                            // communicate points to server and mark the
-                            // new geometry to be removed on next update.
-
-                            Vector modifiedFeature = ((ModifyFeature)df.cast()).getModifiedFeature();
-                            if (modifiedFeature != null) {
-                                vectorLayerServerRpc.modify(points, getConnectorIdForVector(modifiedFeature));
-                            }
-
-                            // client.sendPendingVariableChanges();
-                            // lastNewDrawing = feature;
+                        Vector modifiedFeature = ((ModifyFeature)df.cast()).getModifiedFeature();
+                        if (modifiedFeature != null) {
+                            modified(modifiedFeature);
                         }
                     }
                 }
@@ -172,6 +297,47 @@ public class VVectorLayer extends FlowPanel implements VLayer {
         return _fModifiedListener;
     }
 
+    /**
+     * Sends the vertices changed since the modification started or since the
+     * previous modified event to the server side.
+     */
+    private void modified(Vector modifiedFeature) {
+        double[] coordinates = getCoordinates(modifiedFeature);
+        int precision = GeometryCodec.getPrecision(getProjection().getCode());
+        GeometryPatch patch;
+        if (modifiedFeature == snapshotFeature) {
+            patch = GeometryPatch.diff(snapshotCoordinates, coordinates, precision);
+        } else {
+            // no snapshot, replace all vertices
+            patch = new GeometryPatch(0, Integer.MAX_VALUE, GeometryCodec.encode(coordinates, precision));
+        }
+        snapshotFeature = modifiedFeature;
+        snapshotCoordinates = coordinates;
+        if (patch == null) {
+            return;
+        }
+        if (isFeature(modifiedFeature)) {
+            vectorLayerServerRpc.modifyFeature(patch, modifiedFeature.getFeatureId());
+        } else {
+            vectorLayerServerRpc.modify(patch, getConnectorIdForVector(modifiedFeature));
+        }
+    }
+
+    private double[] getCoordinates(Vector vector) {
+        LineString ls = vector.getGeometry().cast();
+        return GeometryUtil.getCoordinates(ls.getAllVertices(), getMap().getProjection(), getProjection());
+    }
+
+    /**
+     * Encodes vertices of a geometry drawn or modified on the map for the
+     * server side.
+     */
+    private String encode(JsArray<Point> vertices) {
+        Projection projection = getProjection();
+        double[] coordinates = GeometryUtil.getCoordinates(vertices, getMap().getProjection(), projection);
+        return GeometryCodec.encode(coordinates, GeometryCodec.getPrecision(projection.getCode()));
+    }
+
     private GwtOlHandler getFeatureAddedListener() {
         if (_fAddedListener == null) {
             _fAddedListener = new GwtOlHandler() {
@@ -191,23 +357,13 @@ public class VVectorLayer extends FlowPanel implements VLayer {
                           || drawingMode == VectorLayerState.DrawingMode.RECTANGLE
                           || drawingMode == VectorLayerState.DrawingMode.CIRCLE) {
                             LineString ls = geometry.cast();
-                            JsArray<Point> allVertices = ls.getAllVertices();
-                            String[] points = new String[allVertices.length()];
-                            for (int i = 0; i < allVertices.length(); i++) {
-                                Point point = allVertices.get(i);
-                                point.transform(getMap().getProjection(), getProjection());
-                                points[i] = point.toString();
-                            }
-                            vectorLayerServerRpc.draw(points, drawingMode);
+                            vectorLayerServerRpc.draw(encode(ls.getAllVertices()), drawingMode);
                         } else if (drawingMode == VectorLayerState.DrawingMode.POINT) {
                             // point
                             Point point = geometry.cast();
-                            point.transform(getMap().getProjection(),
-                                    getProjection());
-                            double x = point.getX();
-                            double y = point.getY();
-                            String[] points = new String[] { Point.create(x, y).toString() };
-                            vectorLayerServerRpc.draw(points, drawingMode);
+                            JsArray<Point> vertices = JsArray.createArray().cast();
+                            vertices.push(point);
+                            vectorLayerServerRpc.draw(encode(vertices), drawingMode);
                         }
                         // VConsole.log("drawing done");
                         // communicate points to server and mark the
@@ -222,7 +378,8 @@ public class VVectorLayer extends FlowPanel implements VLayer {
         return _fAddedListener;
     }
 
-    public void update(VectorLayerState state, VectorLayerServerRpc vectorLayerServerRpc) {
+    public void update(VectorLayerState state, VectorLayerServerRpc vectorLayerServerRpc,
+      IncrementalLoadingServerRpc incrementalLoadingServerRpc) {
         this.updating = true;
         this.displayName = state.displayName;
         this.vectorLayerServerRpc = vectorLayerServerRpc;
@@ -240,7 +397,21 @@ public class VVectorLayer extends FlowPanel implements VLayer {
             lastNewDrawing = null;
         }
 
-        updateStyleMap(state.styleMap, state.uniqueValueRules, state.extendDefault);
+        String newStyleMapKey = getStyleMapKey(state);
+        if (!newStyleMapKey.equals(styleMapKey)) {
+            boolean changed = styleMapKey != null;
+            styleMapKey = newStyleMapKey;
+            updateStyleMap(state.styleMap, state.uniqueValueRules, state.styleRules, state.extendDefault);
+            if (changed) {
+                if (hitIndex != null) {
+                    hitIndex.stylesChanged();
+                }
+                getLayer().redraw();
+            }
+        }
+        loader.update(state.incrementalLoading, incrementalLoadingServerRpc);
+        symbolizers.keySet().retainAll(state.styles.keySet());
+        evaluatedStyles.keySet().retainAll(state.styles.keySet());
         setDrawingMode(state.drawingMode);
 
         // Identifier for SelectFeature control to use ... layers specifying the
@@ -249,23 +420,27 @@ public class VVectorLayer extends FlowPanel implements VLayer {
 
         setSelectionMode();
 
-        HashSet<Widget> orphaned = new HashSet<Widget>();
-        for (Iterator<Widget> iterator = iterator(); iterator.hasNext();) {
-            orphaned.add(iterator.next());
-        }
-
-        int childCount = state.vectors.size();
-        for (int i = 0; i < childCount; i++) {
-            VAbstractVector vector = (VAbstractVector) ((ComponentConnector) state.vectors.get(i)).getWidget();
-            boolean isNew = !hasChildComponent(vector);
-            if (isNew) {
+        // children are normally handled by the connector hierarchy change,
+        // just ensure the widgets match the state
+        for (Connector c : state.vectors) {
+            Widget vector = ((ComponentConnector) c).getWidget();
+            if (vector.getParent() != this) {
                 add(vector);
             }
-            //vector.updateFromUIDL(childUIDL, client);
-            orphaned.remove(vector);
         }
-        for (Widget widget : orphaned) {
-            widget.removeFromParent();
+        if (getWidgetCount() != state.vectors.size()) {
+            HashSet<Widget> current = new HashSet<Widget>();
+            for (Connector c : state.vectors) {
+                current.add(((ComponentConnector) c).getWidget());
+            }
+            List<Widget> orphaned = new ArrayList<Widget>();
+            for (int i = 0; i < getWidgetCount(); i++) {
+                Widget widget = getWidget(i);
+                if (!current.contains(widget)) {
+                    orphaned.add(widget);
+                }
+            }
+            removeVectors(orphaned);
         }
         updating = false;
     }
@@ -295,23 +470,28 @@ public class VVectorLayer extends FlowPanel implements VLayer {
             currentSelectionMode = newSelectionMode;
         }
         if (currentSelectionMode != VectorLayerState.SelectionMode.NONE || drawingMode == VectorLayerState.DrawingMode.MODIFY) {
-            if (this.vectorLayerState.selectedVector != null) {
+            if (this.vectorLayerState.selectedVector != null || this.vectorLayerState.selectedFeature != null) {
                 Scheduler.get().scheduleFinally(new ScheduledCommand() {
 
                     public void execute() {
-                        Widget w = ((ComponentConnector)vectorLayerState.selectedVector).getWidget();
-                        VAbstractVector selectedVector = (VAbstractVector)w;
+                        // the selected vector may not be in the layer yet
+                        flushPending();
+                        Vector selectedVector = getSelectedVector();
                         if (selectedVector != null) {
                             updating = true;
+                            if (!selectedVector.isInLayer()) {
+                                // still queued for incremental loading
+                                getLayer().addFeature(selectedVector);
+                            }
                             // ensure selection
                             if (drawingMode == VectorLayerState.DrawingMode.MODIFY) {
                                 ModifyFeature mf = (ModifyFeature) df.cast();
                                 if (mf.getModifiedFeature() != null) {
                                     mf.unselect(mf.getModifiedFeature());
                                 }
-                                mf.select(selectedVector.getVector());
+                                mf.select(selectedVector);
                             } else {
-                                selectFeature.select(selectedVector.getVector());
+                                selectFeature.select(selectedVector);
                             }
                             updating = false;
                         }
@@ -339,6 +519,143 @@ public class VVectorLayer extends FlowPanel implements VLayer {
         }
     }
 
+    private Vector getSelectedVector() {
+        if (vectorLayerState.selectedVector != null) {
+            Widget w = ((ComponentConnector)vectorLayerState.selectedVector).getWidget();
+            return w != null ? ((VAbstractVector)w).getVector() : null;
+        }
+        if (vectorLayerState.selectedFeature != null) {
+            return features.get(vectorLayerState.selectedFeature);
+        }
+        return null;
+    }
+
+    private boolean isFeature(Vector vector) {
+        String fid = vector.getFeatureId();
+        return fid != null && features.get(fid) == vector;
+    }
+
+    private String getFeatureIntent(String featureId) {
+        String intent = featureIntents.get(featureId);
+        return intent != null ? intent : "default";
+    }
+
+    /**
+     * Adds lightweight features to the layer or updates the already existing
+     * ones.
+     */
+    @SuppressWarnings("unchecked")
+    public void addFeatures(List<FeatureData> data, JsonArray attributeColumns) {
+        boolean wasUpdating = updating;
+        updating = true;
+        Projection mapProjection = getMap().getProjection();
+        Projection projection = getProjection();
+        int precision = GeometryCodec.getPrecision(projection.getCode());
+        JsArray<Vector> added = (JsArray<Vector>) JsArray.createArray();
+        JsArrayString attributeNames = (JsArrayString) JsArrayString.createArray();
+        for (String name : vectorLayerState.attributeNames) {
+            attributeNames.push(name);
+        }
+        for (int i = 0; i < data.size(); i++) {
+            FeatureData featureData = data.get(i);
+            double[] coordinates = GeometryCodec.decode(featureData.geometry, precision);
+            Geometry geometry = GeometryUtil.createGeometry(featureData.type, coordinates, projection, mapProjection);
+            JavaScriptObject attributes = featureData.attributes != null
+              ? JsonUtil.toJavaScriptObject(featureData.attributes) : JavaScriptObject.createObject();
+            if (attributeNames.length() > 0) {
+                JsonUtil.putColumnValues(attributes, attributeNames, attributeColumns, i);
+            }
+            Vector feature = features.get(featureData.id);
+            boolean isNew = feature == null;
+            if (isNew) {
+                feature = Vector.create(geometry, attributes, null);
+                feature.setFeatureId(featureData.id);
+                features.put(featureData.id, feature);
+                added.push(feature);
+            } else {
+                getLayer().eraseFeature(feature);
+                feature.setGeometry(geometry);
+                feature.setAttributes(attributes);
+            }
+            feature.setStyle(getStyle(vectorLayerState.styles, featureData.styleId, feature));
+            if (featureData.intent != null) {
+                featureIntents.put(featureData.id, featureData.intent);
+            } else {
+                featureIntents.remove(featureData.id);
+            }
+            feature.setRenderIntent(getFeatureIntent(featureData.id));
+            if (!isNew) {
+                queueRedraw(feature);
+            }
+        }
+        loader.add(added);
+        updating = wasUpdating;
+    }
+
+    /**
+     * Resolves the custom style with the given id for the feature. Each style
+     * is parsed once, features share the symbolizer unless it has to be
+     * evaluated per feature.
+     *
+     * @param styles
+     *            the custom styles of the layer by id
+     * @return the symbolizer or null if the style id is null
+     */
+    public JavaScriptObject getStyle(java.util.Map<String, JsonObject> styles, String styleId, Vector feature) {
+        if (styleId == null || !styles.containsKey(styleId)) {
+            return null;
+        }
+        Style style = evaluatedStyles.get(styleId);
+        if (style != null) {
+            return style.createSymbolizer(feature);
+        }
+        JavaScriptObject symbolizer = symbolizers.get(styleId);
+        if (symbolizer == null) {
+            symbolizer = JsonUtil.copy(styles.get(styleId));
+            Style.removeInheritance(symbolizer);
+            if (Style.needsEvaluation(symbolizer)) {
+                style = Style.create(symbolizer);
+                evaluatedStyles.put(styleId, style);
+                return style.createSymbolizer(feature);
+            }
+            symbolizers.put(styleId, symbolizer);
+        }
+        return symbolizer;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void removeFeatures(List<String> featureIds) {
+        JsArray<Vector> removed = (JsArray<Vector>) JsArray.createArray();
+        for (String featureId : featureIds) {
+            Vector feature = features.remove(featureId);
+            featureIntents.remove(featureId);
+            if (feature != null) {
+                removed.push(feature);
+            }
+        }
+        removeFeatures(removed);
+    }
+
+    @SuppressWarnings("unchecked")
+    public void removeAllFeatures() {
+        JsArray<Vector> removed = (JsArray<Vector>) JsArray.createArray();
+        for (Vector feature : features.values()) {
+            removed.push(feature);
+        }
+        features.clear();
+        featureIntents.clear();
+        removeFeatures(removed);
+    }
+
+    private void removeFeatures(JsArray<Vector> removed) {
+        if (removed.length() > 0) {
+            boolean wasUpdating = updating;
+            updating = true;
+            getLayer().removeFeatures(removed);
+            updating = wasUpdating;
+        }
+    }
+
     private void setDrawingMode(VectorLayerState.DrawingMode newDrawingMode) {
         if (drawingMode != newDrawingMode) {
             if (drawingMode != VectorLayerState.DrawingMode.NONE) {
@@ -376,8 +693,38 @@ public class VVectorLayer extends FlowPanel implements VLayer {
         }
     }
 
-    private void updateStyleMap(java.util.Map<String, String> styleMap, List<String> uniqueValueRules, boolean extendDefault) {
-        StyleMap sm = getStyleMap(styleMap, uniqueValueRules, extendDefault);
+    /**
+     * @return a key describing the content of the style map in the state,
+     *         equal keys produce equal OpenLayers StyleMaps
+     */
+    private static String getStyleMapKey(VectorLayerState state) {
+        StringBuilder key = new StringBuilder();
+        key.append(state.extendDefault);
+        if (state.styleMap != null) {
+            for (java.util.Map.Entry<String, String> entry : new TreeMap<String, String>(state.styleMap).entrySet()) {
+                key.append('\n').append(entry.getKey()).append('=').append(entry.getValue());
+            }
+        } else {
+            key.append("\nnull");
+        }
+        key.append("\nuniqueValueRules");
+        if (state.uniqueValueRules != null) {
+            for (String rule : state.uniqueValueRules) {
+                key.append('\n').append(rule);
+            }
+        }
+        key.append("\nstyleRules");
+        if (state.styleRules != null) {
+            for (JsonObject rule : state.styleRules) {
+                key.append('\n').append(rule.toJson());
+            }
+        }
+        return key.toString();
+    }
+
+    private void updateStyleMap(java.util.Map<String, String> styleMap, List<String> uniqueValueRules,
+      List<JsonObject> styleRules, boolean extendDefault) {
+        StyleMap sm = getStyleMap(styleMap, uniqueValueRules, styleRules, extendDefault);
         if (sm == null) {
             sm = StyleMap.create();
         }
@@ -387,7 +734,8 @@ public class VVectorLayer extends FlowPanel implements VLayer {
 
 
 
-    public static StyleMap getStyleMap(java.util.Map<String, String> styleMap, List<String> uniqueValueRules, boolean extendDefault) {
+    public static StyleMap getStyleMap(java.util.Map<String, String> styleMap, List<String> uniqueValueRules,
+      List<JsonObject> styleRules, boolean extendDefault) {
         if (styleMap == null) {
             return null;
         }
@@ -412,9 +760,78 @@ public class VVectorLayer extends FlowPanel implements VLayer {
                 addUniqueValueRules(sm, uniqueValueRule);
             }
         }
+        if (styleRules != null) {
+            for (JsonObject styleRule : styleRules) {
+                JavaScriptObject definition = JsonUtil.toJavaScriptObject(styleRule);
+                Rule rule = Rule.create(createRuleOptions(definition));
+                double minZoom = getNumber(definition, "minZoom", Double.NEGATIVE_INFINITY);
+                double maxZoom = getNumber(definition, "maxZoom", Double.POSITIVE_INFINITY);
+                if (minZoom > Double.NEGATIVE_INFINITY || maxZoom < Double.POSITIVE_INFINITY) {
+                    rule.setZoomRange(minZoom, maxZoom);
+                }
+                sm.addRule(styleRule.getString("intent"), rule);
+            }
+        }
         return sm;
     }
 
+    /**
+     * @return the options of an OpenLayers.Rule for a StyleRule definition
+     */
+    private static native JavaScriptObject createRuleOptions(JavaScriptObject definition) /*-{
+        var options = {elseFilter: !!definition.elseFilter};
+        if (definition.filter) {
+            options.filter = @org.vaadin.vol.client.ui.VVectorLayer::createFilter(Lcom/google/gwt/core/client/JavaScriptObject;)(definition.filter);
+        }
+        if (definition.symbolizer) {
+            var symbolizer = $wnd.OpenLayers.Util.extend({}, definition.symbolizer);
+            delete symbolizer['__VOL_INHERIT'];
+            delete symbolizer['__VOL_CONTEXT'];
+            options.symbolizer = symbolizer;
+        }
+        if (definition.minScaleDenominator != null) {
+            options.minScaleDenominator = definition.minScaleDenominator;
+        }
+        if (definition.maxScaleDenominator != null) {
+            options.maxScaleDenominator = definition.maxScaleDenominator;
+        }
+        return options;
+    }-*/;
+
+    /**
+     * @return an OpenLayers.Filter for a RuleFilter definition
+     */
+    private static native JavaScriptObject createFilter(JavaScriptObject definition) /*-{
+        var type = definition.type;
+        if (type == '&&' || type == '||' || type == '!') {
+            var filters = [];
+            for (var i = 0; i < definition.filters.length; i++) {
+                filters.push(@org.vaadin.vol.client.ui.VVectorLayer::createFilter(Lcom/google/gwt/core/client/JavaScriptObject;)(definition.filters[i]));
+            }
+            return @org.vaadin.vol.client.wrappers.filter.LogicalFilter::create(Lcom/google/gwt/core/client/JavaScriptObject;)({type: type, filters: filters});
+        }
+        var options = {type: type, property: definition.property};
+        if (definition.value !== undefined) {
+            options.value = definition.value;
+        }
+        if (definition.lowerBoundary !== undefined) {
+            options.lowerBoundary = definition.lowerBoundary;
+        }
+        if (definition.upperBoundary !== undefined) {
+            options.upperBoundary = definition.upperBoundary;
+        }
+        return @org.vaadin.vol.client.wrappers.filter.ComparisonFilter::create(Lcom/google/gwt/core/client/JavaScriptObject;)(options);
+    }-*/;
+
+    private static native void disableHitDetection(JavaScriptObject options) /*-{
+        options.rendererOptions = $wnd.OpenLayers.Util.extend({hitDetection: false}, options.rendererOptions);
+    }-*/;
+
+    private static native double getNumber(JavaScriptObject object, String key, double defaultValue) /*-{
+        var value = object[key];
+        return value == null ? defaultValue : value;
+    }-*/;
+
     private static native void addUniqueValueRules(StyleMap sm, JavaScriptObject uniqueValueRules) /*-{
         var intent = uniqueValueRules.intent.value
         var property = uniqueValueRules.property
@@ -456,18 +873,95 @@ public class VVectorLayer extends FlowPanel implements VLayer {
     }
 
     public boolean hasChildComponent(Widget component) {
-        return getWidgetIndex(component) != -1;
+        return component.getParent() == this;
+    }
+
+    /**
+     * Adds the vector of the widget to the OpenLayers layer once the current
+     * response has been handled, together with all other vectors added in it,
+     * so that they are rendered in one pass.
+     */
+    public void vectorAdded(VAbstractVector vAbstractVector) {
+        pendingAdded.add(vAbstractVector);
+        scheduleFlush();
     }
 
+    /**
+     * Redraws the vector of the widget once the current response has been
+     * handled. A vector changed several times in a response is drawn once.
+     */
     public void vectorUpdated(VAbstractVector vAbstractVector) {
+        queueRedraw(vAbstractVector.getVector());
+    }
+
+    private void queueRedraw(Vector vector) {
+        pendingRedraws.add(vector);
+        scheduleFlush();
+    }
+
+    private void scheduleFlush() {
+        if (!flushScheduled) {
+            flushScheduled = true;
+            Scheduler.get().scheduleFinally(new ScheduledCommand() {
+                public void execute() {
+                    flushPending();
+                }
+            });
+        }
+    }
+
+    private void flushPending() {
+        flushScheduled = false;
+        if (pendingAdded.isEmpty() && pendingRedraws.isEmpty()) {
+            return;
+        }
+        boolean wasUpdating = updating;
+        updating = true;
+        // redraw the whole layer at once when most of it has changed
+        boolean redrawLayer = pendingRedraws.size() > getLayer().getFeatureCount() / 2;
+        for (Vector vector : pendingRedraws) {
+            // skip vectors removed after they were changed, vectors not yet
+            // added are drawn when added
+            if (vector.isInLayer()) {
+                if (hitIndex != null) {
+                    hitIndex.update(vector);
+                }
+                if (redrawLayer) {
+                    resetModifiedVertices(vector);
+                } else {
+                    vectorUpdated(vector);
+                }
+            }
+        }
+        pendingRedraws.clear();
+        if (redrawLayer) {
+            getLayer().redraw();
+        }
+        JsArray<Vector> added = JsArray.createArray().cast();
+        for (VAbstractVector widget : pendingAdded) {
+            Vector vector = widget.getVector();
+            if (widget.getParent() == this && vector != null && !vector.isInLayer()) {
+                added.push(vector);
+            }
+        }
+        pendingAdded.clear();
+        loader.add(added);
+        updating = wasUpdating;
+    }
+
+    private void vectorUpdated(Vector vector) {
         // redraw
-        getLayer().drawFeature(vAbstractVector.getVector());
+        getLayer().drawFeature(vector);
+        resetModifiedVertices(vector);
+    }
+
+    private void resetModifiedVertices(Vector vector) {
         if (df != null) {
             String id = df.getId();
             if (id.contains("ModifyFeature")) {
                 ModifyFeature mf = df.cast();
                 Vector modifiedFeature = mf.getModifiedFeature();
-                if (modifiedFeature == vAbstractVector.getVector()) {
+                if (modifiedFeature == vector) {
                     // VConsole.log("Whoops, modified on the server side " +
                     // "while currently being modified on the client side. " +
                     // "This may cause issues for OL unleass we notify " +
@@ -12,7 +12,8 @@ public class VWebFeatureServiceLayer extends VAbstractAutopopulatedVectorLayer<W
     @Override
     WebFeatureServiceLayer createLayer() {
         if (layer == null) {
-            layer = WebFeatureServiceLayer.create(getDisplayName(), uri, featureType, featureNS, getProjection(), getStyleMap());
+            layer = WebFeatureServiceLayer.create(getDisplayName(), uri, featureType, featureNS, getProjection(), getStyleMap(),
+              getLayerOptions());
         }
         return layer;
     }
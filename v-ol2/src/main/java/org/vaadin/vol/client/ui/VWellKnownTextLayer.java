@@ -7,7 +7,7 @@ public class VWellKnownTextLayer extends VAbstractAutopopulatedVectorLayer<Vecto
     @Override
     VectorLayer createLayer() {
         if (layer == null) {
-            layer = VectorLayer.create(getDisplayName(), getStyleMap());
+            layer = VectorLayer.create(getDisplayName(), getStyleMap(), getLayerOptions());
         }
         return layer;
     }
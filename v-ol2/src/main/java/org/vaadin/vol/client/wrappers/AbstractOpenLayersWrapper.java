@@ -7,14 +7,23 @@ public abstract class AbstractOpenLayersWrapper extends JavaScriptObject {
     protected AbstractOpenLayersWrapper(){};
 
 
-    public native final void registerHandler(String eventName, GwtOlHandler handler)
+    /**
+     * @return the listener registered to OpenLayers, to be passed to
+     *         {@link #unregisterHandler(String, JavaScriptObject)}
+     */
+    public native final JavaScriptObject registerHandler(String eventName, GwtOlHandler handler)
     /*-{
         var f = function() {
             $entry(handler.@org.vaadin.vol.client.wrappers.GwtOlHandler::onEvent(Lcom/google/gwt/core/client/JsArray;)(arguments));
         };
         this.events.addEventType(eventName);
         this.events.register(eventName,this,f);
+        return f;
+    }-*/;
 
+    public native final void unregisterHandler(String eventName, JavaScriptObject listener)
+    /*-{
+        this.events.unregister(eventName, this, listener);
     }-*/;
 
 }
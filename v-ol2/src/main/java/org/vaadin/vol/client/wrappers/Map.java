@@ -1,5 +1,6 @@
 package org.vaadin.vol.client.wrappers;
 
+import com.google.gwt.core.client.JavaScriptObject;
 import com.google.gwt.core.client.JsArray;
 import com.google.gwt.dom.client.DivElement;
 import com.google.gwt.dom.client.Document;
@@ -127,8 +128,16 @@ public class Map extends Widget {
         getMap().zoomTo(zoom);
     }
 
-    public void registerEventHandler(String evtName, GwtOlHandler handler) {
-        getMap().registerHandler(evtName, handler);
+    /**
+     * @return the listener to pass to
+     *         {@link #unregisterEventHandler(String, JavaScriptObject)}
+     */
+    public JavaScriptObject registerEventHandler(String evtName, GwtOlHandler handler) {
+        return getMap().registerHandler(evtName, handler);
+    }
+
+    public void unregisterEventHandler(String evtName, JavaScriptObject listener) {
+        getMap().unregisterHandler(evtName, listener);
     }
 
     public Bounds getExtent() {
@@ -10,6 +10,51 @@ public class Marker extends AbstractOpenLayersWrapper {
         return new $wnd.OpenLayers.Marker(lonlat, icon);
     }-*/;
 
+    /**
+     * Moves the marker to the given location (in map projection) without
+     * recreating its DOM.
+     */
+    public native final void setLonLat(LonLat lonlat)
+    /*-{
+        this.lonlat = lonlat;
+        if (this.map && this.icon) {
+            var px = this.map.getLayerPxFromLonLat(lonlat);
+            if (px) {
+                this.icon.moveTo(px);
+            }
+        }
+    }-*/;
+
+    /**
+     * Changes the image, size and offset of the icon of the marker in place,
+     * keeping the DOM element the event handlers are registered to.
+     *
+     * @param offset
+     *            the offset of the image, null to center it on the location
+     */
+    public native final void updateIcon(String url, Size size, Pixel offset)
+    /*-{
+        var icon = this.icon;
+        icon.offset = offset || new $wnd.OpenLayers.Pixel(-(size.w / 2), -(size.h / 2));
+        icon.calculateOffset = null;
+        icon.url = url;
+        icon.setSize(size);
+    }-*/;
+
+    /**
+     * Tags the DOM element of the marker with the given id, used to resolve
+     * the marker from events handled by its layer, see
+     * {@link org.vaadin.vol.client.wrappers.layer.MarkerLayer#addMarkerEventHandler(String, GwtOlHandler)}
+     * .
+     */
+    public native final void setMarkerId(String id)
+    /*-{
+        this.__volMarkerId = id;
+        if (this.icon) {
+            this.icon.imageDiv.__volMarkerId = id;
+        }
+    }-*/;
+
     /**
      * TODO better typed listeners and parameters.
      *
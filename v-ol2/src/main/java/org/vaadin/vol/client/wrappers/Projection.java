@@ -6,9 +6,89 @@ public class Projection extends JavaScriptObject {
     protected Projection() {
     }
 
+    // projections by code, OpenLayers projections are not modified after
+    // creation so they can be shared
+    private static JavaScriptObject cache;
+
     public static native Projection get(String projectionString)
     /*-{
-        return new $wnd.OpenLayers.Projection(projectionString);
+        if (projectionString == null) {
+            return new $wnd.OpenLayers.Projection(projectionString);
+        }
+        var cache = @org.vaadin.vol.client.wrappers.Projection::cache;
+        if (!cache) {
+            cache = @org.vaadin.vol.client.wrappers.Projection::cache = {};
+        }
+        var projection = cache[projectionString];
+        if (!projection) {
+            projection = cache[projectionString] = new $wnd.OpenLayers.Projection(projectionString);
+        }
+        return projection;
+    }-*/;
+
+    public final native String getCode()
+    /*-{
+        return this.getCode();
+    }-*/;
+
+    /**
+     * Transforms interleaved x/y pairs from one projection to another.
+     *
+     * @return the transformed coordinates, the given array is not modified
+     */
+    public static double[] transform(double[] coordinates, Projection source, Projection target) {
+        double[] transformed = new double[coordinates.length];
+        transform(coordinates, transformed, source, target);
+        return transformed;
+    }
+
+    /**
+     * Transforms all pairs with one loop. Transforms between EPSG:4326 and
+     * the spherical mercator codes are computed inline with the formulas of
+     * OpenLayers, other ones with OpenLayers.Projection.transform reusing a
+     * single point object.
+     */
+    private static native void transform(double[] coordinates, double[] transformed, Projection source,
+            Projection target)
+    /*-{
+        var n = coordinates.length - coordinates.length % 2;
+        var sourceCode = source ? source.getCode() : null;
+        var targetCode = target ? target.getCode() : null;
+        var mercator = {"EPSG:900913": true, "EPSG:3857": true, "EPSG:102100": true, "EPSG:102113": true};
+        var i;
+        if (!source || !target || sourceCode == targetCode) {
+            for (i = 0; i < n; i++) {
+                transformed[i] = coordinates[i];
+            }
+        } else if (sourceCode == "EPSG:4326" && mercator[targetCode]) {
+            for (i = 0; i < n; i += 2) {
+                transformed[i] = coordinates[i] * 20037508.34 / 180;
+                var y = Math.log(Math.tan((90 + coordinates[i + 1]) * Math.PI / 360)) / (Math.PI / 180);
+                transformed[i + 1] = y * 20037508.34 / 180;
+            }
+        } else if (mercator[sourceCode] && targetCode == "EPSG:4326") {
+            for (i = 0; i < n; i += 2) {
+                transformed[i] = coordinates[i] / 20037508.34 * 180;
+                var lat = coordinates[i + 1] / 20037508.34 * 180;
+                transformed[i + 1] = 180 / Math.PI * (2 * Math.atan(Math.exp(lat * Math.PI / 180)) - Math.PI / 2);
+            }
+        } else if (mercator[sourceCode] && mercator[targetCode]) {
+            for (i = 0; i < n; i++) {
+                transformed[i] = coordinates[i];
+            }
+        } else {
+            var point = {x: 0, y: 0};
+            for (i = 0; i < n; i += 2) {
+                point.x = coordinates[i];
+                point.y = coordinates[i + 1];
+                $wnd.OpenLayers.Projection.transform(point, source, target);
+                transformed[i] = point.x;
+                transformed[i + 1] = point.y;
+            }
+        }
+        if (n < coordinates.length) {
+            transformed[n] = coordinates[n];
+        }
     }-*/;
 
 }
@@ -16,5 +16,23 @@ public class Rule extends JavaScriptObject {
         return new $wnd.OpenLayers.Rule(options);
     }-*/;
 
+    /**
+     * Limits the rule to the given zoom levels of the map, both inclusive.
+     */
+    public native final void setZoomRange(double minZoom, double maxZoom)
+    /*-{
+        var evaluate = this.evaluate;
+        this.evaluate = function(feature) {
+            var map = feature.layer && feature.layer.map;
+            if (map) {
+                var zoom = map.getZoom();
+                if (zoom < minZoom || zoom > maxZoom) {
+                    return false;
+                }
+            }
+            return evaluate.apply(this, arguments);
+        };
+    }-*/;
+
 //  public native final addSymbolizers()
 }
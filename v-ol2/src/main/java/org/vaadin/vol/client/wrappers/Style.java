@@ -38,6 +38,43 @@ public class Style extends JsObject {
          return  _style
     }-*/;
 
+    /**
+     * Removes the reference to the inherited named style, custom styles of
+     * features are used without the defaults of the named style.
+     */
+    public static native void removeInheritance(JavaScriptObject symbolizer)
+    /*-{
+        delete symbolizer['__VOL_INHERIT'];
+    }-*/;
+
+    /**
+     * @return true if the symbolizer has to be evaluated per feature with an
+     *         OpenLayers.Style, because it contains attribute templates or a
+     *         context
+     */
+    public static native boolean needsEvaluation(JavaScriptObject symbolizer)
+    /*-{
+        if(symbolizer['__VOL_CONTEXT']) {
+            return true;
+        }
+        for(var key in symbolizer) {
+            var value = symbolizer[key];
+            if(typeof value == 'string' && value.indexOf('${') != -1) {
+                return true;
+            }
+        }
+        return false;
+    }-*/;
+
+    /**
+     * @return the symbolizer of this OpenLayers.Style evaluated for the given
+     *         feature
+     */
+    public native final JavaScriptObject createSymbolizer(Vector feature)
+    /*-{
+        return this.createSymbolizer(feature);
+    }-*/;
+
     public native final String getId()
     /*-{
         return this.id;
@@ -33,6 +33,20 @@ public class StyleMap extends JsObject {
         this.extendDefault = b;
     }-*/;
 
+    /**
+     * Adds the rule to the style of the given render intent, creating an empty
+     * style for unknown intents.
+     */
+    public native final void addRule(String intent, Rule rule)
+    /*-{
+        var style = this.styles[intent];
+        if (!style) {
+            style = new $wnd.OpenLayers.Style();
+            this.styles[intent] = style;
+        }
+        style.addRules([rule]);
+    }-*/;
+
     public native final void addUniqueValueRules(String intent,
             String property, JavaScriptObject lookup, Object object)
     /*-{
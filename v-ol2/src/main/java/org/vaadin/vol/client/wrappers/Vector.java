@@ -54,6 +54,30 @@ public abstract class Vector extends AbstractOpenLayersWrapper {
         return this.fid;
     }-*/;
 
+    public native final void setFeatureId(String fid)
+    /*-{
+        this.fid = fid;
+    }-*/;
+
+    public native final boolean isInLayer()
+    /*-{
+        return this.layer != null;
+    }-*/;
+
+    /**
+     * @return the id of the Vaadin connector this vector belongs to or
+     *         undefined for lightweight features
+     */
+    public native final String getConnectorId()
+    /*-{
+        return this.vaadinConnectorId;
+    }-*/;
+
+    public native final void setConnectorId(String connectorId)
+    /*-{
+        this.vaadinConnectorId = connectorId;
+    }-*/;
+
     public native final ValueMap getAttributes()
     /*-{
         return this.attributes;
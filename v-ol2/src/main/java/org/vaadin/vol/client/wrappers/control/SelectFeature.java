@@ -68,8 +68,32 @@ public class SelectFeature extends Control {
         this.clickFeature(vector);
     }-*/;
 
+    /**
+     * Attaches the control to the given layers. Features under the mouse are
+     * looked up from the topmost layer down, so that layers finding features
+     * without the renderer, e.g. with a spatial index, pick the visible one.
+     */
     public final native void setLayer(JsArray<Layer> layers)
     /*-{
         this.setLayer(layers);
+        var root = this.layer;
+        if (root && root.layers) {
+            root.getFeatureFromEvent = function(evt) {
+                var map = this.map;
+                var layers = this.layers.slice();
+                if (map) {
+                    layers.sort(function(a, b) {
+                        return map.getLayerIndex(b) - map.getLayerIndex(a);
+                    });
+                }
+                for (var i = 0; i < layers.length; i++) {
+                    var feature = layers[i].getFeatureFromEvent(evt);
+                    if (feature) {
+                        return feature;
+                    }
+                }
+                return null;
+            };
+        }
     }-*/;
 }
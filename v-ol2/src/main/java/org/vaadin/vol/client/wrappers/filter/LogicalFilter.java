@@ -0,0 +1,14 @@
+package org.vaadin.vol.client.wrappers.filter;
+
+import com.google.gwt.core.client.JavaScriptObject;
+
+public class LogicalFilter extends JavaScriptObject {
+
+    protected LogicalFilter() {
+    };
+
+    public native static LogicalFilter create(JavaScriptObject options)
+    /*-{
+        return new $wnd.OpenLayers.Filter.Logical(options);
+    }-*/;
+}
@@ -1,5 +1,8 @@
 package org.vaadin.vol.client.wrappers.layer;
 
+import com.google.gwt.core.client.JsArray;
+
+import org.vaadin.vol.client.wrappers.GwtOlHandler;
 import org.vaadin.vol.client.wrappers.Marker;
 
 
@@ -23,6 +26,59 @@ public class MarkerLayer extends Layer {
         this.removeMarker(marker);
     }-*/;
 
+    /**
+     * Removes the given markers with a single pass over the markers of the
+     * layer.
+     */
+    public native final void removeMarkers(JsArray<Marker> removed)
+    /*-{
+        for (var i = 0; i < removed.length; i++) {
+            removed[i].__volRemoved = true;
+            removed[i].erase();
+        }
+        var remaining = [];
+        for (var j = 0; j < this.markers.length; j++) {
+            var marker = this.markers[j];
+            if (marker.__volRemoved) {
+                delete marker.__volRemoved;
+            } else {
+                remaining.push(marker);
+            }
+        }
+        this.markers = remaining;
+    }-*/;
+
+    /**
+     * Registers a single DOM event handler for all markers of the layer. The
+     * handler is called with an object having the id given to the marker with
+     * {@link Marker#setMarkerId(String)} as "markerId" and the DOM event as
+     * "event". Context menu events on markers are stopped.
+     */
+    public native final void addMarkerEventHandler(String type, GwtOlHandler handler)
+    /*-{
+        var layer = this;
+        var f = $entry(function(e) {
+            e = e || $wnd.event;
+            var target = e.target || e.srcElement;
+            while (target && target != layer.div) {
+                if (target.__volMarkerId) {
+                    if (type == "contextmenu") {
+                        $wnd.OpenLayers.Event.stop(e);
+                    }
+                    handler.@org.vaadin.vol.client.wrappers.GwtOlHandler::onEvent(Lcom/google/gwt/core/client/JsArray;)([{markerId: target.__volMarkerId, event: e}]);
+                    return;
+                }
+                target = target.parentNode;
+            }
+        });
+        $wnd.OpenLayers.Event.observe(this.div, type, f);
+    }-*/;
+
+    public native final int getMarkerCount()
+    /*-{
+        return this.markers.length;
+    }-*/;
+
     public native final void setDisplayName(String displayName)
     /*-{
         this.name = displayName;
@@ -0,0 +1,154 @@
+package org.vaadin.vol.client.wrappers.layer;
+
+import com.google.gwt.core.client.JsArray;
+
+import org.vaadin.vol.client.wrappers.GwtOlHandler;
+import org.vaadin.vol.client.wrappers.Marker;
+import org.vaadin.vol.client.wrappers.Vector;
+
+/**
+ * A vector layer drawing markers as point features with their icon as
+ * external graphic, preferably with the Canvas renderer. The markers keep
+ * their location and icon, but their own DOM elements are never attached, so
+ * panning and zooming does not reposition an element per marker.
+ */
+public class MarkerVectorLayer extends VectorLayer {
+
+    protected MarkerVectorLayer() {
+    };
+
+    public native final static MarkerVectorLayer create(String name)
+    /*-{
+        return new $wnd.OpenLayers.Layer.Vector(name, {
+            renderers: ["Canvas", "SVG", "VML"],
+            // the markers are found with a spatial index, see FeatureHitIndex
+            rendererOptions: {hitDetection: false}
+        });
+    }-*/;
+
+    /**
+     * Adds the given markers with a single redraw.
+     */
+    public native final void addMarkers(JsArray<Marker> markers)
+    /*-{
+        var features = [];
+        for (var i = 0; i < markers.length; i++) {
+            var marker = markers[i];
+            var feature = marker.__volFeature;
+            if (!feature) {
+                feature = new $wnd.OpenLayers.Feature.Vector(new $wnd.OpenLayers.Geometry.Point(0, 0));
+                feature.__volMarker = marker;
+                marker.__volFeature = feature;
+            }
+            if (feature.layer != this) {
+                @org.vaadin.vol.client.wrappers.layer.MarkerVectorLayer::updateFeature(Lorg/vaadin/vol/client/wrappers/Marker;)(marker);
+                features.push(feature);
+            }
+        }
+        if (features.length > 0) {
+            this.addFeatures(features);
+        }
+    }-*/;
+
+    /**
+     * Removes the given markers with a single redraw.
+     */
+    public native final void removeMarkers(JsArray<Marker> markers)
+    /*-{
+        var features = [];
+        for (var i = 0; i < markers.length; i++) {
+            var feature = markers[i].__volFeature;
+            if (feature && feature.layer == this) {
+                features.push(feature);
+            }
+        }
+        if (features.length == this.features.length) {
+            this.removeAllFeatures();
+        } else if (features.length > 0) {
+            this.removeFeatures(features);
+        }
+    }-*/;
+
+    /**
+     * Redraws the given markers after their location or icon has changed,
+     * with a single redraw of the canvas.
+     */
+    public native final void updateMarkers(JsArray<Marker> markers)
+    /*-{
+        var renderer = this.renderer;
+        renderer.locked = true;
+        for (var i = 0; i < markers.length; i++) {
+            var feature = markers[i].__volFeature;
+            if (feature && feature.layer == this) {
+                @org.vaadin.vol.client.wrappers.layer.MarkerVectorLayer::updateFeature(Lorg/vaadin/vol/client/wrappers/Marker;)(markers[i]);
+                this.drawFeature(feature);
+            }
+        }
+        renderer.locked = false;
+        if (renderer.pendingRedraw) {
+            renderer.redraw();
+            renderer.pendingRedraw = false;
+        }
+    }-*/;
+
+    /**
+     * @return the feature drawing the marker, null if the marker has not been
+     *         added to a layer of this kind
+     */
+    public native final static Vector getFeature(Marker marker)
+    /*-{
+        return marker.__volFeature || null;
+    }-*/;
+
+    /**
+     * Registers a single DOM event handler for all markers of the layer, like
+     * {@link MarkerLayer#addMarkerEventHandler(String, GwtOlHandler)}. The
+     * handler is registered to the viewport of the map, the layer must have
+     * been added to a map.
+     */
+    public native final void addMarkerEventHandler(String type, GwtOlHandler handler)
+    /*-{
+        var layer = this;
+        var f = $entry(function(e) {
+            e = e || $wnd.event;
+            if (!layer.map || !layer.getVisibility()) {
+                return;
+            }
+            e.xy = layer.map.events.getMousePosition(e);
+            var feature = layer.getFeatureFromEvent(e);
+            if (feature && feature.__volMarker && feature.__volMarker.__volMarkerId) {
+                if (type == "contextmenu") {
+                    $wnd.OpenLayers.Event.stop(e);
+                }
+                handler.@org.vaadin.vol.client.wrappers.GwtOlHandler::onEvent(Lcom/google/gwt/core/client/JsArray;)([{markerId: feature.__volMarker.__volMarkerId, event: e}]);
+            }
+        });
+        $wnd.OpenLayers.Event.observe(this.map.viewPortDiv, type, f);
+    }-*/;
+
+    public native final void setDisplayName(String displayName)
+    /*-{
+        this.name = displayName;
+    }-*/;
+
+    private static native void updateFeature(Marker marker)
+    /*-{
+        var feature = marker.__volFeature;
+        var geometry = feature.geometry;
+        geometry.x = marker.lonlat.lon;
+        geometry.y = marker.lonlat.lat;
+        geometry.clearBounds();
+        var icon = marker.icon;
+        var size = icon.size;
+        var offset = icon.calculateOffset ? icon.calculateOffset(size) : icon.offset;
+        feature.style = {
+            externalGraphic: icon.url,
+            graphicWidth: size.w,
+            graphicHeight: size.h,
+            graphicXOffset: offset.x,
+            graphicYOffset: offset.y,
+            graphicOpacity: 1,
+            cursor: "pointer"
+        };
+    }-*/;
+}
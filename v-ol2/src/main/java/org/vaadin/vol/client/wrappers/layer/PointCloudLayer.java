@@ -0,0 +1,232 @@
+package org.vaadin.vol.client.wrappers.layer;
+
+import org.vaadin.vol.client.wrappers.Projection;
+
+/**
+ * An OpenLayers layer drawing large numbers of points directly on a canvas.
+ * The points are kept in typed arrays in map projection, relative to the first
+ * point to keep the precision of 32 bit floats, and drawn at most once per
+ * animation frame when the map moves.
+ */
+public class PointCloudLayer extends Layer {
+
+    protected PointCloudLayer() {
+    };
+
+    public native final static PointCloudLayer create(String displayName)
+    /*-{
+        var layer = new $wnd.OpenLayers.Layer(displayName, {isBaseLayer: false});
+        var canvas = $doc.createElement("canvas");
+        canvas.style.position = "absolute";
+        layer.div.appendChild(canvas);
+        layer.canvas = canvas;
+        layer.pointCount = 0;
+        layer.pointSize = 2;
+        layer.pointColor = 0xff0099ee;
+        layer.pointColorCss = "#ee9900";
+        var moveTo = layer.moveTo;
+        layer.moveTo = function(bounds, zoomChanged, dragging) {
+            moveTo.apply(this, arguments);
+            if (!this.drawPending) {
+                this.drawPending = true;
+                var requestFrame = $wnd.requestAnimationFrame || function(callback) {
+                    return $wnd.setTimeout(callback, 16);
+                };
+                requestFrame($entry(function() {
+                    @org.vaadin.vol.client.wrappers.layer.PointCloudLayer::draw(Lorg/vaadin/vol/client/wrappers/layer/PointCloudLayer;)(layer);
+                }));
+            }
+        };
+        return layer;
+    }-*/;
+
+    /**
+     * Replaces the points of the layer. The arrays are read in place, Java
+     * arrays being plain JavaScript arrays in compiled code.
+     *
+     * @param coordinates
+     *            interleaved x/y pairs in map projection, see
+     *            {@link Projection#transform(double[], Projection, Projection)}
+     * @param colors
+     *            colors of the points as 0xRRGGBB, null for the layer color
+     * @param sizes
+     *            sizes of the points in pixels, null for the layer point size
+     */
+    public native final void setPoints(double[] coordinates, double[] colors, double[] sizes)
+    /*-{
+        var count = Math.floor(coordinates.length / 2);
+        var xs = new Float32Array(count);
+        var ys = new Float32Array(count);
+        var originX = count > 0 ? coordinates[0] : 0;
+        var originY = count > 0 ? coordinates[1] : 0;
+        for (var i = 0; i < count; i++) {
+            xs[i] = coordinates[i * 2] - originX;
+            ys[i] = coordinates[i * 2 + 1] - originY;
+        }
+        var colorArray = null;
+        if (colors) {
+            colorArray = new Uint32Array(count);
+            for (var i = 0; i < count && i < colors.length; i++) {
+                var c = colors[i];
+                // canvas pixels are RGBA bytes, read as little endian integers
+                colorArray[i] = (0xff000000 | ((c & 0xff) << 16) | (c & 0xff00) | ((c >> 16) & 0xff)) >>> 0;
+            }
+        }
+        var sizeArray = null;
+        if (sizes) {
+            sizeArray = new Float32Array(count);
+            for (var i = 0; i < count && i < sizes.length; i++) {
+                sizeArray[i] = sizes[i];
+            }
+        }
+        this.xs = xs;
+        this.ys = ys;
+        this.originX = originX;
+        this.originY = originY;
+        this.colors = colorArray;
+        this.sizes = sizeArray;
+        this.pointCount = count;
+        this.redraw();
+    }-*/;
+
+    /**
+     * Sets the color and size of the points without their own.
+     *
+     * @param color
+     *            any CSS color
+     */
+    public native final void setPointStyle(String color, double size)
+    /*-{
+        if (color != this.pointColorCss) {
+            // let the browser parse the color
+            var canvas = $doc.createElement("canvas");
+            canvas.width = 1;
+            canvas.height = 1;
+            var context = canvas.getContext("2d");
+            context.fillStyle = color;
+            context.fillRect(0, 0, 1, 1);
+            var rgba = context.getImageData(0, 0, 1, 1).data;
+            this.pointColor = ((rgba[3] << 24) | (rgba[2] << 16) | (rgba[1] << 8) | rgba[0]) >>> 0;
+            this.pointColorCss = color;
+        }
+        this.pointSize = size;
+        this.redraw();
+    }-*/;
+
+    public native final int getPointCount()
+    /*-{
+        return this.pointCount;
+    }-*/;
+
+    /**
+     * @return the index of the topmost point drawn within the tolerance from
+     *         the given pixel of the map viewport, -1 if none
+     */
+    public native final int pick(int x, int y, int tolerance)
+    /*-{
+        var map = this.map;
+        if (!map || !this.pointCount || !this.getVisibility()) {
+            return -1;
+        }
+        var lonLat = map.getLonLatFromViewPortPx(new $wnd.OpenLayers.Pixel(x, y));
+        var resolution = map.getResolution();
+        var px = lonLat.lon - this.originX;
+        var py = lonLat.lat - this.originY;
+        var xs = this.xs;
+        var ys = this.ys;
+        var sizes = this.sizes;
+        var hit = -1;
+        var hitDistance = Infinity;
+        for (var i = 0; i < this.pointCount; i++) {
+            var dx = (xs[i] - px) / resolution;
+            var dy = (ys[i] - py) / resolution;
+            var distance = dx * dx + dy * dy;
+            var r = Math.max(tolerance, (sizes ? sizes[i] : this.pointSize) / 2);
+            // later points are drawn on top
+            if (distance <= r * r && distance <= hitDistance) {
+                hit = i;
+                hitDistance = distance;
+            }
+        }
+        return hit;
+    }-*/;
+
+    private static native void draw(PointCloudLayer layer)
+    /*-{
+        layer.drawPending = false;
+        var map = layer.map;
+        var canvas = layer.canvas;
+        if (!map || !layer.getVisibility()) {
+            return;
+        }
+        var size = map.getSize();
+        var w = size.w;
+        var h = size.h;
+        if (canvas.width != w) {
+            canvas.width = w;
+        }
+        if (canvas.height != h) {
+            canvas.height = h;
+        }
+        // keep the canvas on the viewport while the layer container moves
+        var origin = map.getLayerPxFromViewPortPx(new $wnd.OpenLayers.Pixel(0, 0));
+        canvas.style.left = origin.x + "px";
+        canvas.style.top = origin.y + "px";
+        var context = canvas.getContext("2d");
+        context.clearRect(0, 0, w, h);
+        var count = layer.pointCount;
+        var extent = map.getExtent();
+        if (!count || !w || !h || !extent) {
+            return;
+        }
+        var resolution = map.getResolution();
+        var left = extent.left - layer.originX;
+        var top = extent.top - layer.originY;
+        var xs = layer.xs;
+        var ys = layer.ys;
+        var colors = layer.colors;
+        var sizes = layer.sizes;
+        var image = context.createImageData(w, h);
+        var pixels = new Uint32Array(image.data.buffer);
+        // small points are written to the pixels directly, larger ones are
+        // drawn as circles on top
+        var large = [];
+        for (var i = 0; i < count; i++) {
+            var s = sizes ? sizes[i] : layer.pointSize;
+            var px = (xs[i] - left) / resolution;
+            var py = (top - ys[i]) / resolution;
+            if (px < -s || py < -s || px >= w + s || py >= h + s) {
+                continue;
+            }
+            if (s > 3) {
+                large.push(i);
+                continue;
+            }
+            var c = colors ? colors[i] : layer.pointColor;
+            var n = s < 1 ? 1 : Math.round(s);
+            var x0 = Math.round(px - n / 2);
+            var y0 = Math.round(py - n / 2);
+            for (var y = Math.max(0, y0); y < y0 + n && y < h; y++) {
+                var row = y * w;
+                for (var x = Math.max(0, x0); x < x0 + n && x < w; x++) {
+                    pixels[row + x] = c;
+                }
+            }
+        }
+        context.putImageData(image, 0, 0);
+        var fill = null;
+        for (var j = 0; j < large.length; j++) {
+            var i = large[j];
+            var c = colors ? colors[i] : layer.pointColor;
+            if (c !== fill) {
+                context.fillStyle = "rgba(" + (c & 0xff) + "," + ((c >> 8) & 0xff) + ","
+                    + ((c >> 16) & 0xff) + "," + (((c >>> 24) & 0xff) / 255) + ")";
+                fill = c;
+            }
+            context.beginPath();
+            context.arc((xs[i] - left) / resolution, (top - ys[i]) / resolution,
+                (sizes ? sizes[i] : layer.pointSize) / 2, 0, 2 * Math.PI);
+            context.fill();
+        }
+    }-*/;
+}
@@ -1,10 +1,17 @@
 package org.vaadin.vol.client.wrappers.layer;
 
+import org.vaadin.vol.client.JsonUtil;
 import org.vaadin.vol.client.wrappers.GwtOlHandler;
 import org.vaadin.vol.client.wrappers.StyleMap;
 import org.vaadin.vol.client.wrappers.Vector;
 
 import com.google.gwt.core.client.JavaScriptObject;
+import com.google.gwt.core.client.JsArray;
+import com.google.gwt.core.client.JsArrayString;
+
+import elemental.json.JsonObject;
+
+import java.util.List;
 
 public class VectorLayer extends Layer {
 
@@ -16,26 +23,70 @@ public class VectorLayer extends Layer {
      *
      * @return
      */
-    public native final static VectorLayer create(String displayName)
+    public static VectorLayer create(String displayName) {
+        return createWithOptions(displayName, JavaScriptObject.createObject());
+    }
+
+    /**
+     * @param options
+     *            additional layer options, see {@link #createOptions(List, JsonObject)}
+     */
+    public native final static VectorLayer createWithOptions(String displayName, JavaScriptObject options)
     /*-{
         var layer_style = $wnd.OpenLayers.Util.extend({}, $wnd.OpenLayers.Feature.Vector.style['default']);
         layer_style.fillOpacity = 0.2;
         layer_style.graphicOpacity = 1;
 
-        return new $wnd.OpenLayers.Layer.Vector(displayName, {styles: layer_style});
+        return new $wnd.OpenLayers.Layer.Vector(displayName,
+            $wnd.OpenLayers.Util.extend({styles: layer_style}, options));
 
     }-*/;
 
+    public static VectorLayer create(String displayName, JavaScriptObject stylemap) {
+        return create(displayName, stylemap, JavaScriptObject.createObject());
+    }
+
     public native final static VectorLayer create(String displayName,
-            JavaScriptObject stylemap)
+            JavaScriptObject stylemap, JavaScriptObject options)
     /*-{
-        _myvector_layer = new $wnd.OpenLayers.Layer.Vector(displayName);
+        _myvector_layer = new $wnd.OpenLayers.Layer.Vector(displayName, options);
         if(stylemap)
             _myvector_layer.styleMap = stylemap;
         return _myvector_layer;
 
     }-*/;
 
+    /**
+     * @param renderers
+     *            the class names of the renderers to use, in order of
+     *            preference, null for the OpenLayers default
+     * @param rendererOptions
+     *            options passed to the renderer as such, may be null
+     * @return the layer options for the renderers
+     */
+    public static JavaScriptObject createOptions(List<String> renderers, JsonObject rendererOptions) {
+        JsArrayString names = null;
+        if (renderers != null && !renderers.isEmpty()) {
+            names = JsArrayString.createArray().cast();
+            for (String renderer : renderers) {
+                names.push(renderer);
+            }
+        }
+        return createOptions(names, rendererOptions != null ? JsonUtil.toJavaScriptObject(rendererOptions) : null);
+    }
+
+    private native static JavaScriptObject createOptions(JsArrayString renderers, JavaScriptObject rendererOptions)
+    /*-{
+        var options = {};
+        if (renderers) {
+            options.renderers = $wnd.toOlArray(renderers);
+        }
+        if (rendererOptions) {
+            options.rendererOptions = rendererOptions;
+        }
+        return options;
+    }-*/;
+
     public native final void removeFeature(Vector vector)
     /*-{
         this.removeFeatures(vector);
@@ -51,6 +102,35 @@ public class VectorLayer extends Layer {
         this.addFeatures(vector);
     }-*/;
 
+    public native final void addFeatures(JsArray<Vector> vectors)
+    /*-{
+        this.addFeatures($wnd.toOlArray(vectors));
+    }-*/;
+
+    public native final void removeFeatures(JsArray<Vector> vectors)
+    /*-{
+        this.removeFeatures($wnd.toOlArray(vectors));
+    }-*/;
+
+    public native final int getFeatureCount()
+    /*-{
+        return this.features.length;
+    }-*/;
+
+    public native final JsArray<Vector> getFeatures()
+    /*-{
+        return this.features;
+    }-*/;
+
+    /**
+     * @return the class name of the renderer OpenLayers chose for the layer,
+     *         e.g. OpenLayers.Renderer.Canvas
+     */
+    public native final String getRendererClassName()
+    /*-{
+        return this.renderer ? this.renderer.CLASS_NAME : null;
+    }-*/;
+
     public native final void drawFeature(Vector vector)
     /*-{
         this.drawFeature(vector);
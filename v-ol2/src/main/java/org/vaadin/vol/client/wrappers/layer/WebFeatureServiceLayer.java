@@ -1,5 +1,7 @@
 package org.vaadin.vol.client.wrappers.layer;
 
+import com.google.gwt.core.client.JavaScriptObject;
+
 import org.vaadin.vol.client.wrappers.StyleMap;
 
 public class WebFeatureServiceLayer extends VectorLayer {
@@ -7,8 +9,18 @@ public class WebFeatureServiceLayer extends VectorLayer {
     protected WebFeatureServiceLayer() {
     };
 
+    public static WebFeatureServiceLayer create(String display,
+            String url, String featureType, String ns, String projection, StyleMap styleMap) {
+        return create(display, url, featureType, ns, projection, styleMap, JavaScriptObject.createObject());
+    }
+
+    /**
+     * @param layerOptions
+     *            additional layer options, see {@link #createOptions(java.util.List, elemental.json.JsonObject)}
+     */
     public native final static WebFeatureServiceLayer create(String display,
-            String url, String featureType, String ns, String projection, StyleMap styleMap)
+            String url, String featureType, String ns, String projection, StyleMap styleMap,
+            JavaScriptObject layerOptions)
     /*-{
         var options = {
                 'strategies': [new $wnd.OpenLayers.Strategy.BBOX()],
@@ -24,6 +36,7 @@ public class WebFeatureServiceLayer extends VectorLayer {
             if(styleMap) {
                 options.styleMap = styleMap;
             }
+            $wnd.OpenLayers.Util.extend(options, layerOptions);
             return new $wnd.OpenLayers.Layer.Vector(display, options);
     }-*/;
 
@@ -0,0 +1,132 @@
+package org.vaadin.vol;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class ClusterIndexTest {
+
+    private static final double[] WORLD = { -1000, -1000, 1000, 1000 };
+
+    @Test
+    public void groupsPointsByCell() {
+        ClusterIndex<String> index = new ClusterIndex<String>();
+        index.put("a", 1, 1);
+        index.put("b", 3, 3);
+        index.put("c", 15, 5);
+        Map<String, Cluster<String>> clusters = byFirstMember(index.getClusters(0, 10, WORLD));
+        assertEquals(2, clusters.size());
+        assertEquals(2, clusters.get("a").getSize());
+        assertEquals(2, clusters.get("a").getCenterX(), 0);
+        assertEquals(1, clusters.get("c").getSize());
+
+        // larger cells at a lower zoom level
+        List<Cluster<String>> zoomedOut = index.getClusters(1, 20, WORLD);
+        assertEquals(1, zoomedOut.size());
+        assertEquals(3, zoomedOut.get(0).getSize());
+    }
+
+    @Test
+    public void returnsClustersWithinArea() {
+        ClusterIndex<String> index = new ClusterIndex<String>();
+        index.put("a", 1, 1);
+        index.put("b", 101, 101);
+        List<Cluster<String>> clusters = index.getClusters(0, 10, new double[] { 0, 0, 50, 50 });
+        assertEquals(1, clusters.size());
+        assertEquals("a", clusters.get(0).getMembers().get(0));
+    }
+
+    @Test
+    public void movesAndRemovesPoints() {
+        ClusterIndex<String> index = new ClusterIndex<String>();
+        index.put("a", 1, 1);
+        index.put("b", 3, 3);
+        assertEquals(1, index.getClusters(0, 10, WORLD).size());
+
+        index.put("b", 25, 25);
+        Map<String, Cluster<String>> clusters = byFirstMember(index.getClusters(0, 10, WORLD));
+        assertEquals(2, clusters.size());
+        assertEquals(1, clusters.get("a").getSize());
+        assertEquals(25, clusters.get("b").getCenterX(), 0);
+
+        index.remove("b");
+        assertEquals(1, index.getClusters(0, 10, WORLD).size());
+        index.clear();
+        assertTrue(index.getClusters(0, 10, WORLD).isEmpty());
+    }
+
+    @Test
+    public void updatesCachedLevelsLikeRebuilding() {
+        Random random = new Random(1);
+        ClusterIndex<Integer> index = new ClusterIndex<Integer>();
+        for (int i = 0; i < 500; i++) {
+            index.put(i, random.nextDouble() * 200 - 100, random.nextDouble() * 200 - 100);
+        }
+        // cache two levels
+        index.getClusters(0, 20, WORLD);
+        index.getClusters(1, 50, WORLD);
+        for (int i = 0; i < 1000; i++) {
+            int item = random.nextInt(600);
+            if (random.nextInt(5) == 0) {
+                index.remove(item);
+            } else {
+                index.put(item, random.nextDouble() * 200 - 100, random.nextDouble() * 200 - 100);
+            }
+        }
+        ClusterIndex<Integer> rebuilt = new ClusterIndex<Integer>();
+        for (int i = 0; i < 600; i++) {
+            double[] position = getPosition(index, i);
+            if (position != null) {
+                rebuilt.put(i, position[0], position[1]);
+            }
+        }
+        assertSameClusters(rebuilt.getClusters(0, 20, WORLD), index.getClusters(0, 20, WORLD));
+        assertSameClusters(rebuilt.getClusters(1, 50, WORLD), index.getClusters(1, 50, WORLD));
+    }
+
+    /**
+     * @return the position of the item read from its single member cluster
+     *         at a level with tiny cells
+     */
+    private static double[] getPosition(ClusterIndex<Integer> index, int item) {
+        for (Cluster<Integer> cluster : index.getClusters(10, 1e-9, WORLD)) {
+            if (cluster.getMembers().contains(item)) {
+                return new double[] { cluster.getCenterX(), cluster.getCenterY() };
+            }
+        }
+        return null;
+    }
+
+    private static void assertSameClusters(List<Cluster<Integer>> expected, List<Cluster<Integer>> actual) {
+        Map<String, Cluster<Integer>> actualById = new HashMap<String, Cluster<Integer>>();
+        for (Cluster<Integer> cluster : actual) {
+            actualById.put(cluster.getId(), cluster);
+        }
+        assertEquals(expected.size(), actual.size());
+        for (Cluster<Integer> cluster : expected) {
+            Cluster<Integer> other = actualById.get(cluster.getId());
+            assertEquals(new HashSet<Integer>(cluster.getMembers()), new HashSet<Integer>(other.getMembers()));
+            assertEquals(cluster.getCenterX(), other.getCenterX(), 1e-9);
+            assertEquals(cluster.getCenterY(), other.getCenterY(), 1e-9);
+            assertEquals(cluster.getBounds().getLeft(), other.getBounds().getLeft(), 0);
+            assertEquals(cluster.getBounds().getRight(), other.getBounds().getRight(), 0);
+            assertEquals(cluster.getBounds().getTop(), other.getBounds().getTop(), 0);
+            assertEquals(cluster.getBounds().getBottom(), other.getBounds().getBottom(), 0);
+        }
+    }
+
+    private static Map<String, Cluster<String>> byFirstMember(List<Cluster<String>> clusters) {
+        Map<String, Cluster<String>> result = new HashMap<String, Cluster<String>>();
+        for (Cluster<String> cluster : clusters) {
+            result.put(cluster.getMembers().get(0), cluster);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,26 @@
+package org.vaadin.vol;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+public class CoordinatesTest {
+
+    @Test
+    public void dropsClosingVertexOfRing() {
+        double[] ring = { 0, 0, 1, 0, 1, 1, 0, 0 };
+        assertArrayEquals(new double[] { 0, 0, 1, 0, 1, 1 }, Coordinates.openRing(ring), 0);
+        // the given array is not modified
+        assertArrayEquals(new double[] { 0, 0, 1, 0, 1, 1, 0, 0 }, ring, 0);
+    }
+
+    @Test
+    public void keepsOpenRing() {
+        double[] ring = { 0, 0, 1, 0, 1, 1 };
+        assertSame(ring, Coordinates.openRing(ring));
+        double[] point = { 0, 0 };
+        assertSame(point, Coordinates.openRing(point));
+        assertSame(Coordinates.EMPTY, Coordinates.openRing(Coordinates.EMPTY));
+    }
+}
@@ -0,0 +1,55 @@
+package org.vaadin.vol;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class SimplifierTest {
+
+    @Test
+    public void removesVerticesWithinTolerance() {
+        double[] line = { 0, 0, 1, 0.05, 2, -0.05, 3, 0, 4, 2, 5, 0 };
+        assertArrayEquals(new double[] { 0, 0, 3, 0, 4, 2, 5, 0 }, Simplifier.simplifyLine(line, 0.1), 0);
+    }
+
+    @Test
+    public void keepsEndsOfLine() {
+        double[] line = { 0, 0, 1, 0, 2, 0, 3, 0 };
+        assertArrayEquals(new double[] { 0, 0, 3, 0 }, Simplifier.simplifyLine(line, 1), 0);
+    }
+
+    @Test
+    public void returnsSameArrayWhenNothingIsRemoved() {
+        double[] line = { 0, 0, 1, 5, 2, 0 };
+        assertSame(line, Simplifier.simplifyLine(line, 1));
+        assertSame(line, Simplifier.simplifyLine(line, 0));
+        double[] square = { 0, 0, 10, 0, 10, 10, 0, 10, 0, 0 };
+        assertSame(square, Simplifier.simplifyRing(square, 1));
+    }
+
+    @Test
+    public void keepsClosedRingClosed() {
+        double[] ring = { 0, 0, 5, 0.1, 10, 0, 10, 10, 5, 9.9, 0, 10, 0, 0 };
+        double[] simplified = Simplifier.simplifyRing(ring, 1);
+        assertArrayEquals(new double[] { 0, 0, 10, 0, 10, 10, 0, 10, 0, 0 }, simplified, 0);
+    }
+
+    @Test
+    public void keepsOpenRingOpen() {
+        double[] ring = { 0, 0, 5, 0.1, 10, 0, 10, 10, 5, 9.9, 0, 10 };
+        double[] simplified = Simplifier.simplifyRing(ring, 1);
+        assertArrayEquals(new double[] { 0, 0, 10, 0, 10, 10, 0, 10 }, simplified, 0);
+    }
+
+    @Test
+    public void neverCollapsesRing() {
+        double[] ring = { 0, 0, 1, 0.01, 2, 0, 1, -0.01, 0, 0 };
+        double[] simplified = Simplifier.simplifyRing(ring, 100);
+        // three distinct vertices and the closing one
+        assertEquals(8, simplified.length);
+        assertTrue(simplified[0] == simplified[6] && simplified[1] == simplified[7]);
+    }
+}
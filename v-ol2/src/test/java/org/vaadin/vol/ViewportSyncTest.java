@@ -0,0 +1,126 @@
+package org.vaadin.vol;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+import org.vaadin.vol.client.GeometryType;
+import org.vaadin.vol.client.Point;
+
+public class ViewportSyncTest {
+
+    private static final double[] AREA = { 0, 0, 10, 10 };
+
+    private final Feature inside = new Feature("in", GeometryType.POINT, new Point(5, 5));
+    private final Feature outside = new Feature("out", GeometryType.POINT, new Point(50, 50));
+    private final List<Feature> features = Arrays.asList(inside, outside);
+
+    @Test
+    public void findsFeaturesInArea() {
+        ViewportSync sync = new ViewportSync();
+        assertEquals(features, sync.getFeatures(features, AREA));
+        sync.setCulling(true, features);
+        assertEquals(Collections.singletonList(inside), sync.getFeatures(features, AREA));
+        assertTrue(sync.getFeatures(features, null).isEmpty());
+    }
+
+    @Test
+    public void sendsAndEvictsVisibleFeatures() {
+        ViewportSync sync = new ViewportSync();
+        sync.setCulling(true, features);
+        ViewportSync.Changes changes = sync.sync(visible(inside), none(), noIds(), AREA, null);
+        assertEquals(Collections.singletonList(inside), changes.added);
+        assertTrue(changes.removed.isEmpty());
+        assertFalse(sync.isViewportChanged());
+
+        // nothing to resend for an unchanged viewport
+        sync.viewportChanged();
+        changes = sync.sync(visible(inside), none(), noIds(), AREA, null);
+        assertTrue(changes.added.isEmpty());
+
+        sync.viewportChanged();
+        changes = sync.sync(visible(outside), none(), noIds(), AREA, null);
+        assertEquals(Collections.singletonList(outside), changes.added);
+        assertEquals(Collections.singletonList("in"), changes.removed);
+    }
+
+    @Test
+    public void sendsDirtyFeaturesInArea() {
+        ViewportSync sync = new ViewportSync();
+        sync.setCulling(true, features);
+        sync.sync(visible(inside), none(), noIds(), AREA, null);
+
+        ViewportSync.Changes changes = sync.sync(null, features, noIds(), AREA, null);
+        assertEquals(Collections.singletonList(inside), changes.added);
+        assertTrue(changes.removed.isEmpty());
+
+        // the selected feature is sent even outside the area
+        changes = sync.sync(null, features, noIds(), AREA, "out");
+        assertEquals(features, changes.added);
+
+        // a changed feature that moved out is evicted
+        changes = sync.sync(null, Collections.singletonList(outside), noIds(), AREA, null);
+        assertEquals(Collections.singletonList("out"), changes.removed);
+    }
+
+    @Test
+    public void removesFeaturesOnlyIfSent() {
+        ViewportSync sync = new ViewportSync();
+        sync.setCulling(true, features);
+        sync.sync(visible(inside), none(), noIds(), AREA, null);
+        ViewportSync.Changes changes = sync.sync(null, none(), Arrays.asList("in", "out"), AREA, null);
+        assertEquals(Collections.singletonList("in"), changes.removed);
+    }
+
+    @Test
+    public void resetForgetsSentFeatures() {
+        ViewportSync sync = new ViewportSync();
+        assertFalse(sync.reset());
+        sync.start(new HashSet<String>(Arrays.asList("in")));
+        assertTrue(sync.reset());
+        assertTrue(sync.isViewportChanged());
+        ViewportSync.Changes changes = sync.sync(visible(inside), none(), noIds(), AREA, null);
+        assertEquals(Collections.singletonList(inside), changes.added);
+    }
+
+    @Test
+    public void keepsIndexUpToDate() {
+        ViewportSync sync = new ViewportSync();
+        sync.setCulling(true, features);
+        sync.featureRemoved(inside);
+        assertTrue(sync.getFeatures(features, AREA).isEmpty());
+        sync.featureChanged(inside);
+        assertEquals(Collections.singletonList(inside), sync.getFeatures(features, AREA));
+        sync.allFeaturesRemoved();
+        assertTrue(sync.getFeatures(features, AREA).isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNegativeMargin() {
+        new ViewportSync().setMargin(-1);
+    }
+
+    private static Map<String, Feature> visible(Feature... features) {
+        Map<String, Feature> visible = new LinkedHashMap<String, Feature>();
+        for (Feature feature : features) {
+            visible.put(feature.getId(), feature);
+        }
+        return visible;
+    }
+
+    private static List<Feature> none() {
+        return Collections.emptyList();
+    }
+
+    private static List<String> noIds() {
+        return Collections.emptyList();
+    }
+}
@@ -0,0 +1,70 @@
+package org.vaadin.vol.client;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class GeometryCodecTest {
+
+    @Test
+    public void encodesLikeGooglePolylines() {
+        // the example of the encoded polyline algorithm format documentation
+        double[] coordinates = { 38.5, -120.2, 40.7, -120.95, 43.252, -126.453 };
+        assertEquals("_p~iF~ps|U_ulLnnqC_mqNvxq`@", GeometryCodec.encode(coordinates, 5));
+        assertArrayEquals(coordinates, GeometryCodec.decode("_p~iF~ps|U_ulLnnqC_mqNvxq`@", 5), 0);
+    }
+
+    @Test
+    public void roundTripsDegrees() {
+        double[] coordinates = { 0, 0, 180, -90, -180, 90, 24.945831, 60.192059, -0.000001, 0.000001 };
+        assertArrayEquals(coordinates, roundTrip(coordinates, GeometryCodec.DEGREE_PRECISION), 1e-9);
+    }
+
+    @Test
+    public void roundTripsLargeMetricValues() {
+        // zig-zag encoded deltas larger than 2^32
+        double[] coordinates = { -20037508.34, 20037508.34, 20037508.34, -20037508.34, 0.01, -0.01 };
+        assertArrayEquals(coordinates, roundTrip(coordinates, GeometryCodec.METRIC_PRECISION), 1e-9);
+    }
+
+    @Test
+    public void quantizesToPrecision() {
+        double[] decoded = roundTrip(new double[] { 1.234567891, -1.234567891 }, GeometryCodec.DEGREE_PRECISION);
+        assertArrayEquals(new double[] { 1.234568, -1.234568 }, decoded, 1e-12);
+        decoded = roundTrip(new double[] { 100.006, -100.004 }, GeometryCodec.METRIC_PRECISION);
+        assertArrayEquals(new double[] { 100.01, -100.0 }, decoded, 1e-9);
+    }
+
+    @Test
+    public void encodesRange() {
+        double[] coordinates = { 1, 2, 3, 4, 5, 6 };
+        String encoded = GeometryCodec.encode(coordinates, 2, 4, GeometryCodec.DEGREE_PRECISION);
+        assertArrayEquals(new double[] { 3, 4, 5, 6 }, GeometryCodec.decode(encoded, GeometryCodec.DEGREE_PRECISION),
+          1e-9);
+    }
+
+    @Test
+    public void encodesEmpty() {
+        assertEquals("", GeometryCodec.encode(null, GeometryCodec.DEGREE_PRECISION));
+        assertEquals("", GeometryCodec.encode(new double[0], GeometryCodec.DEGREE_PRECISION));
+        assertEquals(0, GeometryCodec.decode(null, GeometryCodec.DEGREE_PRECISION).length);
+        assertEquals(0, GeometryCodec.decode("", GeometryCodec.DEGREE_PRECISION).length);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsOddValueCount() {
+        GeometryCodec.decode("?", GeometryCodec.DEGREE_PRECISION);
+    }
+
+    @Test
+    public void derivesPrecisionFromProjection() {
+        assertEquals(GeometryCodec.DEGREE_PRECISION, GeometryCodec.getPrecision(null));
+        assertEquals(GeometryCodec.DEGREE_PRECISION, GeometryCodec.getPrecision("epsg:4326"));
+        assertEquals(GeometryCodec.METRIC_PRECISION, GeometryCodec.getPrecision("EPSG:900913"));
+    }
+
+    private static double[] roundTrip(double[] coordinates, int precision) {
+        return GeometryCodec.decode(GeometryCodec.encode(coordinates, precision), precision);
+    }
+}
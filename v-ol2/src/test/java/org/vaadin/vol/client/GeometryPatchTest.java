@@ -0,0 +1,80 @@
+package org.vaadin.vol.client;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+public class GeometryPatchTest {
+
+    private static final int PRECISION = GeometryCodec.DEGREE_PRECISION;
+
+    private static final double[] LINE = { 0, 0, 1, 1, 2, 2, 3, 3 };
+
+    @Test
+    public void splicesVertices() {
+        assertArrayEquals(new double[] { 0, 0, 9, 9, 1, 1, 2, 2, 3, 3 },
+          GeometryPatch.splice(LINE, 1, 0, new double[] { 9, 9 }), 0);
+        assertArrayEquals(new double[] { 0, 0, 3, 3 }, GeometryPatch.splice(LINE, 1, 2, new double[0]), 0);
+        assertArrayEquals(new double[] { 0, 0, 1, 1, 9, 9 }, GeometryPatch.splice(LINE, 2, 10, new double[] { 9, 9 }),
+          0);
+        assertArrayEquals(new double[] { 0, 0, 1, 1, 2, 2, 3, 3, 4, 4 },
+          GeometryPatch.splice(LINE, 4, 0, new double[] { 4, 4 }), 0);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void rejectsIndexOutOfBounds() {
+        GeometryPatch.splice(LINE, 5, 0, new double[0]);
+    }
+
+    @Test
+    public void diffsEqualCoordinatesToNull() {
+        assertNull(GeometryPatch.diff(LINE, LINE.clone(), PRECISION));
+    }
+
+    @Test
+    public void diffsMovedVertex() {
+        double[] moved = { 0, 0, 1, 1, 5, 5, 3, 3 };
+        GeometryPatch patch = GeometryPatch.diff(LINE, moved, PRECISION);
+        assertEquals(2, patch.index);
+        assertEquals(1, patch.removeCount);
+        assertArrayEquals(moved, patch.apply(LINE, PRECISION), 0);
+    }
+
+    @Test
+    public void diffsInsertedAndRemovedVertices() {
+        assertRoundTrip(LINE, new double[] { 0, 0, 0.5, 0.5, 1, 1, 2, 2, 3, 3 });
+        assertRoundTrip(LINE, new double[] { 0, 0, 3, 3 });
+        assertRoundTrip(LINE, new double[] { 0, 0, 1, 1, 2, 2, 3, 3, 4, 4 });
+        assertRoundTrip(LINE, new double[] { 1, 1, 2, 2, 3, 3 });
+        assertRoundTrip(LINE, new double[0]);
+        assertRoundTrip(new double[0], LINE);
+        // repeated vertices
+        assertRoundTrip(new double[] { 1, 1, 1, 1 }, new double[] { 1, 1, 1, 1, 1, 1 });
+    }
+
+    @Test
+    public void patchesClosedRingWithoutClosingVertex() {
+        double[] ring = { 0, 0, 1, 0, 1, 1, 0, 0 };
+        // the client side ring has no closing vertex
+        double[] clientRing = { 0, 0, 1, 0, 1, 1 };
+        GeometryPatch patch = GeometryPatch.diff(clientRing, new double[] { 5, 5, 1, 0, 1, 1 }, PRECISION);
+        assertArrayEquals(new double[] { 5, 5, 1, 0, 1, 1, 5, 5 }, patch.applyToRing(ring, PRECISION), 0);
+
+        patch = GeometryPatch.diff(clientRing, new double[] { 0, 0, 1, 0, 1, 1, 0, 1 }, PRECISION);
+        assertArrayEquals(new double[] { 0, 0, 1, 0, 1, 1, 0, 1, 0, 0 }, patch.applyToRing(ring, PRECISION), 0);
+    }
+
+    @Test
+    public void patchesOpenRingAsSuch() {
+        double[] ring = { 0, 0, 1, 0, 1, 1 };
+        GeometryPatch patch = GeometryPatch.diff(ring, new double[] { 5, 5, 1, 0, 1, 1 }, PRECISION);
+        assertArrayEquals(new double[] { 5, 5, 1, 0, 1, 1 }, patch.applyToRing(ring, PRECISION), 0);
+    }
+
+    private static void assertRoundTrip(double[] oldCoordinates, double[] newCoordinates) {
+        GeometryPatch patch = GeometryPatch.diff(oldCoordinates, newCoordinates, PRECISION);
+        assertArrayEquals(newCoordinates, patch.apply(oldCoordinates, PRECISION), 0);
+    }
+}
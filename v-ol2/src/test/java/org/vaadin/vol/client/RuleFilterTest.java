@@ -0,0 +1,49 @@
+package org.vaadin.vol.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+public class RuleFilterTest {
+
+    @Test
+    public void anchorsLikePattern() {
+        assertEquals("^Hel.*$", RuleFilter.toRegex("Hel*"));
+        assertTrue(matches("Hel*", "Hello"));
+        assertTrue(matches("Hel*", "hel"));
+        assertFalse(matches("Hel*", "He"));
+        assertFalse(matches("Hel*", "Shell"));
+        assertTrue(matches("*ki", "Helsinki"));
+        assertFalse(matches("*ki", "Helsinkis"));
+    }
+
+    @Test
+    public void matchesSingleCharacterWithDot() {
+        assertTrue(matches("H.llo", "Hallo"));
+        assertFalse(matches("H.llo", "Hllo"));
+        assertFalse(matches("H.llo", "Haallo"));
+    }
+
+    @Test
+    public void matchesOtherCharactersLiterally() {
+        assertTrue(matches("a+b (c)?", "a+b (c)?"));
+        assertFalse(matches("a+b", "aab"));
+        assertTrue(matches("[x]$^|\\{1}/", "[x]$^|\\{1}/"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNullPattern() {
+        RuleFilter.like("name", null);
+    }
+
+    /**
+     * Evaluates the value like OpenLayers.Filter.Comparison does.
+     */
+    private static boolean matches(String pattern, String value) {
+        return Pattern.compile(RuleFilter.toRegex(pattern), Pattern.CASE_INSENSITIVE).matcher(value).find();
+    }
+}
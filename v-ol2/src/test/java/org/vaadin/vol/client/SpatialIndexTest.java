@@ -0,0 +1,109 @@
+package org.vaadin.vol.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class SpatialIndexTest {
+
+    private static final int COUNT = 2000;
+
+    @Test
+    public void findsIntersectingItems() {
+        double[] boxes = createBoxes(new Random(1));
+        SpatialIndex<Integer> index = new SpatialIndex<Integer>();
+        for (int i = 0; i < COUNT; i++) {
+            index.insert(i, boxes[i * 4], boxes[i * 4 + 1], boxes[i * 4 + 2], boxes[i * 4 + 3]);
+        }
+        assertEquals(COUNT, index.size());
+        assertSearches(index, boxes, null);
+    }
+
+    @Test
+    public void findsItemsInsertedInBulk() {
+        double[] boxes = createBoxes(new Random(2));
+        List<Integer> items = new ArrayList<Integer>();
+        for (int i = 0; i < COUNT; i++) {
+            items.add(i);
+        }
+        SpatialIndex<Integer> index = new SpatialIndex<Integer>();
+        index.insertAll(items, boxes);
+        assertEquals(COUNT, index.size());
+        assertSearches(index, boxes, null);
+    }
+
+    @Test
+    public void removesItems() {
+        double[] boxes = createBoxes(new Random(3));
+        SpatialIndex<Integer> index = new SpatialIndex<Integer>();
+        for (int i = 0; i < COUNT; i++) {
+            index.insert(i, boxes[i * 4], boxes[i * 4 + 1], boxes[i * 4 + 2], boxes[i * 4 + 3]);
+        }
+        HashSet<Integer> removed = new HashSet<Integer>();
+        for (int i = 0; i < COUNT; i += 3) {
+            assertTrue(index.remove(i));
+            removed.add(i);
+        }
+        assertFalse(index.remove(0));
+        assertFalse(index.contains(0));
+        assertEquals(COUNT - removed.size(), index.size());
+        assertSearches(index, boxes, removed);
+
+        index.clear();
+        assertEquals(0, index.size());
+        assertTrue(index.search(-1000, -1000, 1000, 1000).isEmpty());
+    }
+
+    @Test
+    public void replacesBoxOfReinsertedItem() {
+        SpatialIndex<String> index = new SpatialIndex<String>();
+        index.insert("a", 0, 0, 1, 1);
+        index.insert("a", 10, 10, 11, 11);
+        assertEquals(1, index.size());
+        assertTrue(index.search(0, 0, 2, 2).isEmpty());
+        assertEquals(1, index.search(10.5, 10.5, 10.5, 10.5).size());
+    }
+
+    private static double[] createBoxes(Random random) {
+        double[] boxes = new double[COUNT * 4];
+        for (int i = 0; i < COUNT; i++) {
+            double x = random.nextDouble() * 1000 - 500;
+            double y = random.nextDouble() * 1000 - 500;
+            boxes[i * 4] = x;
+            boxes[i * 4 + 1] = y;
+            boxes[i * 4 + 2] = x + random.nextDouble() * 10;
+            boxes[i * 4 + 3] = y + random.nextDouble() * 10;
+        }
+        return boxes;
+    }
+
+    /**
+     * Compares searches of the index to testing each box.
+     */
+    private static void assertSearches(SpatialIndex<Integer> index, double[] boxes, HashSet<Integer> removed) {
+        Random random = new Random(4);
+        for (int n = 0; n < 100; n++) {
+            double minX = random.nextDouble() * 1000 - 500;
+            double minY = random.nextDouble() * 1000 - 500;
+            double maxX = minX + random.nextDouble() * 200;
+            double maxY = minY + random.nextDouble() * 200;
+            HashSet<Integer> expected = new HashSet<Integer>();
+            for (int i = 0; i < COUNT; i++) {
+                if ((removed == null || !removed.contains(i)) && boxes[i * 4] <= maxX && boxes[i * 4 + 2] >= minX
+                  && boxes[i * 4 + 1] <= maxY && boxes[i * 4 + 3] >= minY) {
+                    expected.add(i);
+                }
+            }
+            List<Integer> found = index.search(minX, minY, maxX, maxY);
+            assertEquals(expected.size(), found.size());
+            assertEquals(expected, new HashSet<Integer>(found));
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package org.vaadin.vol.demo;
+
+import com.vaadin.event.ContextClickEvent;
+import com.vaadin.event.ContextClickEvent.ContextClickListener;
+import com.vaadin.event.MouseEvents.ClickEvent;
+import com.vaadin.event.MouseEvents.ClickListener;
+import com.vaadin.ui.Component;
+import com.vaadin.ui.Notification;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.vaadin.vol.Marker;
+import org.vaadin.vol.MarkerLayer;
+import org.vaadin.vol.OpenLayersMap;
+import org.vaadin.vol.OpenStreetMapLayer;
+
+@SuppressWarnings("serial")
+public class CanvasMarkers extends AbstractVOLTest {
+
+    private static final int MARKER_COUNT = 5000;
+
+    @Override
+    public String getDescription() {
+        return MARKER_COUNT + " markers drawn on a canvas instead of as images of their own. Click or right click "
+          + "a marker.";
+    }
+
+    @Override
+    public Component getTestComponent() {
+        OpenLayersMap map = new OpenLayersMap();
+        map.addLayer(new OpenStreetMapLayer());
+        map.setCenter(22.30, 60.452);
+        map.setZoom(7);
+
+        ClickListener clickListener = new ClickListener() {
+            public void click(ClickEvent event) {
+                Marker marker = (Marker) event.getComponent();
+                Notification.show("Clicked marker at " + marker.getLon() + ", " + marker.getLat());
+            }
+        };
+        ContextClickListener contextClickListener = new ContextClickListener() {
+            public void contextClick(ContextClickEvent event) {
+                Marker marker = ((Marker.MarkerContextClickEvent) event).getMarker();
+                Notification.show("Context clicked marker at " + marker.getLon() + ", " + marker.getLat());
+            }
+        };
+
+        Random random = new Random(0);
+        List<Marker> markers = new ArrayList<Marker>(MARKER_COUNT);
+        for (int i = 0; i < MARKER_COUNT; i++) {
+            Marker marker = new Marker(19 + random.nextDouble() * 10, 59.5 + random.nextDouble() * 5);
+            if (i % 2 == 0) {
+                marker.setIcon("https://cdnjs.cloudflare.com/ajax/libs/openlayers/2.13.1/img/marker-green.png", 21, 25, -10, -25);
+            }
+            marker.addClickListener(clickListener);
+            marker.addContextClickListener(contextClickListener);
+            markers.add(marker);
+        }
+
+        MarkerLayer markerLayer = new MarkerLayer();
+        markerLayer.setCanvasRendering(true);
+        markerLayer.addMarkers(markers);
+        map.addLayer(markerLayer);
+
+        map.setSizeFull();
+        return map;
+    }
+}
@@ -0,0 +1,82 @@
+package org.vaadin.vol.demo;
+
+import com.vaadin.ui.Component;
+import com.vaadin.ui.Notification;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.vaadin.vol.Feature;
+import org.vaadin.vol.Marker;
+import org.vaadin.vol.MarkerLayer;
+import org.vaadin.vol.OpenLayersMap;
+import org.vaadin.vol.OpenStreetMapLayer;
+import org.vaadin.vol.VectorLayer;
+import org.vaadin.vol.client.GeometryType;
+import org.vaadin.vol.client.Point;
+import org.vaadin.vol.client.Style;
+import org.vaadin.vol.client.VectorLayerState;
+
+public class Clustering extends AbstractVOLTest {
+
+    private static final int FEATURE_COUNT = 100000;
+    private static final int MARKER_COUNT = 5000;
+
+    @Override
+    public String getDescription() {
+        return "Server side clustering: " + FEATURE_COUNT + " point features and " + MARKER_COUNT
+          + " markers, click a cluster to zoom in.";
+    }
+
+    @Override
+    public Component getTestComponent() {
+        OpenLayersMap map = new OpenLayersMap();
+        map.addLayer(new OpenStreetMapLayer());
+        map.setCenter(22.30, 60.452);
+        map.setZoom(5);
+
+        Random random = new Random(0);
+
+        VectorLayer vectorLayer = new VectorLayer();
+        vectorLayer.setDisplayName("Clustered features");
+        vectorLayer.setSelectionMode(VectorLayerState.SelectionMode.SIMPLE);
+        Style clusterStyle = new Style();
+        clusterStyle.setPointRadiusByAttribute("pointRadius");
+        clusterStyle.setLabelByAttribute("label");
+        clusterStyle.setFillColor("#3366cc");
+        clusterStyle.setFontColor("white");
+        vectorLayer.setClusterStyle(clusterStyle);
+        vectorLayer.setClusterDistance(40);
+        List<Feature> features = new ArrayList<Feature>(FEATURE_COUNT);
+        for (int i = 0; i < FEATURE_COUNT; i++) {
+            Point point = new Point(15 + random.nextDouble() * 15, 55 + random.nextDouble() * 12);
+            features.add(new Feature("f" + i, GeometryType.POINT, point));
+        }
+        vectorLayer.addFeatures(features);
+        vectorLayer.addClusterClickListener(new VectorLayer.ClusterClickListener() {
+            public void clusterClicked(VectorLayer.ClusterClickEvent event) {
+                Notification.show(event.getFeatures().size() + " features in the cluster");
+            }
+        });
+
+        MarkerLayer markerLayer = new MarkerLayer();
+        markerLayer.setDisplayName("Clustered markers");
+        markerLayer.setClusterDistance(60);
+        List<Marker> markers = new ArrayList<Marker>(MARKER_COUNT);
+        for (int i = 0; i < MARKER_COUNT; i++) {
+            markers.add(new Marker(20 + random.nextDouble() * 8, 60 + random.nextDouble() * 4));
+        }
+        markerLayer.addMarkers(markers);
+        markerLayer.addClusterClickListener(new MarkerLayer.ClusterClickListener() {
+            public void clusterClicked(MarkerLayer.ClusterClickEvent event) {
+                Notification.show(event.getMarkers().size() + " markers in the cluster");
+            }
+        });
+
+        map.addLayer(vectorLayer);
+        map.addLayer(markerLayer);
+        map.setSizeFull();
+        return map;
+    }
+}
@@ -0,0 +1,87 @@
+package org.vaadin.vol.demo;
+
+import com.vaadin.ui.Component;
+import com.vaadin.ui.Notification;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.vaadin.vol.Feature;
+import org.vaadin.vol.OpenLayersMap;
+import org.vaadin.vol.OpenStreetMapLayer;
+import org.vaadin.vol.VectorLayer;
+import org.vaadin.vol.VectorLayer.FeatureSelectedEvent;
+import org.vaadin.vol.VectorLayer.FeatureSelectedListener;
+import org.vaadin.vol.client.AttributeType;
+import org.vaadin.vol.client.GeometryType;
+import org.vaadin.vol.client.Point;
+import org.vaadin.vol.client.RenderIntent;
+import org.vaadin.vol.client.Style;
+import org.vaadin.vol.client.StyleMap;
+import org.vaadin.vol.client.Symbolizer;
+import org.vaadin.vol.client.VectorLayerState;
+
+public class FeatureAttributes extends AbstractVOLTest {
+
+    private static final int FEATURE_COUNT = 20000;
+
+    private static final String[] CATEGORIES = { "lake", "forest", "town" };
+    private static final String[] COLORS = { "#0066ff", "#00aa00", "#cc3300" };
+
+    @Override
+    public String getDescription() {
+        return FEATURE_COUNT + " features styled with a single style map: the color comes from the category "
+          + "attribute through unique value rules and the size from the magnitude attribute.";
+    }
+
+    @Override
+    public Component getTestComponent() {
+        OpenLayersMap map = new OpenLayersMap();
+        map.addLayer(new OpenStreetMapLayer());
+        map.setCenter(22.30, 60.452);
+        map.setZoom(7);
+
+        final VectorLayer vectorLayer = new VectorLayer();
+        vectorLayer.setSelectionMode(VectorLayerState.SelectionMode.SIMPLE);
+        vectorLayer.addAttribute("category", AttributeType.STRING);
+        vectorLayer.addAttribute("magnitude", AttributeType.NUMBER);
+
+        Style style = new Style();
+        style.setPointRadiusByAttribute("magnitude");
+        style.setFillOpacity(0.7);
+        StyleMap styleMap = new StyleMap(style);
+        Symbolizer lookup = new Symbolizer();
+        for (int i = 0; i < CATEGORIES.length; i++) {
+            Symbolizer symbolizer = new Symbolizer();
+            symbolizer.setProperty("fillColor", COLORS[i]);
+            symbolizer.setProperty("strokeColor", COLORS[i]);
+            lookup.setProperty(CATEGORIES[i], symbolizer);
+        }
+        styleMap.addUniqueValueRules(RenderIntent.DEFAULT, "category", lookup);
+        vectorLayer.setStyleMap(styleMap);
+
+        Random random = new Random(0);
+        List<Feature> features = new ArrayList<Feature>(FEATURE_COUNT);
+        for (int i = 0; i < FEATURE_COUNT; i++) {
+            Point point = new Point(18 + random.nextDouble() * 10, 59 + random.nextDouble() * 5);
+            Feature feature = new Feature("f" + i, GeometryType.POINT, point);
+            feature.setAttribute("category", CATEGORIES[random.nextInt(CATEGORIES.length)]);
+            feature.setAttribute("magnitude", 2 + random.nextInt(6));
+            features.add(feature);
+        }
+        vectorLayer.addFeatures(features);
+
+        vectorLayer.addFeatureSelectedListener(new FeatureSelectedListener() {
+            public void featureSelected(FeatureSelectedEvent event) {
+                Feature feature = event.getFeature();
+                Notification.show(feature.getId() + ": " + feature.getAttribute("category") + ", magnitude "
+                  + feature.getAttribute("magnitude"));
+            }
+        });
+
+        map.addLayer(vectorLayer);
+        map.setSizeFull();
+        return map;
+    }
+}
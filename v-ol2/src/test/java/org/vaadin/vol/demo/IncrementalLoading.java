@@ -0,0 +1,55 @@
+package org.vaadin.vol.demo;
+
+import com.vaadin.ui.Component;
+import com.vaadin.ui.Notification;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.vaadin.vol.Feature;
+import org.vaadin.vol.FeaturesLoadedListener;
+import org.vaadin.vol.OpenLayersMap;
+import org.vaadin.vol.OpenStreetMapLayer;
+import org.vaadin.vol.VectorLayer;
+import org.vaadin.vol.client.GeometryType;
+import org.vaadin.vol.client.Point;
+
+public class IncrementalLoading extends AbstractVOLTest {
+
+    private static final int FEATURE_COUNT = 50000;
+
+    @Override
+    public String getDescription() {
+        return FEATURE_COUNT + " features added to the map in chunks, the map can be panned while they "
+          + "are loaded and a notification is shown when all of them are on the map.";
+    }
+
+    @Override
+    public Component getTestComponent() {
+        OpenLayersMap map = new OpenLayersMap();
+        map.addLayer(new OpenStreetMapLayer());
+        map.setCenter(22.30, 60.452);
+        map.setZoom(7);
+
+        VectorLayer vectorLayer = new VectorLayer();
+        vectorLayer.setIncrementalLoading(true);
+        vectorLayer.addFeaturesLoadedListener(new FeaturesLoadedListener() {
+            public void featuresLoaded(FeaturesLoadedEvent event) {
+                Notification.show(event.getFeatureCount() + " features loaded");
+            }
+        });
+
+        Random random = new Random(0);
+        List<Feature> features = new ArrayList<Feature>(FEATURE_COUNT);
+        for (int i = 0; i < FEATURE_COUNT; i++) {
+            Point point = new Point(18 + random.nextDouble() * 10, 59 + random.nextDouble() * 5);
+            features.add(new Feature("f" + i, GeometryType.POINT, point));
+        }
+        vectorLayer.addFeatures(features);
+
+        map.addLayer(vectorLayer);
+        map.setSizeFull();
+        return map;
+    }
+}
@@ -0,0 +1,104 @@
+package org.vaadin.vol.demo;
+
+import com.vaadin.ui.Button;
+import com.vaadin.ui.Button.ClickEvent;
+import com.vaadin.ui.Button.ClickListener;
+import com.vaadin.ui.Component;
+import com.vaadin.ui.HorizontalLayout;
+import com.vaadin.ui.NativeButton;
+import com.vaadin.ui.VerticalLayout;
+
+import java.util.Random;
+
+import org.vaadin.vol.OpenLayersMap;
+import org.vaadin.vol.OpenStreetMapLayer;
+import org.vaadin.vol.PolyLine;
+import org.vaadin.vol.VectorLayer;
+import org.vaadin.vol.client.Point;
+
+@SuppressWarnings("serial")
+public class LiveTrack extends AbstractVOLTest implements ClickListener {
+
+    private static final int MAX_POINTS = 5000;
+
+    private HorizontalLayout controls;
+
+    private Button start = new NativeButton("Start tracking", this);
+    private Button stop = new NativeButton("Stop", this);
+
+    private PolyLine track = new PolyLine();
+
+    private OpenLayersMap map;
+
+    private volatile boolean stopTracking;
+
+    private Point position = new Point(22.30, 60.452);
+
+    @Override
+    public String getDescription() {
+        return "Live track: appends a position ten times per second, keeping the latest " + MAX_POINTS
+          + " positions. Only the new vertices are sent to the client.";
+    }
+
+    @Override
+    protected void setup() {
+        super.setup();
+        ((VerticalLayout) getContent()).addComponentAsFirst(controls);
+    }
+
+    @Override
+    public Component getTestComponent() {
+        if (map == null) {
+            map = new OpenLayersMap();
+            map.addLayer(new OpenStreetMapLayer());
+            map.setCenter(position.getLon(), position.getLat());
+            map.setZoom(12);
+            map.setSizeFull();
+
+            track.setMaxPoints(MAX_POINTS);
+            track.setPoints(position);
+            VectorLayer vectorLayer = new VectorLayer();
+            vectorLayer.addComponent(track);
+            map.addLayer(vectorLayer);
+
+            controls = new HorizontalLayout();
+            controls.addComponent(start);
+            controls.addComponent(stop);
+            setPollInterval(500);
+        }
+        return map;
+    }
+
+    public void buttonClick(ClickEvent event) {
+        if (event.getButton() == start) {
+            start.setEnabled(false);
+            stopTracking = false;
+            new Thread(new Tracker()).start();
+        } else {
+            stopTracking = true;
+            start.setEnabled(true);
+        }
+    }
+
+    public class Tracker implements Runnable {
+        private final Random random = new Random();
+
+        public void run() {
+            while (!stopTracking) {
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                position = new Point(position.getLon() + (random.nextDouble() - 0.5) * 0.002,
+                  position.getLat() + (random.nextDouble() - 0.5) * 0.001);
+                final Point next = position;
+                access(new Runnable() {
+                    public void run() {
+                        track.appendPoints(next);
+                    }
+                });
+            }
+        }
+    }
+}
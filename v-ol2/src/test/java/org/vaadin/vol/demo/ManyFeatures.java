@@ -0,0 +1,57 @@
+package org.vaadin.vol.demo;
+
+import com.vaadin.ui.Component;
+import com.vaadin.ui.Notification;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.vaadin.vol.Feature;
+import org.vaadin.vol.OpenLayersMap;
+import org.vaadin.vol.OpenStreetMapLayer;
+import org.vaadin.vol.VectorLayer;
+import org.vaadin.vol.VectorLayer.FeatureSelectedEvent;
+import org.vaadin.vol.VectorLayer.FeatureSelectedListener;
+import org.vaadin.vol.client.GeometryType;
+import org.vaadin.vol.client.Point;
+import org.vaadin.vol.client.VectorLayerState;
+
+public class ManyFeatures extends AbstractVOLTest {
+
+    private static final int FEATURE_COUNT = 20000;
+
+    @Override
+    public String getDescription() {
+        return "Lightweight features: " + FEATURE_COUNT + " points on a vector layer without a connector per point.";
+    }
+
+    @Override
+    public Component getTestComponent() {
+        OpenLayersMap map = new OpenLayersMap();
+        map.addLayer(new OpenStreetMapLayer());
+        map.setCenter(22.30, 60.452);
+        map.setZoom(5);
+
+        VectorLayer vectorLayer = new VectorLayer();
+        vectorLayer.setSelectionMode(VectorLayerState.SelectionMode.SIMPLE);
+
+        Random random = new Random(0);
+        List<Feature> features = new ArrayList<Feature>(FEATURE_COUNT);
+        for (int i = 0; i < FEATURE_COUNT; i++) {
+            Point point = new Point(15 + random.nextDouble() * 15, 55 + random.nextDouble() * 12);
+            features.add(new Feature("f" + i, GeometryType.POINT, point));
+        }
+        vectorLayer.addFeatures(features);
+
+        vectorLayer.addFeatureSelectedListener(new FeatureSelectedListener() {
+            public void featureSelected(FeatureSelectedEvent event) {
+                Notification.show("Selected " + event.getFeature().getId());
+            }
+        });
+
+        map.addLayer(vectorLayer);
+        map.setSizeFull();
+        return map;
+    }
+}
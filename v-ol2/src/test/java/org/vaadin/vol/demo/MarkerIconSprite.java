@@ -0,0 +1,54 @@
+package org.vaadin.vol.demo;
+
+import com.vaadin.server.ClassResource;
+import com.vaadin.ui.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.vaadin.vol.Marker;
+import org.vaadin.vol.MarkerLayer;
+import org.vaadin.vol.OpenLayersMap;
+import org.vaadin.vol.OpenStreetMapLayer;
+
+public class MarkerIconSprite extends AbstractVOLTest {
+
+    private static final int MARKER_COUNT = 2000;
+
+    private static final String[] ICONS = { "marker", "marker-blue", "marker-gold", "marker-green" };
+
+    @Override
+    public String getDescription() {
+        return MARKER_COUNT + " markers sharing " + ICONS.length + " icons registered to their layer. The icons "
+          + "are packed into a single sprite sheet and loaded with one request.";
+    }
+
+    @Override
+    public Component getTestComponent() {
+        OpenLayersMap map = new OpenLayersMap();
+        map.addLayer(new OpenStreetMapLayer());
+        map.setCenter(22.30, 60.452);
+        map.setZoom(8);
+
+        MarkerLayer markerLayer = new MarkerLayer();
+        for (String icon : ICONS) {
+            markerLayer.registerIcon(icon, new ClassResource(getClass(), "public/img/" + icon + ".png"), 21, 25,
+              -10, -25);
+        }
+        markerLayer.setIconSprite(true);
+
+        Random random = new Random(0);
+        List<Marker> markers = new ArrayList<Marker>(MARKER_COUNT);
+        for (int i = 0; i < MARKER_COUNT; i++) {
+            Marker marker = new Marker(20 + random.nextDouble() * 5, 59.8 + random.nextDouble() * 1.5);
+            marker.setIconName(ICONS[i % ICONS.length]);
+            markers.add(marker);
+        }
+        markerLayer.addMarkers(markers);
+        map.addLayer(markerLayer);
+
+        map.setSizeFull();
+        return map;
+    }
+}
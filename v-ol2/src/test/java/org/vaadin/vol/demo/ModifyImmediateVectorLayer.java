@@ -170,7 +170,7 @@ public class ModifyImmediateVectorLayer extends AbstractVOLTest implements
                             for (Point point : points) {
                                 point.setLon(point.getLon() + toRight);
                             }
-                            vector.requestRepaint();
+                            vector.setPoints(points);
                         }
                     }
                 }));
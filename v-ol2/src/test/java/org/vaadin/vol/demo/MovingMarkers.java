@@ -0,0 +1,70 @@
+package org.vaadin.vol.demo;
+
+import com.vaadin.event.MouseEvents.ClickEvent;
+import com.vaadin.event.MouseEvents.ClickListener;
+import com.vaadin.event.UIEvents.PollEvent;
+import com.vaadin.event.UIEvents.PollListener;
+import com.vaadin.ui.Component;
+import com.vaadin.ui.Notification;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.vaadin.vol.Marker;
+import org.vaadin.vol.MarkerLayer;
+import org.vaadin.vol.OpenLayersMap;
+import org.vaadin.vol.OpenStreetMapLayer;
+
+@SuppressWarnings("serial")
+public class MovingMarkers extends AbstractVOLTest {
+
+    private static final int MARKER_COUNT = 2000;
+
+    private final Random random = new Random(0);
+
+    @Override
+    public String getDescription() {
+        return MARKER_COUNT + " markers moving every two seconds. The markers are moved in place on the client "
+          + "side and their clicks are handled by the layer.";
+    }
+
+    @Override
+    public Component getTestComponent() {
+        OpenLayersMap map = new OpenLayersMap();
+        map.addLayer(new OpenStreetMapLayer());
+        map.setCenter(22.30, 60.452);
+        map.setZoom(9);
+
+        ClickListener clickListener = new ClickListener() {
+            public void click(ClickEvent event) {
+                Marker marker = (Marker) event.getComponent();
+                Notification.show("Vehicle at " + marker.getLon() + ", " + marker.getLat());
+            }
+        };
+
+        final List<Marker> markers = new ArrayList<Marker>(MARKER_COUNT);
+        for (int i = 0; i < MARKER_COUNT; i++) {
+            Marker marker = new Marker(21.5 + random.nextDouble() * 1.6, 60.1 + random.nextDouble() * 0.7);
+            marker.addClickListener(clickListener);
+            markers.add(marker);
+        }
+        MarkerLayer markerLayer = new MarkerLayer();
+        markerLayer.setDelegatedEvents(true);
+        markerLayer.addMarkers(markers);
+        map.addLayer(markerLayer);
+
+        setPollInterval(2000);
+        addPollListener(new PollListener() {
+            public void poll(PollEvent event) {
+                for (Marker marker : markers) {
+                    marker.setPosition(marker.getLon() + (random.nextDouble() - 0.5) * 0.01,
+                      marker.getLat() + (random.nextDouble() - 0.5) * 0.005);
+                }
+            }
+        });
+
+        map.setSizeFull();
+        return map;
+    }
+}
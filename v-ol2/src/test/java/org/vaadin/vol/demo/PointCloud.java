@@ -0,0 +1,58 @@
+package org.vaadin.vol.demo;
+
+import com.vaadin.ui.Component;
+import com.vaadin.ui.Notification;
+
+import java.util.Random;
+
+import org.vaadin.vol.OpenLayersMap;
+import org.vaadin.vol.OpenStreetMapLayer;
+import org.vaadin.vol.PointCloudLayer;
+import org.vaadin.vol.PointCloudLayer.PointClickEvent;
+import org.vaadin.vol.PointCloudLayer.PointClickListener;
+
+public class PointCloud extends AbstractVOLTest {
+
+    private static final int POINT_COUNT = 500000;
+
+    @Override
+    public String getDescription() {
+        return POINT_COUNT + " points with their own colors and sizes drawn on a canvas. Clicking a point shows "
+          + "its index and location.";
+    }
+
+    @Override
+    public Component getTestComponent() {
+        OpenLayersMap map = new OpenLayersMap();
+        map.addLayer(new OpenStreetMapLayer());
+        map.setCenter(22.30, 60.452);
+        map.setZoom(5);
+
+        Random random = new Random(0);
+        double[] coordinates = new double[POINT_COUNT * 2];
+        int[] colors = new int[POINT_COUNT];
+        double[] sizes = new double[POINT_COUNT];
+        for (int i = 0; i < POINT_COUNT; i++) {
+            double value = random.nextDouble();
+            coordinates[i * 2] = 15 + random.nextGaussian() * 3;
+            coordinates[i * 2 + 1] = 61 + random.nextGaussian() * 2;
+            // from blue to red
+            colors[i] = ((int) (value * 255) << 16) | (int) ((1 - value) * 255);
+            sizes[i] = value > 0.99 ? 8 : 2;
+        }
+
+        final PointCloudLayer pointCloud = new PointCloudLayer();
+        pointCloud.setDisplayName("Measurements");
+        pointCloud.setPoints(coordinates, colors, sizes);
+        pointCloud.addPointClickListener(new PointClickListener() {
+            public void pointClicked(PointClickEvent event) {
+                double[] point = event.getPoint();
+                Notification.show("Point " + event.getIndex() + " at " + point[0] + ", " + point[1]);
+            }
+        });
+        map.addLayer(pointCloud);
+
+        map.setSizeFull();
+        return map;
+    }
+}
@@ -0,0 +1,58 @@
+package org.vaadin.vol.demo;
+
+import com.vaadin.ui.Component;
+
+import java.util.Random;
+
+import org.vaadin.vol.LabelVector;
+import org.vaadin.vol.OpenLayersMap;
+import org.vaadin.vol.OpenStreetMapLayer;
+import org.vaadin.vol.PointVector;
+import org.vaadin.vol.VectorLayer;
+import org.vaadin.vol.client.Point;
+import org.vaadin.vol.client.Style;
+
+public class SharedStyles extends AbstractVOLTest {
+
+    private static final String[] COLORS = { "#ff0000", "#00aa00", "#0000ff", "#ff9900" };
+
+    private static final int VECTOR_COUNT = 1000;
+
+    @Override
+    public String getDescription() {
+        return "Shared styles: " + VECTOR_COUNT + " points and labels, each with a style instance of its own. "
+          + "Equal styles are sent to the client once, so only " + COLORS.length + " point styles and one "
+          + "label style are transferred.";
+    }
+
+    @Override
+    public Component getTestComponent() {
+        OpenLayersMap map = new OpenLayersMap();
+        map.addLayer(new OpenStreetMapLayer());
+        map.setCenter(22.30, 60.452);
+        map.setZoom(8);
+
+        VectorLayer vectorLayer = new VectorLayer();
+        Random random = new Random(0);
+        for (int i = 0; i < VECTOR_COUNT; i++) {
+            Point point = new Point(20 + random.nextDouble() * 5, 59.5 + random.nextDouble() * 2);
+            if (i % 10 == 0) {
+                LabelVector label = new LabelVector("Label " + i);
+                label.setPoints(point);
+                vectorLayer.addVector(label);
+            } else {
+                Style style = new Style();
+                style.setFillColor(COLORS[i % COLORS.length]);
+                style.setStrokeColor(COLORS[i % COLORS.length]);
+                style.setPointRadius(4);
+                PointVector vector = new PointVector(point);
+                vector.setCustomStyle(style);
+                vectorLayer.addVector(vector);
+            }
+        }
+
+        map.addLayer(vectorLayer);
+        map.setSizeFull();
+        return map;
+    }
+}
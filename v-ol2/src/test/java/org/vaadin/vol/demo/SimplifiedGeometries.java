@@ -0,0 +1,62 @@
+package org.vaadin.vol.demo;
+
+import com.vaadin.ui.Component;
+
+import java.util.Random;
+
+import org.vaadin.vol.Area;
+import org.vaadin.vol.OpenLayersMap;
+import org.vaadin.vol.OpenStreetMapLayer;
+import org.vaadin.vol.PolyLine;
+import org.vaadin.vol.VectorLayer;
+
+public class SimplifiedGeometries extends AbstractVOLTest {
+
+    private static final int VERTEX_COUNT = 50000;
+
+    @Override
+    public String getDescription() {
+        return "Zoom dependent simplification: a line and an area with " + VERTEX_COUNT
+          + " vertices each are simplified to one pixel accuracy, zoom in to get more detail.";
+    }
+
+    @Override
+    public Component getTestComponent() {
+        OpenLayersMap map = new OpenLayersMap();
+        map.addLayer(new OpenStreetMapLayer());
+        map.setCenter(22.30, 60.452);
+        map.setZoom(7);
+
+        Random random = new Random(0);
+        double[] line = new double[VERTEX_COUNT * 2];
+        double lon = 20;
+        double lat = 60;
+        for (int i = 0; i < VERTEX_COUNT; i++) {
+            lon += 0.0002 + (random.nextDouble() - 0.5) * 0.0002;
+            lat += (random.nextDouble() - 0.5) * 0.0005;
+            line[i * 2] = lon;
+            line[i * 2 + 1] = lat;
+        }
+        PolyLine polyLine = new PolyLine();
+        polyLine.setCoordinates(line);
+
+        double[] ring = new double[VERTEX_COUNT * 2];
+        for (int i = 0; i < VERTEX_COUNT; i++) {
+            double angle = 2 * Math.PI * i / VERTEX_COUNT;
+            double radius = 1 + 0.05 * Math.sin(angle * 200) + random.nextDouble() * 0.01;
+            ring[i * 2] = 24 + radius * Math.cos(angle);
+            ring[i * 2 + 1] = 61 + radius * Math.sin(angle) / 2;
+        }
+        Area area = new Area();
+        area.setCoordinates(ring);
+
+        VectorLayer vectorLayer = new VectorLayer();
+        vectorLayer.setSimplificationTolerance(1);
+        vectorLayer.addComponent(polyLine);
+        vectorLayer.addComponent(area);
+
+        map.addLayer(vectorLayer);
+        map.setSizeFull();
+        return map;
+    }
+}
@@ -0,0 +1,83 @@
+package org.vaadin.vol.demo;
+
+import com.vaadin.ui.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.vaadin.vol.Feature;
+import org.vaadin.vol.OpenLayersMap;
+import org.vaadin.vol.OpenStreetMapLayer;
+import org.vaadin.vol.VectorLayer;
+import org.vaadin.vol.client.AttributeType;
+import org.vaadin.vol.client.ColorRamp;
+import org.vaadin.vol.client.GeometryType;
+import org.vaadin.vol.client.Point;
+import org.vaadin.vol.client.RenderIntent;
+import org.vaadin.vol.client.RuleFilter;
+import org.vaadin.vol.client.Style;
+import org.vaadin.vol.client.StyleMap;
+import org.vaadin.vol.client.StyleRule;
+
+public class StyleMapRules extends AbstractVOLTest {
+
+    private static final int FEATURE_COUNT = 2000;
+
+    @Override
+    public String getDescription() {
+        return "Thematic styling with style map rules: the fill color is graduated by population, "
+          + "capitals get a thick outline and names are shown from zoom level 9 on. "
+          + "The rules are evaluated on the client.";
+    }
+
+    @Override
+    public Component getTestComponent() {
+        OpenLayersMap map = new OpenLayersMap();
+        map.addLayer(new OpenStreetMapLayer());
+        map.setCenter(22.30, 60.452);
+        map.setZoom(7);
+
+        VectorLayer vectorLayer = new VectorLayer();
+        vectorLayer.addAttribute("name", AttributeType.STRING);
+        vectorLayer.addAttribute("population", AttributeType.NUMBER);
+        vectorLayer.addAttribute("capital", AttributeType.BOOLEAN);
+
+        Style base = new Style();
+        base.setPointRadius(6);
+        base.setFillOpacity(0.8);
+        base.setStrokeColor("#333333");
+        base.setStrokeWidth(1);
+        StyleMap styleMap = new StyleMap(base);
+
+        double[] breaks = { 0, 1000, 10000, 100000, 1000000 };
+        styleMap.addGraduatedRules(RenderIntent.DEFAULT, "population", breaks,
+          ColorRamp.interpolate("#ffffcc", "#800026", breaks.length - 1));
+
+        Style capital = new Style();
+        capital.setStrokeWidth(4);
+        styleMap.addRule(RenderIntent.DEFAULT, new StyleRule(RuleFilter.equalTo("capital", true), capital));
+
+        Style label = new Style();
+        label.setLabelByAttribute("name");
+        label.setLabelYOffset(12);
+        styleMap.addRule(RenderIntent.DEFAULT, new StyleRule(null, label).setZoomRange(9, null));
+        vectorLayer.setStyleMap(styleMap);
+
+        Random random = new Random(0);
+        List<Feature> features = new ArrayList<Feature>(FEATURE_COUNT);
+        for (int i = 0; i < FEATURE_COUNT; i++) {
+            Point point = new Point(20 + random.nextDouble() * 5, 59.5 + random.nextDouble() * 3);
+            Feature feature = new Feature("town" + i, GeometryType.POINT, point);
+            feature.setAttribute("name", "Town " + i);
+            feature.setAttribute("population", Math.pow(10, 1 + random.nextDouble() * 5));
+            feature.setAttribute("capital", i % 200 == 0);
+            features.add(feature);
+        }
+        vectorLayer.addFeatures(features);
+
+        map.addLayer(vectorLayer);
+        map.setSizeFull();
+        return map;
+    }
+}